@@ -1,11 +1,33 @@
 package iprwc_backend.controller;
 
 import iprwc_backend.dto.DashboardStats;
-import iprwc_backend.service.OrderService;
+import iprwc_backend.dto.response.BestSellerResponse;
+import iprwc_backend.dto.response.CacheStatsResponse;
+import iprwc_backend.dto.response.DistinctCountsResponse;
+import iprwc_backend.dto.response.DistinctCountsSummaryResponse;
+import iprwc_backend.dto.response.MessageResponse;
+import iprwc_backend.dto.response.TimeSeriesResponse;
+import iprwc_backend.entity.OrderStatus;
+import iprwc_backend.service.BestSellerWindow;
+import iprwc_backend.service.BestSellers;
+import iprwc_backend.service.DashboardCounters;
+import iprwc_backend.service.DashboardStream;
+import iprwc_backend.service.DistinctCounts;
+import iprwc_backend.service.OrderRollups;
+import iprwc_backend.service.ProductService;
+import iprwc_backend.service.TimeGranularity;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/admin/dashboard")
@@ -13,11 +35,83 @@ import org.springframework.web.bind.annotation.*;
 @CrossOrigin(origins = "http://localhost:4200")
 public class DashboardController {
 
-    private final OrderService orderService;
+    private final DashboardCounters dashboardCounters;
+    private final DashboardStream dashboardStream;
+    private final ProductService productService;
+    private final OrderRollups orderRollups;
+    private final BestSellers bestSellers;
+    private final DistinctCounts distinctCounts;
 
     @GetMapping("/stats")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<DashboardStats> getDashboardStats() {
-        return ResponseEntity.ok(orderService.getDashboardStats());
+        return ResponseEntity.ok(dashboardCounters.getStats());
+    }
+
+    // Server-Sent Events: a "stats" event with the current totals, then a "delta" event with the fields that change
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public SseEmitter streamDashboardStats() {
+        return dashboardStream.subscribe();
+    }
+
+    @GetMapping("/timeseries")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<TimeSeriesResponse> getTimeSeries(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "day") String granularity,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) OrderStatus status
+    ) {
+        return ResponseEntity.ok(orderRollups.getTimeSeries(from, to, TimeGranularity.of(granularity), category, status));
+    }
+
+    // Rebuild the rollups of a date range, or of all history without one
+    @PostMapping("/rollups/backfill")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<MessageResponse> backfillRollups(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        if ((from == null) != (to == null)) {
+            throw new IllegalArgumentException("Give both from and to, or neither");
+        }
+        int rows = from == null ? orderRollups.backfillAll() : orderRollups.backfill(from, to);
+        return ResponseEntity.ok(new MessageResponse("Rebuilt " + rows + " rollup rows"));
+    }
+
+    // Unique buyers and products sold today, this week and this month
+    @GetMapping("/distinct-counts")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<DistinctCountsSummaryResponse> getCurrentDistinctCounts() {
+        return ResponseEntity.ok(distinctCounts.getCurrentDistinctCounts());
+    }
+
+    @GetMapping("/distinct-counts/range")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<DistinctCountsResponse> getDistinctCounts(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        return ResponseEntity.ok(distinctCounts.getDistinctCounts(from, to));
+    }
+
+    @GetMapping("/best-sellers")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<BestSellerWindow, List<BestSellerResponse>>> getBestSellers(
+            @RequestParam(required = false) Integer limit
+    ) {
+        Map<BestSellerWindow, List<BestSellerResponse>> windows = new EnumMap<>(BestSellerWindow.class);
+        for (BestSellerWindow window : BestSellerWindow.values()) {
+            windows.put(window, bestSellers.getBestSellers(window, limit));
+        }
+        return ResponseEntity.ok(windows);
+    }
+
+    @GetMapping("/catalog-cache")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CacheStatsResponse> getCatalogCacheStats() {
+        return ResponseEntity.ok(productService.getCatalogCacheStats());
     }
 }
\ No newline at end of file
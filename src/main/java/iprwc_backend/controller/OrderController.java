@@ -1,17 +1,33 @@
 package iprwc_backend.controller;
 
+import iprwc_backend.dto.request.BulkStatusUpdateRequest;
 import iprwc_backend.dto.request.OrderRequest;
+import iprwc_backend.dto.response.BulkStatusUpdateResponse;
+import iprwc_backend.dto.response.OrderHistorySummary;
 import iprwc_backend.dto.response.OrderResponse;
+import iprwc_backend.dto.response.OrderSubmissionResponse;
 import iprwc_backend.entity.OrderStatus;
+import iprwc_backend.entity.SubmissionStatus;
+import iprwc_backend.service.AsyncOrderService;
+import iprwc_backend.service.IdempotentOrderService;
+import iprwc_backend.service.OrderExportService;
 import iprwc_backend.service.OrderService;
+import iprwc_backend.service.OrderView;
+import iprwc_backend.service.OrderViewRenderer;
+import iprwc_backend.service.ProductFileFormat;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.net.URI;
+import java.time.LocalDate;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -20,6 +36,13 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService orderService;
+    private final IdempotentOrderService idempotentOrderService;
+    private final AsyncOrderService asyncOrderService;
+    private final OrderExportService orderExportService;
+    private final OrderViewRenderer orderViewRenderer;
+
+    // Seconds a client should wait before polling an unfinished submission again
+    private static final String POLL_AFTER_SECONDS = "1";
 
     // User endpoints (require authentication)
 
@@ -27,35 +50,139 @@ public class OrderController {
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<OrderResponse> createOrder(
             @PathVariable Long userId,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @Valid @RequestBody OrderRequest request
     ) {
-        return ResponseEntity.status(HttpStatus.CREATED).body(orderService.createOrder(userId, request));
+        // A retry with the same Idempotency-Key gets the original order back instead of a new one
+        IdempotentOrderService.Result result = idempotentOrderService.createOrder(userId, idempotencyKey, request);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header("Idempotent-Replayed", String.valueOf(result.replayed()))
+                .body(result.order());
+    }
+
+    @PostMapping("/user/{userId}/async")
+    @PreAuthorize("hasRole('ADMIN') or @userAccess.isSelf(authentication, #userId)")
+    public ResponseEntity<OrderSubmissionResponse> submitOrder(
+            @PathVariable Long userId,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @Valid @RequestBody OrderRequest request
+    ) {
+        // Accepted once stored; the order is created in the background and polled at the Location
+        OrderSubmissionResponse submission = asyncOrderService.submit(userId, idempotencyKey, request);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/orders/user/" + userId + "/submissions/" + submission.getId()))
+                .header(HttpHeaders.RETRY_AFTER, POLL_AFTER_SECONDS)
+                .body(submission);
+    }
+
+    // Only the submitting user (or an admin) may poll; a submission of another user is reported as not found
+    @GetMapping("/user/{userId}/submissions/{id}")
+    @PreAuthorize("hasRole('ADMIN') or @userAccess.isSelf(authentication, #userId)")
+    public ResponseEntity<OrderSubmissionResponse> getSubmission(@PathVariable Long userId, @PathVariable Long id) {
+        OrderSubmissionResponse submission = asyncOrderService.getSubmission(userId, id);
+        if (submission.getStatus() == SubmissionStatus.COMPLETED || submission.getStatus() == SubmissionStatus.FAILED) {
+            return ResponseEntity.ok(submission);
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.RETRY_AFTER, POLL_AFTER_SECONDS)
+                .body(submission);
     }
 
     @GetMapping("/user/{userId}")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<List<OrderResponse>> getUserOrders(@PathVariable Long userId) {
-        return ResponseEntity.ok(orderService.getOrdersByUserId(userId));
+    public ResponseEntity<?> getUserOrders(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false) String fields
+    ) {
+        OrderView orderView = OrderView.of(view, fields);
+        return ResponseEntity.ok(orderViewRenderer.render(orderService.getOrdersByUserId(userId, orderView), orderView));
+    }
+
+    @GetMapping("/user/{userId}/page")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> getUserOrdersPage(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false) String fields
+    ) {
+        OrderView orderView = OrderView.of(view, fields);
+        return ResponseEntity.ok(orderViewRenderer.render(orderService.getUserOrdersPage(userId, cursor, size, orderView), orderView));
+    }
+
+    @GetMapping("/user/{userId}/summary")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<OrderHistorySummary> getUserOrderSummary(@PathVariable Long userId) {
+        return ResponseEntity.ok(orderService.getUserOrderSummary(userId));
     }
 
     @GetMapping("/{id}")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<OrderResponse> getOrderById(@PathVariable Long id) {
-        return ResponseEntity.ok(orderService.getOrderById(id));
+    public ResponseEntity<?> getOrderById(
+            @PathVariable Long id,
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false) String fields
+    ) {
+        OrderView orderView = OrderView.of(view, fields);
+        return ResponseEntity.ok(orderViewRenderer.render(orderService.getOrderById(id, orderView), orderView));
     }
 
     // Admin endpoints (require ADMIN role)
 
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<OrderResponse>> getAllOrders() {
-        return ResponseEntity.ok(orderService.getAllOrders());
+    public ResponseEntity<?> getAllOrders(
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false) String fields
+    ) {
+        OrderView orderView = OrderView.of(view, fields);
+        return ResponseEntity.ok(orderViewRenderer.render(orderService.getAllOrders(orderView), orderView));
+    }
+
+    @GetMapping("/page")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getOrdersPage(
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false) String fields
+    ) {
+        OrderView orderView = OrderView.of(view, fields);
+        return ResponseEntity.ok(orderViewRenderer.render(orderService.getOrdersPage(status, cursor, size, orderView), orderView));
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportOrderLines(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "csv") String format
+    ) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        ProductFileFormat fileFormat = ProductFileFormat.of(format);
+        ContentDisposition disposition = ContentDisposition.attachment()
+                .filename("order-lines-" + from + "-" + to + "." + fileFormat.getExtension())
+                .build();
+        return ResponseEntity.ok()
+                .contentType(fileFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                .body(output -> orderExportService.exportOrderLines(from, to, output, fileFormat));
     }
 
     @GetMapping("/status/{status}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<OrderResponse>> getOrdersByStatus(@PathVariable OrderStatus status) {
-        return ResponseEntity.ok(orderService.getOrdersByStatus(status));
+    public ResponseEntity<?> getOrdersByStatus(
+            @PathVariable OrderStatus status,
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false) String fields
+    ) {
+        OrderView orderView = OrderView.of(view, fields);
+        return ResponseEntity.ok(orderViewRenderer.render(orderService.getOrdersByStatus(status, orderView), orderView));
     }
 
     @PutMapping("/{id}/status")
@@ -66,4 +193,10 @@ public class OrderController {
     ) {
         return ResponseEntity.ok(orderService.updateOrderStatus(id, status));
     }
-}
\ No newline at end of file
+
+    @PutMapping("/status")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkStatusUpdateResponse> bulkUpdateOrderStatus(@Valid @RequestBody BulkStatusUpdateRequest request) {
+        return ResponseEntity.ok(orderService.bulkUpdateStatus(request));
+    }
+}
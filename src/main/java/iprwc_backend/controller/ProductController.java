@@ -1,16 +1,36 @@
 package iprwc_backend.controller;
 
 import iprwc_backend.dto.request.ProductRequest;
+import iprwc_backend.dto.response.BestSellerResponse;
+import iprwc_backend.dto.response.HotInventoryResponse;
 import iprwc_backend.dto.response.MessageResponse;
+import iprwc_backend.dto.response.ProductImportResponse;
 import iprwc_backend.dto.response.ProductResponse;
+import iprwc_backend.dto.response.SuggestionResponse;
+import iprwc_backend.service.BestSellerWindow;
+import iprwc_backend.service.BestSellers;
+import iprwc_backend.service.CatalogVersion;
+import iprwc_backend.service.ProductExportService;
+import iprwc_backend.service.ProductFileFormat;
+import iprwc_backend.service.ProductImportService;
 import iprwc_backend.service.ProductService;
+import iprwc_backend.service.ProductView;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
 import java.util.List;
 
 @RestController
@@ -20,30 +40,111 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final ProductImportService productImportService;
+    private final ProductExportService productExportService;
+    private final BestSellers bestSellers;
+
+    // List endpoints accept view=summary to leave out the description and timestamps
 
     @GetMapping
-    public ResponseEntity<List<ProductResponse>> getAllProducts() {
-        return ResponseEntity.ok(productService.getAllProducts());
+    public ResponseEntity<?> getAllProducts(
+            @RequestParam(defaultValue = "full") String view,
+            WebRequest webRequest
+    ) {
+        if (notModified(webRequest)) {
+            return null;
+        }
+        return revalidated(ProductView.of(view) == ProductView.SUMMARY
+                ? productService.getAllProductSummaries()
+                : productService.getAllProducts());
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<?> getProductsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "full") String view,
+            WebRequest webRequest
+    ) {
+        if (notModified(webRequest)) {
+            return null;
+        }
+        return revalidated(ProductView.of(view) == ProductView.SUMMARY
+                ? productService.getProductSummariesPage(cursor, size)
+                : productService.getProductsPage(cursor, size));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ProductResponse> getProductById(@PathVariable Long id) {
-        return ResponseEntity.ok(productService.getProductById(id));
+    public ResponseEntity<ProductResponse> getProductById(@PathVariable Long id, WebRequest webRequest) {
+        if (notModified(webRequest)) {
+            return null;
+        }
+        return revalidated(productService.getProductById(id));
     }
 
     @GetMapping("/category/{category}")
-    public ResponseEntity<List<ProductResponse>> getProductsByCategory(@PathVariable String category) {
-        return ResponseEntity.ok(productService.getProductsByCategory(category));
+    public ResponseEntity<?> getProductsByCategory(
+            @PathVariable String category,
+            @RequestParam(defaultValue = "full") String view,
+            WebRequest webRequest
+    ) {
+        if (notModified(webRequest)) {
+            return null;
+        }
+        return revalidated(ProductView.of(view) == ProductView.SUMMARY
+                ? productService.getProductSummariesByCategory(category)
+                : productService.getProductsByCategory(category));
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<ProductResponse>> searchProducts(@RequestParam String keyword) {
-        return ResponseEntity.ok(productService.searchProducts(keyword));
+    public ResponseEntity<?> searchProducts(
+            @RequestParam String keyword,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "full") String view
+    ) {
+        return ResponseEntity.ok(ProductView.of(view) == ProductView.SUMMARY
+                ? productService.searchProductSummaries(keyword, limit)
+                : productService.searchProducts(keyword, limit));
+    }
+
+    @GetMapping("/filter")
+    public ResponseEntity<?> filterProducts(
+            @RequestParam(required = false) List<String> category,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "full") String view
+    ) {
+        return ResponseEntity.ok(ProductView.of(view) == ProductView.SUMMARY
+                ? productService.filterProductSummaries(category, minPrice, maxPrice, inStock, cursor, size)
+                : productService.filterProducts(category, minPrice, maxPrice, inStock, cursor, size));
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionResponse>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(required = false) Integer limit
+    ) {
+        return ResponseEntity.ok(productService.suggest(prefix, limit));
+    }
+
+    // Served from memory; window is hour, day or week
+    @GetMapping("/best-sellers")
+    public ResponseEntity<List<BestSellerResponse>> getBestSellers(
+            @RequestParam(defaultValue = "day") String window,
+            @RequestParam(required = false) Integer limit
+    ) {
+        return ResponseEntity.ok(bestSellers.getBestSellers(BestSellerWindow.of(window), limit));
     }
 
     @GetMapping("/categories")
-    public ResponseEntity<List<String>> getAllCategories() {
-        return ResponseEntity.ok(productService.getAllCategories());
+    public ResponseEntity<List<String>> getAllCategories(WebRequest webRequest) {
+        if (notModified(webRequest)) {
+            return null;
+        }
+        return revalidated(productService.getAllCategories());
     }
 
     // Admin endpoints (require ADMIN role)
@@ -54,6 +155,28 @@ public class ProductController {
         return ResponseEntity.status(HttpStatus.CREATED).body(productService.createProduct(request));
     }
 
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ProductImportResponse> importProducts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body
+    ) throws IOException {
+        return ResponseEntity.ok(productImportService.importProducts(body, ProductFileFormat.of(contentType)));
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportProducts(@RequestParam(defaultValue = "ndjson") String format) {
+        ProductFileFormat fileFormat = ProductFileFormat.of(format);
+        ContentDisposition disposition = ContentDisposition.attachment()
+                .filename("products." + fileFormat.getExtension())
+                .build();
+        return ResponseEntity.ok()
+                .contentType(fileFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                .body(output -> productExportService.exportProducts(output, fileFormat));
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<ProductResponse> updateProduct(
@@ -69,4 +192,37 @@ public class ProductController {
         productService.deleteProduct(id);
         return ResponseEntity.ok(new MessageResponse("Product deleted successfully"));
     }
+
+    @GetMapping("/hot-inventory")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<HotInventoryResponse>> getHotInventory() {
+        return ResponseEntity.ok(productService.getHotInventory());
+    }
+
+    @PutMapping("/{id}/hot-inventory")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<HotInventoryResponse> enableHotInventory(@PathVariable Long id) {
+        return ResponseEntity.ok(productService.enableHotInventory(id));
+    }
+
+    @DeleteMapping("/{id}/hot-inventory")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<MessageResponse> disableHotInventory(@PathVariable Long id) {
+        productService.disableHotInventory(id);
+        return ResponseEntity.ok(new MessageResponse("Hot inventory disabled"));
+    }
+
+    // Sets ETag and Last-Modified from the catalog version; true means answer 304 without reading anything.
+    // Without a cached catalog there is nothing cheap to validate against, so the response goes out unconditionally
+    private boolean notModified(WebRequest webRequest) {
+        CatalogVersion.Tag tag = productService.getCatalogTag();
+        return tag != null && webRequest.checkNotModified(tag.etag(), tag.lastModified());
+    }
+
+    // Caches may keep the response but must revalidate it with the ETag
+    private static <T> ResponseEntity<T> revalidated(T body) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(body);
+    }
 }
\ No newline at end of file
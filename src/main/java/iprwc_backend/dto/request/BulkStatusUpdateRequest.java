@@ -0,0 +1,28 @@
+package iprwc_backend.dto.request;
+
+import iprwc_backend.entity.OrderStatus;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Either ids, or a filter on the current status and optionally the creation time
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusUpdateRequest {
+
+    @Size(max = 10000, message = "At most 10000 orders can be updated at once")
+    private List<Long> ids;
+
+    private OrderStatus fromStatus;
+
+    private LocalDateTime createdBefore;
+
+    @NotNull(message = "Status is required")
+    private OrderStatus status;
+}
@@ -0,0 +1,15 @@
+package iprwc_backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A best-selling product of a window; unitsSold is estimated and off by at most maxError either way
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BestSellerResponse {
+    private ProductSummaryResponse product;
+    private long unitsSold;
+    private long maxError;
+}
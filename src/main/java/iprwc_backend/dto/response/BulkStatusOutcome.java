@@ -0,0 +1,24 @@
+package iprwc_backend.dto.response;
+
+import iprwc_backend.entity.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusOutcome {
+
+    private Long id;
+    private Result result;
+    // Status before the update, null when the order does not exist
+    private OrderStatus previousStatus;
+
+    public enum Result {
+        UPDATED,
+        UNCHANGED,
+        INVALID_TRANSITION,
+        NOT_FOUND,
+    }
+}
@@ -0,0 +1,20 @@
+package iprwc_backend.dto.response;
+
+import iprwc_backend.entity.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusUpdateResponse {
+
+    private OrderStatus status;
+    private int updated;
+    private List<BulkStatusOutcome> results;
+    // A filter matched more orders than one request updates; repeat it for the rest
+    private boolean hasMore;
+}
@@ -0,0 +1,19 @@
+package iprwc_backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatsResponse {
+
+    private boolean loaded;
+    private long version;
+    private int size;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long reloads;
+}
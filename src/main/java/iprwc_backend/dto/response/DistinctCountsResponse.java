@@ -0,0 +1,21 @@
+package iprwc_backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+// Estimated distinct counts over days from (inclusive) to (exclusive); each is within relativeError
+// of the true count about two times in three, and within three times it almost always
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DistinctCountsResponse {
+
+    private LocalDate from;
+    private LocalDate to;
+    private long uniqueBuyers;
+    private long uniqueProductsSold;
+    private double relativeError;
+}
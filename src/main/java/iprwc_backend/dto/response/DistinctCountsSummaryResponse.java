@@ -0,0 +1,16 @@
+package iprwc_backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Distinct counts of today, this week (from Monday) and this month
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DistinctCountsSummaryResponse {
+
+    private DistinctCountsResponse today;
+    private DistinctCountsResponse week;
+    private DistinctCountsResponse month;
+}
@@ -0,0 +1,17 @@
+package iprwc_backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HotInventoryResponse {
+
+    private Long productId;
+    // Stock left to sell, decided in memory
+    private long available;
+    // Committed sales not yet written back to the products table
+    private long unflushed;
+}
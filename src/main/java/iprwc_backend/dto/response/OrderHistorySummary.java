@@ -0,0 +1,22 @@
+package iprwc_backend.dto.response;
+
+import iprwc_backend.entity.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderHistorySummary {
+
+    private long orderCount;
+    // Most recent order; all null when the user has none
+    private Long lastOrderId;
+    private LocalDateTime lastOrderAt;
+    private OrderStatus lastOrderStatus;
+    private BigDecimal lastOrderTotal;
+}
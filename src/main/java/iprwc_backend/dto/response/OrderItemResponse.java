@@ -1,11 +1,14 @@
 package iprwc_backend.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 
+// The compact view has productId and productName instead of the embedded product; they are left out of
+// the full view
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -13,6 +16,10 @@ public class OrderItemResponse {
 
     private Long id;
     private ProductResponse product;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long productId;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String productName;
     private Integer quantity;
     private BigDecimal price;
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package iprwc_backend.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import iprwc_backend.entity.OrderStatus;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -9,6 +10,8 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
+// The full view keeps every field, null or not; OrderViewRenderer drops the fields a sparse or compact view
+// left out. userId is only filled by the compact view, so it never appears in the full one.
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -16,6 +19,8 @@ public class OrderResponse {
 
     private Long id;
     private UserResponse user;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long userId;
     private List<OrderItemResponse> items;
     private BigDecimal totalAmount;
     private OrderStatus status;
@@ -0,0 +1,23 @@
+package iprwc_backend.dto.response;
+
+import iprwc_backend.entity.SubmissionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSubmissionResponse {
+
+    private Long id;
+    private SubmissionStatus status;
+    // The created order, once status is COMPLETED
+    private OrderResponse order;
+    // Why the order was not created, once status is FAILED
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,23 @@
+package iprwc_backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFilterResponse<T> {
+
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasMore;
+    private long total;
+    private Map<String, Long> categories;
+    private Map<String, Long> priceRanges;
+    private long inStock;
+    private long outOfStock;
+}
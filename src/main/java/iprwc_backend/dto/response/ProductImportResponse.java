@@ -0,0 +1,21 @@
+package iprwc_backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportResponse {
+
+    private long rowsRead;
+    private long inserted;
+    private long updated;
+    private long failed;
+    private List<ImportRowError> errors;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+}
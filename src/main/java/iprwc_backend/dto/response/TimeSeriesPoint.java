@@ -0,0 +1,20 @@
+package iprwc_backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimeSeriesPoint {
+
+    // First day of the period
+    private LocalDate period;
+    private long orderCount;
+    private long units;
+    private BigDecimal revenue;
+}
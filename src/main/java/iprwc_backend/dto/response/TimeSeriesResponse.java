@@ -0,0 +1,24 @@
+package iprwc_backend.dto.response;
+
+import iprwc_backend.entity.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimeSeriesResponse {
+
+    private LocalDate from;
+    private LocalDate to;
+    private String granularity;
+    // Null for all categories or all statuses
+    private String category;
+    private OrderStatus status;
+    // One point per period, including periods without orders
+    private List<TimeSeriesPoint> points;
+}
@@ -0,0 +1,28 @@
+package iprwc_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// Running count and revenue of archived orders per status, kept by OrderArchiver so statistics
+// never have to scan the archive
+@Entity
+@Table(name = "order_archive_totals")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedOrderTotal {
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+
+    @Column(nullable = false)
+    private Long orderCount;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal revenue;
+}
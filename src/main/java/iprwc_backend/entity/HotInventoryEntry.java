@@ -0,0 +1,33 @@
+package iprwc_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+// Ledger row of a product whose stock is kept in memory during a flash sale
+@Entity
+@Table(name = "hot_inventory")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HotInventoryEntry {
+
+    @Id
+    private Long productId;
+
+    // Units sold of the product, over all order items, when hot mode was enabled
+    @Column(nullable = false)
+    private Long baseSold;
+
+    // Units written back to products.stock since hot mode was enabled
+    @Column(nullable = false)
+    private Long flushedUnits;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime enabledAt;
+}
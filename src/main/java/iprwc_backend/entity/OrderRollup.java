@@ -0,0 +1,34 @@
+package iprwc_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+
+// Orders, units and revenue of one category, day and status; written only by the SQL in
+// OrderRollupRepositoryCustomImpl. Category "*" is the total over all categories.
+@Entity
+@Immutable
+@Table(name = "order_rollups")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderRollup {
+
+    public static final String ALL_CATEGORIES = "*";
+
+    @EmbeddedId
+    private OrderRollupId id;
+
+    @Column(nullable = false)
+    private Long orderCount;
+
+    @Column(nullable = false)
+    private Long units;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal revenue;
+}
@@ -1,5 +1,8 @@
 package iprwc_backend.entity;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum OrderStatus {
 
     PENDING,
@@ -7,4 +10,30 @@ public enum OrderStatus {
     SHIPPED,
     DELIVERED,
     CANCELLED,
+    ;
+
+    // Statuses an order may move to from this one
+    public Set<OrderStatus> next() {
+        return switch (this) {
+            case PENDING -> EnumSet.of(PROCESSING, CANCELLED);
+            case PROCESSING -> EnumSet.of(SHIPPED, CANCELLED);
+            case SHIPPED -> EnumSet.of(DELIVERED);
+            case DELIVERED, CANCELLED -> EnumSet.noneOf(OrderStatus.class);
+        };
+    }
+
+    public boolean canMoveTo(OrderStatus target) {
+        return next().contains(target);
+    }
+
+    // Statuses from which an order may move to the given one
+    public static Set<OrderStatus> sourcesOf(OrderStatus target) {
+        Set<OrderStatus> sources = EnumSet.noneOf(OrderStatus.class);
+        for (OrderStatus status : values()) {
+            if (status.canMoveTo(target)) {
+                sources.add(status);
+            }
+        }
+        return sources;
+    }
 }
@@ -0,0 +1,58 @@
+package iprwc_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+// An accepted order request waiting for, or processed by, the background order workers
+@Entity
+@Table(
+        name = "order_submissions",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "idempotency_key"})
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSubmission {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    // Optional client Idempotency-Key; a repeated submission with the same key returns this one
+    @Column(name = "idempotency_key")
+    private String idempotencyKey;
+
+    // The OrderRequest as JSON
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String request;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private SubmissionStatus status = SubmissionStatus.PENDING;
+
+    // Times a worker has claimed the submission
+    @Column(nullable = false)
+    private int attempts;
+
+    private Long orderId;
+
+    @Column(length = 1000)
+    private String error;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,9 @@
+package iprwc_backend.entity;
+
+public enum SubmissionStatus {
+
+    PENDING,
+    PROCESSING,
+    COMPLETED,
+    FAILED,
+}
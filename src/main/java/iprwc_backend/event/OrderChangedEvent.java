@@ -0,0 +1,38 @@
+package iprwc_backend.event;
+
+import iprwc_backend.dto.response.OrderResponse;
+import iprwc_backend.entity.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+// Published by OrderService and OrderIngestionPipeline whenever orders are created or change status.
+// Archiving an order is not a change: it keeps counting towards the totals from order_archive_totals.
+@Getter
+@AllArgsConstructor
+public class OrderChangedEvent {
+
+    public enum ChangeType {
+        CREATED,
+        STATUS
+    }
+
+    private final ChangeType type;
+
+    // The new orders, in the full view; only set for CREATED
+    private final List<OrderResponse> orders;
+
+    // New status and the status each order had before; only set for STATUS
+    private final OrderStatus status;
+    private final Map<Long, OrderStatus> previousStatuses;
+
+    public static OrderChangedEvent created(List<OrderResponse> orders) {
+        return new OrderChangedEvent(ChangeType.CREATED, orders, null, Map.of());
+    }
+
+    public static OrderChangedEvent statusChanged(OrderStatus status, Map<Long, OrderStatus> previousStatuses) {
+        return new OrderChangedEvent(ChangeType.STATUS, List.of(), status, previousStatuses);
+    }
+}
@@ -0,0 +1,50 @@
+package iprwc_backend.event;
+
+import iprwc_backend.dto.response.ProductResponse;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Published by ProductService whenever a product is written
+@Getter
+@AllArgsConstructor
+public class ProductChangedEvent {
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED,
+        STOCK,
+        // Many products changed at once (bulk import); listeners rebuild from the database
+        RELOADED
+    }
+
+    private final ChangeType type;
+    // Null for RELOADED
+    private final Long productId;
+
+    // State after the change; only set for CREATED and UPDATED
+    private final ProductResponse product;
+
+    // Stock difference for STOCK changes, applied relative so concurrent commits commute
+    private final int stockDelta;
+
+    public static ProductChangedEvent created(ProductResponse product) {
+        return new ProductChangedEvent(ChangeType.CREATED, product.getId(), product, 0);
+    }
+
+    public static ProductChangedEvent updated(ProductResponse product) {
+        return new ProductChangedEvent(ChangeType.UPDATED, product.getId(), product, 0);
+    }
+
+    public static ProductChangedEvent deleted(Long productId) {
+        return new ProductChangedEvent(ChangeType.DELETED, productId, null, 0);
+    }
+
+    public static ProductChangedEvent stock(Long productId, int stockDelta) {
+        return new ProductChangedEvent(ChangeType.STOCK, productId, null, stockDelta);
+    }
+
+    public static ProductChangedEvent reloaded() {
+        return new ProductChangedEvent(ChangeType.RELOADED, null, null, 0);
+    }
+}
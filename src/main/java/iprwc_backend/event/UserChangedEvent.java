@@ -0,0 +1,26 @@
+package iprwc_backend.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Published by UserService when an account is registered or deleted
+@Getter
+@AllArgsConstructor
+public class UserChangedEvent {
+
+    public enum ChangeType {
+        CREATED,
+        DELETED
+    }
+
+    private final ChangeType type;
+    private final Long userId;
+
+    public static UserChangedEvent created(Long userId) {
+        return new UserChangedEvent(ChangeType.CREATED, userId);
+    }
+
+    public static UserChangedEvent deleted(Long userId) {
+        return new UserChangedEvent(ChangeType.DELETED, userId);
+    }
+}
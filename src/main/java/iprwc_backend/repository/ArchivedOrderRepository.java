@@ -0,0 +1,9 @@
+package iprwc_backend.repository;
+
+import iprwc_backend.entity.ArchivedOrder;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long>, ArchivedOrderRepositoryCustom {
+}
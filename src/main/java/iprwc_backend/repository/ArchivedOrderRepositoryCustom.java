@@ -0,0 +1,18 @@
+package iprwc_backend.repository;
+
+import iprwc_backend.entity.ArchivedOrder;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+// Moves completed orders from orders and order_items into the partitioned archive tables, and reads them back
+public interface ArchivedOrderRepositoryCustom {
+
+    // Archive up to limit DELIVERED or CANCELLED orders created before the given time, oldest first,
+    // and add them to order_archive_totals; returns the number of orders moved. Must run in a transaction.
+    int archiveCompletedBefore(LocalDateTime before, int limit);
+
+    // Archived orders with the given ids; only the listed associations (e.g. "user", "items.product") are fetched
+    List<ArchivedOrder> findByIdIn(Collection<Long> ids, Collection<String> fetch);
+}
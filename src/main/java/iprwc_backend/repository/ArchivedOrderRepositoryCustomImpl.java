@@ -0,0 +1,100 @@
+package iprwc_backend.repository;
+
+import iprwc_backend.entity.ArchivedOrder;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class ArchivedOrderRepositoryCustomImpl implements ArchivedOrderRepositoryCustom {
+
+    // Rows another archiver or a late status change holds are left for the next batch
+    private static final String SELECT_BATCH_SQL =
+            "SELECT id FROM orders WHERE status IN ('DELIVERED', 'CANCELLED') AND created_at < ? " +
+            "ORDER BY created_at, id LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String SELECT_MONTHS_SQL =
+            "SELECT DISTINCT CAST(date_trunc('month', created_at) AS date) FROM orders WHERE id = ANY(?)";
+
+    private static final String CREATE_PARTITION_SQL =
+            "CREATE TABLE IF NOT EXISTS %s_p%s PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')";
+
+    private static final String COPY_ORDERS_SQL =
+            "INSERT INTO orders_archive (id, user_id, total_amount, status, shipping_address, created_at, updated_at) " +
+            "SELECT id, user_id, total_amount, status, shipping_address, created_at, updated_at " +
+            "FROM orders WHERE id = ANY(?)";
+
+    private static final String COPY_ITEMS_SQL =
+            "INSERT INTO order_items_archive (id, order_id, order_created_at, product_id, quantity, price) " +
+            "SELECT i.id, i.order_id, o.created_at, i.product_id, i.quantity, i.price " +
+            "FROM order_items i JOIN orders o ON o.id = i.order_id WHERE i.order_id = ANY(?)";
+
+    private static final String ADD_TOTALS_SQL =
+            "INSERT INTO order_archive_totals (status, order_count, revenue) " +
+            "SELECT status, COUNT(*), SUM(total_amount) FROM orders WHERE id = ANY(?) GROUP BY status " +
+            "ON CONFLICT (status) DO UPDATE SET " +
+            "order_count = order_archive_totals.order_count + EXCLUDED.order_count, " +
+            "revenue = order_archive_totals.revenue + EXCLUDED.revenue";
+
+    private static final String DELETE_ITEMS_SQL = "DELETE FROM order_items WHERE order_id = ANY(?)";
+
+    private static final String DELETE_ORDERS_SQL = "DELETE FROM orders WHERE id = ANY(?)";
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int archiveCompletedBefore(LocalDateTime before, int limit) {
+        List<Long> ids = jdbcTemplate.queryForList(SELECT_BATCH_SQL, Long.class, Timestamp.valueOf(before), limit);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        // Bound as a bigint[] parameter
+        Long[] idArray = ids.toArray(new Long[0]);
+        for (LocalDate month : jdbcTemplate.queryForList(SELECT_MONTHS_SQL, LocalDate.class, (Object) idArray)) {
+            createPartitions(YearMonth.from(month));
+        }
+
+        jdbcTemplate.update(COPY_ORDERS_SQL, (Object) idArray);
+        jdbcTemplate.update(COPY_ITEMS_SQL, (Object) idArray);
+        jdbcTemplate.update(ADD_TOTALS_SQL, (Object) idArray);
+        jdbcTemplate.update(DELETE_ITEMS_SQL, (Object) idArray);
+        jdbcTemplate.update(DELETE_ORDERS_SQL, (Object) idArray);
+        return ids.size();
+    }
+
+    @Override
+    public List<ArchivedOrder> findByIdIn(Collection<Long> ids, Collection<String> fetch) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        TypedQuery<ArchivedOrder> query = entityManager
+                .createQuery("SELECT o FROM ArchivedOrder o WHERE o.id IN :ids", ArchivedOrder.class)
+                .setParameter("ids", ids);
+        return FetchGraphs.withFetch(entityManager, query, ArchivedOrder.class, fetch).getResultList();
+    }
+
+    // Monthly partitions of both archive tables are created the first time an order of that month is archived
+    private void createPartitions(YearMonth month) {
+        String suffix = month.format(PARTITION_SUFFIX);
+        String from = month.atDay(1).toString();
+        String to = month.plusMonths(1).atDay(1).toString();
+        jdbcTemplate.execute(CREATE_PARTITION_SQL.formatted("orders_archive", suffix, "orders_archive", from, to));
+        jdbcTemplate.execute(CREATE_PARTITION_SQL.formatted("order_items_archive", suffix, "order_items_archive", from, to));
+    }
+}
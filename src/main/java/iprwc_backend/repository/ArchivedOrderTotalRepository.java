@@ -0,0 +1,10 @@
+package iprwc_backend.repository;
+
+import iprwc_backend.entity.ArchivedOrderTotal;
+import iprwc_backend.entity.OrderStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ArchivedOrderTotalRepository extends JpaRepository<ArchivedOrderTotal, OrderStatus> {
+}
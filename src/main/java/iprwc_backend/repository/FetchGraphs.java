@@ -0,0 +1,36 @@
+package iprwc_backend.repository;
+
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Subgraph;
+import jakarta.persistence.TypedQuery;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+// Builds fetch graphs at runtime for queries whose associations depend on what the caller asked for.
+// Paths are attribute names, optionally one level deep ("items.product"); anything not listed stays lazy.
+final class FetchGraphs {
+
+    private static final String FETCH_GRAPH_HINT = "jakarta.persistence.fetchgraph";
+
+    private FetchGraphs() {
+    }
+
+    static <T> TypedQuery<T> withFetch(EntityManager entityManager, TypedQuery<T> query,
+                                       Class<T> type, Collection<String> paths) {
+        EntityGraph<T> graph = entityManager.createEntityGraph(type);
+        Map<String, Subgraph<Object>> subgraphs = new HashMap<>();
+        for (String path : paths) {
+            int dot = path.indexOf('.');
+            if (dot < 0) {
+                graph.addAttributeNodes(path);
+            } else {
+                subgraphs.computeIfAbsent(path.substring(0, dot), graph::addSubgraph)
+                        .addAttributeNodes(path.substring(dot + 1));
+            }
+        }
+        return query.setHint(FETCH_GRAPH_HINT, graph);
+    }
+}
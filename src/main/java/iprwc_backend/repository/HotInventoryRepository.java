@@ -0,0 +1,16 @@
+package iprwc_backend.repository;
+
+import iprwc_backend.entity.HotInventoryEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface HotInventoryRepository extends JpaRepository<HotInventoryEntry, Long> {
+
+    // Record units written back to products.stock
+    @Modifying
+    @Query("UPDATE HotInventoryEntry h SET h.flushedUnits = h.flushedUnits + :units WHERE h.productId = :productId")
+    int addFlushedUnits(Long productId, long units);
+}
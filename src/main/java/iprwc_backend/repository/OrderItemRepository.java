@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -18,10 +19,36 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     // Find order items by product
     List<OrderItem> findByProduct(Product product);
 
-    // Get most popular products (by quantity sold)
-    @Query("SELECT oi.product, SUM(oi.quantity) as totalSold " +
-            "FROM OrderItem oi " +
-            "GROUP BY oi.product " +
-            "ORDER BY totalSold DESC")
-    List<Object[]> findMostPopularProducts();
+    // Units sold per time bucket (bucketSeconds long, counted from the epoch) and product of the live orders
+    // created since the given time, cancelled orders excluded; at most perBucket best sellers per bucket
+    @Query(value = """
+            SELECT bucket, product_id, units FROM (
+                SELECT bucket, product_id, SUM(quantity) AS units,
+                       row_number() OVER (PARTITION BY bucket ORDER BY SUM(quantity) DESC, product_id) AS rank
+                FROM (
+                    SELECT CAST(floor(extract(epoch FROM o.created_at) / :bucketSeconds) AS bigint) AS bucket,
+                           i.product_id, i.quantity
+                    FROM orders o JOIN order_items i ON i.order_id = o.id
+                    WHERE o.created_at >= :since AND o.status <> 'CANCELLED'
+                ) sold
+                GROUP BY bucket, product_id
+            ) ranked
+            WHERE rank <= :perBucket""", nativeQuery = true)
+    List<Object[]> findUnitsSoldByBucket(long bucketSeconds, LocalDateTime since, int perBucket);
+
+    // Units sold per product id, archived orders included
+    @Query(value = """
+            SELECT product_id, SUM(quantity) FROM (
+                SELECT product_id, quantity FROM order_items
+                UNION ALL
+                SELECT product_id, quantity FROM order_items_archive
+            ) sold
+            GROUP BY product_id""", nativeQuery = true)
+    List<Object[]> findUnitsSoldByProduct();
+
+    // Units sold of one product, archived orders included, so archiving never changes the total
+    @Query(value = "SELECT COALESCE((SELECT SUM(quantity) FROM order_items WHERE product_id = :productId), 0) "
+            + "+ COALESCE((SELECT SUM(quantity) FROM order_items_archive WHERE product_id = :productId), 0)",
+            nativeQuery = true)
+    long sumQuantityByProductId(Long productId);
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ package iprwc_backend.repository;
 import iprwc_backend.entity.Order;
 import iprwc_backend.entity.OrderStatus;
 import iprwc_backend.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -11,9 +12,10 @@ import org.springframework.stereotype.Repository;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderRepositoryCustom {
 
     // Find orders by user
     List<Order> findByUser(User user);
@@ -43,4 +45,77 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
 
     // Find recent orders (last N orders)
     List<Order> findTop10ByOrderByCreatedAtDesc();
-}
\ No newline at end of file
+
+    // Keyset pages of order IDs, newest first. Pages are cut on IDs alone because
+    // a limit on a collection fetch would be applied in memory, not in SQL.
+
+    @Query("SELECT o.id FROM Order o WHERE o.id < :beforeId ORDER BY o.id DESC")
+    List<Long> findIdsBefore(Long beforeId, Limit limit);
+
+    @Query("SELECT o.id FROM Order o WHERE o.status = :status AND o.id < :beforeId ORDER BY o.id DESC")
+    List<Long> findIdsByStatusBefore(OrderStatus status, Long beforeId, Limit limit);
+
+    // A user's history covers orders and orders_archive, newest first by creation time with the id breaking
+    // ties between orders of one group commit. Each branch reads its (user_id, created_at, id) index, and the
+    // merged result stops at the page size, so a page costs the same however long the history is.
+
+    @Query(value = """
+            SELECT id FROM (
+                SELECT id, created_at FROM orders WHERE user_id = :userId
+                UNION ALL
+                SELECT id, created_at FROM orders_archive WHERE user_id = :userId
+            ) history
+            ORDER BY created_at DESC, id DESC
+            LIMIT :limit""", nativeQuery = true)
+    List<Long> findHistoryIdsByUserId(Long userId, int limit);
+
+    @Query(value = """
+            SELECT id FROM (
+                SELECT id, created_at FROM orders
+                WHERE user_id = :userId AND (created_at, id) < (:beforeTime, :beforeId)
+                UNION ALL
+                SELECT id, created_at FROM orders_archive
+                WHERE user_id = :userId AND (created_at, id) < (:beforeTime, :beforeId)
+            ) history
+            ORDER BY created_at DESC, id DESC
+            LIMIT :limit""", nativeQuery = true)
+    List<Long> findHistoryIdsByUserIdBefore(Long userId, LocalDateTime beforeTime, Long beforeId, int limit);
+
+    // Count a user's orders, archived ones included
+    @Query(value = "SELECT (SELECT COUNT(*) FROM orders WHERE user_id = :userId) "
+            + "+ (SELECT COUNT(*) FROM orders_archive WHERE user_id = :userId)", nativeQuery = true)
+    long countHistoryByUserId(Long userId);
+
+    // Find a user's most recent order, archived ones included, without its items
+    @Query(value = """
+            SELECT id, created_at AS createdAt, status, total_amount AS totalAmount FROM (
+                SELECT id, created_at, status, total_amount FROM orders WHERE user_id = :userId
+                UNION ALL
+                SELECT id, created_at, status, total_amount FROM orders_archive WHERE user_id = :userId
+            ) history
+            ORDER BY created_at DESC, id DESC
+            LIMIT 1""", nativeQuery = true)
+    Optional<OrderHeadline> findLatestHistoryByUserId(Long userId);
+
+    // Creation time of the oldest order, archived ones included; null without orders
+    @Query(value = "SELECT LEAST((SELECT MIN(created_at) FROM orders), (SELECT MIN(created_at) FROM orders_archive))",
+            nativeQuery = true)
+    LocalDateTime findFirstHistoryCreatedAt();
+
+    // Creation time of the newest order, archived ones included; null without orders
+    @Query(value = "SELECT GREATEST((SELECT MAX(created_at) FROM orders), (SELECT MAX(created_at) FROM orders_archive))",
+            nativeQuery = true)
+    LocalDateTime findLastHistoryCreatedAt();
+
+    // Id, time, status and total of an order
+    interface OrderHeadline {
+
+        Long getId();
+
+        LocalDateTime getCreatedAt();
+
+        OrderStatus getStatus();
+
+        BigDecimal getTotalAmount();
+    }
+}
@@ -0,0 +1,35 @@
+package iprwc_backend.repository;
+
+import iprwc_backend.entity.Order;
+import iprwc_backend.entity.OrderStatus;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Set-based order writes issued through JDBC batches instead of per-entity saves, and order reads
+// that load only the associations a response needs
+public interface OrderRepositoryCustom {
+
+    // Insert the orders and their items in two JDBC batches; generated ids are set on the orders and items
+    void batchInsert(List<Order> orders);
+
+    // Move the given orders that are in one of the from statuses to the target status in one statement;
+    // returns the previous status of every order that was updated
+    Map<Long, OrderStatus> updateStatus(Collection<Long> ids, Set<OrderStatus> from, OrderStatus to);
+
+    // Same, for up to limit orders in one of the from statuses created before the given time (if any), lowest ids first
+    Map<Long, OrderStatus> updateStatusWhere(Set<OrderStatus> from, LocalDateTime createdBefore, OrderStatus to, int limit);
+
+    // Current status of the given orders; missing orders are left out
+    Map<Long, OrderStatus> findStatuses(Collection<Long> ids);
+
+    // Orders with the given ids; only the listed associations (e.g. "user", "items.product") are fetched
+    List<Order> findByIdIn(Collection<Long> ids, Collection<String> fetch);
+
+    // Orders of the given user and/or status (all orders if both are null), newest first; only the listed
+    // associations are fetched
+    List<Order> findNewestFirst(Long userId, OrderStatus status, Collection<String> fetch);
+}
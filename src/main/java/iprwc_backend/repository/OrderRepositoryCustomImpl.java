@@ -0,0 +1,216 @@
+package iprwc_backend.repository;
+
+import iprwc_backend.entity.Order;
+import iprwc_backend.entity.OrderItem;
+import iprwc_backend.entity.OrderStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@RequiredArgsConstructor
+public class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+
+    private static final String INSERT_ORDER_SQL =
+            "INSERT INTO orders (user_id, total_amount, status, shipping_address, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_ITEM_SQL =
+            "INSERT INTO order_items (order_id, product_id, quantity, price) VALUES (?, ?, ?, ?)";
+
+    // The subquery locks the matching rows in id order, so concurrent bulk updates cannot deadlock,
+    // and keeps their old status for RETURNING, which otherwise only sees the new row
+    private static final String UPDATE_STATUS_SQL =
+            "UPDATE orders o SET status = ?, updated_at = now() " +
+            "FROM (SELECT id, status FROM orders WHERE id = ANY(?) AND status = ANY(?) ORDER BY id FOR UPDATE) previous " +
+            "WHERE o.id = previous.id " +
+            "RETURNING o.id, previous.status";
+
+    private static final String UPDATE_STATUS_WHERE_SQL =
+            "UPDATE orders o SET status = ?, updated_at = now() " +
+            "FROM (SELECT id, status FROM orders WHERE status = ANY(?) %s ORDER BY id LIMIT ? FOR UPDATE) previous " +
+            "WHERE o.id = previous.id " +
+            "RETURNING o.id, previous.status";
+
+    private static final String FIND_STATUSES_SQL = "SELECT id, status FROM orders WHERE id = ANY(?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void batchInsert(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+
+        List<Long> orderIds = insert(INSERT_ORDER_SQL, orders.size(), (ps, i) -> {
+            Order order = orders.get(i);
+            ps.setLong(1, order.getUser().getId());
+            ps.setBigDecimal(2, order.getTotalAmount());
+            ps.setString(3, order.getStatus().name());
+            ps.setString(4, order.getShippingAddress());
+            ps.setTimestamp(5, Timestamp.valueOf(order.getCreatedAt()));
+            ps.setTimestamp(6, Timestamp.valueOf(order.getUpdatedAt()));
+        });
+
+        List<OrderItem> items = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            orders.get(i).setId(orderIds.get(i));
+            items.addAll(orders.get(i).getItems());
+        }
+
+        List<Long> itemIds = insert(INSERT_ITEM_SQL, items.size(), (ps, i) -> {
+            OrderItem item = items.get(i);
+            ps.setLong(1, item.getOrder().getId());
+            ps.setLong(2, item.getProduct().getId());
+            ps.setInt(3, item.getQuantity());
+            ps.setBigDecimal(4, item.getPrice());
+        });
+        for (int i = 0; i < items.size(); i++) {
+            items.get(i).setId(itemIds.get(i));
+        }
+    }
+
+    @Override
+    public Map<Long, OrderStatus> updateStatus(Collection<Long> ids, Set<OrderStatus> from, OrderStatus to) {
+        if (ids.isEmpty() || from.isEmpty()) {
+            return Map.of();
+        }
+        return statuses(connection -> {
+            PreparedStatement ps = connection.prepareStatement(UPDATE_STATUS_SQL);
+            ps.setString(1, to.name());
+            ps.setArray(2, idArray(connection, ids));
+            ps.setArray(3, statusArray(connection, from));
+            return ps;
+        });
+    }
+
+    @Override
+    public Map<Long, OrderStatus> updateStatusWhere(Set<OrderStatus> from, LocalDateTime createdBefore, OrderStatus to, int limit) {
+        if (from.isEmpty()) {
+            return Map.of();
+        }
+        String sql = UPDATE_STATUS_WHERE_SQL.formatted(createdBefore != null ? "AND created_at < ?" : "");
+        return statuses(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql);
+            int index = 1;
+            ps.setString(index++, to.name());
+            ps.setArray(index++, statusArray(connection, from));
+            if (createdBefore != null) {
+                ps.setTimestamp(index++, Timestamp.valueOf(createdBefore));
+            }
+            ps.setInt(index, limit);
+            return ps;
+        });
+    }
+
+    @Override
+    public Map<Long, OrderStatus> findStatuses(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return statuses(connection -> {
+            PreparedStatement ps = connection.prepareStatement(FIND_STATUSES_SQL);
+            ps.setArray(1, idArray(connection, ids));
+            return ps;
+        });
+    }
+
+    @Override
+    public List<Order> findByIdIn(Collection<Long> ids, Collection<String> fetch) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        TypedQuery<Order> query = entityManager.createQuery("SELECT o FROM Order o WHERE o.id IN :ids", Order.class)
+                .setParameter("ids", ids);
+        return FetchGraphs.withFetch(entityManager, query, Order.class, fetch).getResultList();
+    }
+
+    @Override
+    public List<Order> findNewestFirst(Long userId, OrderStatus status, Collection<String> fetch) {
+        StringBuilder jpql = new StringBuilder("SELECT o FROM Order o WHERE 1 = 1");
+        if (userId != null) {
+            jpql.append(" AND o.user.id = :userId");
+        }
+        if (status != null) {
+            jpql.append(" AND o.status = :status");
+        }
+        TypedQuery<Order> query = entityManager.createQuery(jpql.append(" ORDER BY o.id DESC").toString(), Order.class);
+        if (userId != null) {
+            query.setParameter("userId", userId);
+        }
+        if (status != null) {
+            query.setParameter("status", status);
+        }
+        return FetchGraphs.withFetch(entityManager, query, Order.class, fetch).getResultList();
+    }
+
+    // Run a statement returning (id, status) rows, in row order
+    private Map<Long, OrderStatus> statuses(PreparedStatementCreator statement) {
+        Map<Long, OrderStatus> statuses = new LinkedHashMap<>();
+        jdbcTemplate.query(statement, (ResultSet rs) -> {
+            statuses.put(rs.getLong(1), OrderStatus.valueOf(rs.getString(2)));
+        });
+        return statuses;
+    }
+
+    private static Array idArray(Connection connection, Collection<Long> ids) throws SQLException {
+        return connection.createArrayOf("bigint", ids.toArray());
+    }
+
+    private static Array statusArray(Connection connection, Set<OrderStatus> statuses) throws SQLException {
+        return connection.createArrayOf("varchar", statuses.stream().map(OrderStatus::name).toArray());
+    }
+
+    // Run one batch and return the generated id of every row, in batch order
+    private List<Long> insert(String sql, int size, RowSetter setter) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(sql, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        setter.set(ps, i);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return size;
+                    }
+                },
+                keys
+        );
+        List<Long> ids = new ArrayList<>(size);
+        for (Map<String, Object> row : keys.getKeyList()) {
+            // One requested key column per row; drivers differ in how they case its name
+            ids.add(((Number) row.values().iterator().next()).longValue());
+        }
+        return ids;
+    }
+
+    @FunctionalInterface
+    private interface RowSetter {
+        void set(PreparedStatement ps, int i) throws SQLException;
+    }
+}
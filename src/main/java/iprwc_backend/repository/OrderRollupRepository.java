@@ -0,0 +1,10 @@
+package iprwc_backend.repository;
+
+import iprwc_backend.entity.OrderRollup;
+import iprwc_backend.entity.OrderRollupId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OrderRollupRepository extends JpaRepository<OrderRollup, OrderRollupId>, OrderRollupRepositoryCustom {
+}
@@ -0,0 +1,27 @@
+package iprwc_backend.repository;
+
+import iprwc_backend.entity.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+// Set-based maintenance and reads of order_rollups
+public interface OrderRollupRepositoryCustom {
+
+    // Add (sign 1) or remove (sign -1) the given live orders under the given status, in their categories and
+    // the "*" total. Must run in the transaction that writes the orders, after their items are inserted.
+    void addOrders(Collection<Long> orderIds, OrderStatus status, int sign);
+
+    // Recompute the rollups of days from (inclusive) to (exclusive) from orders and the archive; returns the
+    // number of rows written. Must run in a transaction; blocks rollup writes of order transactions until it ends.
+    int rebuild(LocalDate from, LocalDate to);
+
+    // Totals of a category per period (a date_trunc unit: day, week, month or year) over days from (inclusive)
+    // to (exclusive), of one status or all (null), in period order; periods without orders are left out
+    List<RollupBucket> sumByPeriod(String unit, String category, LocalDate from, LocalDate to, OrderStatus status);
+
+    record RollupBucket(LocalDate period, long orderCount, long units, BigDecimal revenue) {
+    }
+}
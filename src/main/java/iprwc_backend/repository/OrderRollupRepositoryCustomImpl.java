@@ -0,0 +1,88 @@
+package iprwc_backend.repository;
+
+import iprwc_backend.entity.OrderStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class OrderRollupRepositoryCustomImpl implements OrderRollupRepositoryCustom {
+
+    // Every item line counts in its product's category and in "*"
+    private static final String ADD_ORDERS_SQL =
+            "INSERT INTO order_rollups (category, day, status, order_count, units, revenue) " +
+            "SELECT c.category, CAST(o.created_at AS date), ?, ? * COUNT(DISTINCT o.id), ? * SUM(i.quantity), " +
+            "? * SUM(i.quantity * i.price) " +
+            "FROM orders o JOIN order_items i ON i.order_id = o.id JOIN products p ON p.id = i.product_id " +
+            "CROSS JOIN LATERAL (VALUES (p.category), ('*')) AS c (category) " +
+            "WHERE o.id = ANY(?) " +
+            "GROUP BY c.category, CAST(o.created_at AS date) " +
+            "ON CONFLICT (category, day, status) DO UPDATE SET " +
+            "order_count = order_rollups.order_count + EXCLUDED.order_count, " +
+            "units = order_rollups.units + EXCLUDED.units, " +
+            "revenue = order_rollups.revenue + EXCLUDED.revenue";
+
+    // Order transactions take ROW EXCLUSIVE when they add to the rollups, which this waits for and then blocks.
+    // Orders committed before the lock are in the rebuild's snapshot; later ones add themselves afterwards.
+    private static final String LOCK_SQL = "LOCK TABLE order_rollups IN SHARE ROW EXCLUSIVE MODE";
+
+    private static final String DELETE_SQL = "DELETE FROM order_rollups WHERE day >= ? AND day < ?";
+
+    // The archive branch filters on both partition keys so only the partitions of the range are read
+    private static final String REBUILD_SQL =
+            "INSERT INTO order_rollups (category, day, status, order_count, units, revenue) " +
+            "SELECT c.category, l.day, l.status, COUNT(DISTINCT l.order_id), SUM(l.quantity), SUM(l.quantity * l.price) " +
+            "FROM (" +
+            "SELECT o.id AS order_id, CAST(o.created_at AS date) AS day, o.status, i.product_id, i.quantity, i.price " +
+            "FROM orders o JOIN order_items i ON i.order_id = o.id " +
+            "WHERE o.created_at >= ? AND o.created_at < ? " +
+            "UNION ALL " +
+            "SELECT o.id, CAST(o.created_at AS date), o.status, i.product_id, i.quantity, i.price " +
+            "FROM orders_archive o JOIN order_items_archive i ON i.order_id = o.id AND i.order_created_at = o.created_at " +
+            "WHERE o.created_at >= ? AND o.created_at < ? AND i.order_created_at >= ? AND i.order_created_at < ?" +
+            ") l JOIN products p ON p.id = l.product_id " +
+            "CROSS JOIN LATERAL (VALUES (p.category), ('*')) AS c (category) " +
+            "GROUP BY c.category, l.day, l.status";
+
+    // Cast to timestamp, not timestamptz, so the periods do not depend on the session time zone
+    private static final String SUM_BY_PERIOD_SQL =
+            "SELECT CAST(date_trunc(?, CAST(day AS timestamp)) AS date), SUM(order_count), SUM(units), SUM(revenue) " +
+            "FROM order_rollups WHERE category = ? AND day >= ? AND day < ? %s GROUP BY 1 ORDER BY 1";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void addOrders(Collection<Long> orderIds, OrderStatus status, int sign) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(ADD_ORDERS_SQL, status.name(), sign, sign, sign, orderIds.toArray(new Long[0]));
+    }
+
+    @Override
+    public int rebuild(LocalDate from, LocalDate to) {
+        jdbcTemplate.execute(LOCK_SQL);
+        jdbcTemplate.update(DELETE_SQL, Date.valueOf(from), Date.valueOf(to));
+        Timestamp start = Timestamp.valueOf(from.atStartOfDay());
+        Timestamp end = Timestamp.valueOf(to.atStartOfDay());
+        return jdbcTemplate.update(REBUILD_SQL, start, end, start, end, start, end);
+    }
+
+    @Override
+    public List<RollupBucket> sumByPeriod(String unit, String category, LocalDate from, LocalDate to, OrderStatus status) {
+        List<Object> args = new ArrayList<>(List.of(unit, category, Date.valueOf(from), Date.valueOf(to)));
+        if (status != null) {
+            args.add(status.name());
+        }
+        return jdbcTemplate.query(
+                SUM_BY_PERIOD_SQL.formatted(status == null ? "" : "AND status = ?"),
+                (rs, row) -> new RollupBucket(rs.getDate(1).toLocalDate(), rs.getLong(2), rs.getLong(3), rs.getBigDecimal(4)),
+                args.toArray());
+    }
+}
@@ -0,0 +1,55 @@
+package iprwc_backend.repository;
+
+import iprwc_backend.entity.OrderSubmission;
+import iprwc_backend.entity.SubmissionStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OrderSubmissionRepository extends JpaRepository<OrderSubmission, Long> {
+
+    // Find a submission of one user
+    Optional<OrderSubmission> findByIdAndUserId(Long id, Long userId);
+
+    // Find a submission by user and client Idempotency-Key
+    Optional<OrderSubmission> findByUserIdAndIdempotencyKey(Long userId, String idempotencyKey);
+
+    // Mark the oldest pending submissions as processing and return their ids; rows claimed by
+    // another worker are skipped instead of waited for
+    @Query(value = """
+            UPDATE order_submissions
+            SET status = 'PROCESSING', attempts = attempts + 1, updated_at = now()
+            WHERE id IN (
+                SELECT id FROM order_submissions
+                WHERE status = 'PENDING'
+                ORDER BY id
+                LIMIT :limit
+                FOR UPDATE SKIP LOCKED
+            )
+            RETURNING id""", nativeQuery = true)
+    List<Long> claimPending(int limit);
+
+    // Record the outcome of a claimed submission
+    @Modifying
+    @Query("UPDATE OrderSubmission s SET s.status = :status, s.orderId = :orderId, s.error = :error, "
+            + "s.updatedAt = CURRENT_TIMESTAMP WHERE s.id = :id")
+    int finish(Long id, SubmissionStatus status, Long orderId, String error);
+
+    // Move submissions between statuses when they were last touched before the given time
+    @Modifying
+    @Query("UPDATE OrderSubmission s SET s.status = :to, s.updatedAt = CURRENT_TIMESTAMP "
+            + "WHERE s.status = :from AND s.updatedAt < :before")
+    int updateStatusBefore(SubmissionStatus from, SubmissionStatus to, LocalDateTime before);
+
+    // Delete finished submissions older than the retention period
+    @Modifying
+    @Query("DELETE FROM OrderSubmission s WHERE s.status IN :statuses AND s.updatedAt < :before")
+    int deleteByStatusInAndUpdatedAtBefore(Collection<SubmissionStatus> statuses, LocalDateTime before);
+}
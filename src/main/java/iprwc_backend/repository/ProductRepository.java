@@ -1,14 +1,28 @@
 package iprwc_backend.repository;
 
+import iprwc_backend.dto.response.ProductSummaryResponse;
 import iprwc_backend.entity.Product;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
+
+    // Summary rows are built in the query: no description column, no managed entity, no dirty-checking snapshot
+    String SELECT_SUMMARY = "SELECT new iprwc_backend.dto.response.ProductSummaryResponse(" +
+            "p.id, p.name, p.price, p.category, p.image, p.stock) FROM Product p";
 
     // Find products by category
     List<Product> findByCategory(String category);
@@ -26,4 +40,43 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     // Find products by price range
     @Query("SELECT p FROM Product p WHERE p.price BETWEEN :minPrice AND :maxPrice")
     List<Product> findByPriceRange(Double minPrice, Double maxPrice);
+
+    // Find product by ID and lock its row until the transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Product> findWithLockById(Long id);
+
+    // (id, stock) rows of the given products, without loading the entities
+    @Query("SELECT p.id, p.stock FROM Product p WHERE p.id IN :ids")
+    List<Object[]> findStockByIdIn(Collection<Long> ids);
+
+    // Find products by ID and lock their rows, in id order so concurrent lockers cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<Product> findWithLockByIdInOrderByIdAsc(Collection<Long> ids);
+
+    // Keyset page of products after the given id
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // All products in id order through a server-side cursor; must be consumed inside a transaction
+    @Query("SELECT p FROM Product p ORDER BY p.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Product> streamAllOrderById();
+
+    // Product summaries ordered by id
+    @Query(SELECT_SUMMARY + " ORDER BY p.id")
+    List<ProductSummaryResponse> findAllSummaries();
+
+    // Keyset page of product summaries after the given id
+    @Query(SELECT_SUMMARY + " WHERE p.id > :afterId ORDER BY p.id")
+    List<ProductSummaryResponse> findSummariesAfter(Long afterId, Limit limit);
+
+    // Product summaries in a category, ordered by id
+    @Query(SELECT_SUMMARY + " WHERE p.category = :category ORDER BY p.id")
+    List<ProductSummaryResponse> findSummariesByCategory(String category);
+
+    // Product summaries for the given ids, in no particular order
+    @Query(SELECT_SUMMARY + " WHERE p.id IN :ids")
+    List<ProductSummaryResponse> findSummariesByIdIn(Collection<Long> ids);
 }
\ No newline at end of file
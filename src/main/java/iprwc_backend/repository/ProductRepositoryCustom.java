@@ -0,0 +1,22 @@
+package iprwc_backend.repository;
+
+import iprwc_backend.dto.request.ProductRequest;
+
+import java.util.List;
+import java.util.Map;
+
+// Set-based product writes issued through JDBC batches instead of per-entity saves
+public interface ProductRepositoryCustom {
+
+    // Insert the products in one JDBC batch; returns the affected row count per product
+    int[] batchInsert(List<ProductRequest> products);
+
+    // Update the products with the given ids in one JDBC batch; a zero count means the id does not exist
+    int[] batchUpdate(List<Long> ids, List<ProductRequest> products);
+
+    // Take the quantities from stock in one JDBC batch, in map order; a zero count means too little stock was left
+    int[] batchDecrementStock(Map<Long, Integer> quantities);
+
+    // Subtract already reserved quantities from stock in one JDBC batch, without a stock check
+    int[] batchSubtractStock(Map<Long, Long> quantities);
+}
@@ -0,0 +1,78 @@
+package iprwc_backend.repository;
+
+import iprwc_backend.dto.request.ProductRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO products (name, description, price, category, image, stock, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, now(), now())";
+
+    private static final String UPDATE_SQL =
+            "UPDATE products SET name = ?, description = ?, price = ?, category = ?, image = ?, stock = ?, " +
+            "updated_at = now() WHERE id = ?";
+
+    // Check and decrement in one statement, so concurrent orders can never take more than is left
+    private static final String DECREMENT_STOCK_SQL =
+            "UPDATE products SET stock = stock - ?, updated_at = now() WHERE id = ? AND stock >= ?";
+
+    private static final String SUBTRACT_STOCK_SQL =
+            "UPDATE products SET stock = stock - ?, updated_at = now() WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int[] batchInsert(List<ProductRequest> products) {
+        List<Object[]> args = new ArrayList<>(products.size());
+        for (ProductRequest product : products) {
+            args.add(new Object[]{
+                    product.getName(),
+                    product.getDescription(),
+                    product.getPrice(),
+                    product.getCategory(),
+                    product.getImage(),
+                    product.getStock()
+            });
+        }
+        return jdbcTemplate.batchUpdate(INSERT_SQL, args);
+    }
+
+    @Override
+    public int[] batchUpdate(List<Long> ids, List<ProductRequest> products) {
+        List<Object[]> args = new ArrayList<>(products.size());
+        for (int i = 0; i < products.size(); i++) {
+            ProductRequest product = products.get(i);
+            args.add(new Object[]{
+                    product.getName(),
+                    product.getDescription(),
+                    product.getPrice(),
+                    product.getCategory(),
+                    product.getImage(),
+                    product.getStock(),
+                    ids.get(i)
+            });
+        }
+        return jdbcTemplate.batchUpdate(UPDATE_SQL, args);
+    }
+
+    @Override
+    public int[] batchDecrementStock(Map<Long, Integer> quantities) {
+        List<Object[]> args = new ArrayList<>(quantities.size());
+        quantities.forEach((id, quantity) -> args.add(new Object[]{quantity, id, quantity}));
+        return jdbcTemplate.batchUpdate(DECREMENT_STOCK_SQL, args);
+    }
+
+    @Override
+    public int[] batchSubtractStock(Map<Long, Long> quantities) {
+        List<Object[]> args = new ArrayList<>(quantities.size());
+        quantities.forEach((id, quantity) -> args.add(new Object[]{quantity, id}));
+        return jdbcTemplate.batchUpdate(SUBTRACT_STOCK_SQL, args);
+    }
+}
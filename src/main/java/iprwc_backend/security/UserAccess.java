@@ -0,0 +1,24 @@
+package iprwc_backend.security;
+
+import iprwc_backend.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+// Ownership checks for @PreAuthorize expressions, e.g. "@userAccess.isSelf(authentication, #userId)"
+@Component("userAccess")
+@RequiredArgsConstructor
+public class UserAccess {
+
+    private final UserRepository userRepository;
+
+    // Whether the authenticated caller is the user with the given id; the JWT subject is the email
+    public boolean isSelf(Authentication authentication, Long userId) {
+        if (authentication == null || !authentication.isAuthenticated() || userId == null) {
+            return false;
+        }
+        return userRepository.findByEmail(authentication.getName())
+                .map(user -> userId.equals(user.getId()))
+                .orElse(false);
+    }
+}
@@ -0,0 +1,271 @@
+package iprwc_backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import iprwc_backend.dto.request.OrderRequest;
+import iprwc_backend.dto.response.OrderResponse;
+import iprwc_backend.dto.response.OrderSubmissionResponse;
+import iprwc_backend.entity.OrderSubmission;
+import iprwc_backend.entity.SubmissionStatus;
+import iprwc_backend.exception.ResourceNotFoundException;
+import iprwc_backend.repository.OrderSubmissionRepository;
+import iprwc_backend.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Asynchronous checkout: a validated request is stored in order_submissions and answered right away,
+// and workers on virtual threads create the orders in the background. At most orders.async.max-concurrency
+// submissions are processed at once, so a burst queues in the table instead of holding request threads
+// and database connections. Orders go through IdempotentOrderService keyed by the submission, so a
+// submission that is processed twice after a crash still creates one order.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AsyncOrderService implements SmartLifecycle {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final OrderSubmissionRepository submissionRepository;
+    private final UserRepository userRepository;
+    private final IdempotentOrderService idempotentOrderService;
+    private final OrderService orderService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${orders.async.enabled:true}")
+    private boolean enabled;
+
+    @Value("${orders.async.max-concurrency:8}")
+    private int maxConcurrency;
+
+    @Value("${orders.async.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+
+    @Value("${orders.async.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${orders.async.processing-timeout-minutes:5}")
+    private long processingTimeoutMinutes;
+
+    @Value("${orders.async.retention-hours:24}")
+    private long retentionHours;
+
+    // Signalled when a submission is stored, so the dispatcher does not wait for the next poll
+    private final Semaphore wakeups = new Semaphore(0);
+    private Semaphore workers;
+    private ExecutorService executor;
+    private volatile Thread dispatcher;
+    private volatile boolean running;
+
+    // Store the order request for background processing. With an Idempotency-Key, a repeated submission
+    // returns the existing one instead of queueing the order again.
+    public OrderSubmissionResponse submit(Long userId, String key, OrderRequest request) {
+        if (key != null) {
+            IdempotentOrderService.checkKey(key);
+        }
+        if (!userRepository.existsById(userId)) {
+            throw new ResourceNotFoundException("User not found with id: " + userId);
+        }
+        String json = toJson(request);
+        if (key != null) {
+            OrderSubmission existing = submissionRepository.findByUserIdAndIdempotencyKey(userId, key).orElse(null);
+            if (existing != null) {
+                return toResponse(checkSameRequest(existing, json));
+            }
+        }
+
+        OrderSubmission submission = new OrderSubmission();
+        submission.setUserId(userId);
+        submission.setIdempotencyKey(key);
+        submission.setRequest(json);
+        OrderSubmission stored;
+        try {
+            stored = transactionTemplate.execute(status -> submissionRepository.save(submission));
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent submission with the same key was stored first
+            return submissionRepository.findByUserIdAndIdempotencyKey(userId, key)
+                    .map(winner -> toResponse(checkSameRequest(winner, json)))
+                    .orElseThrow(() -> e);
+        }
+        wakeups.release();
+        return toResponse(stored);
+    }
+
+    // Current state of a user's submission, with the order once it has been created
+    public OrderSubmissionResponse getSubmission(Long userId, Long id) {
+        OrderSubmission submission = submissionRepository.findByIdAndUserId(id, userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Order submission not found with id: " + id));
+        return toResponse(submission);
+    }
+
+    // Requeue submissions whose worker died mid-way and drop finished ones past the retention period
+    @Scheduled(fixedDelayString = "PT1M")
+    public void maintainSubmissions() {
+        LocalDateTime now = LocalDateTime.now();
+        Integer requeued = transactionTemplate.execute(status -> submissionRepository.updateStatusBefore(
+                SubmissionStatus.PROCESSING, SubmissionStatus.PENDING, now.minusMinutes(processingTimeoutMinutes)));
+        Integer purged = transactionTemplate.execute(status -> submissionRepository.deleteByStatusInAndUpdatedAtBefore(
+                EnumSet.of(SubmissionStatus.COMPLETED, SubmissionStatus.FAILED), now.minusHours(retentionHours)));
+        if (requeued != null && requeued > 0) {
+            log.warn("Requeued {} order submissions that were not finished in time", requeued);
+            wakeups.release();
+        }
+        if (purged != null && purged > 0) {
+            log.info("Purged {} finished order submissions", purged);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        workers = new Semaphore(maxConcurrency);
+        executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("order-submission-", 0).factory());
+        running = true;
+        dispatcher = Thread.ofVirtual().name("order-submission-dispatcher").start(this::dispatch);
+    }
+
+    // Submissions still being processed are requeued by maintainSubmissions after a restart
+    @Override
+    public void stop() {
+        running = false;
+        Thread current = dispatcher;
+        if (current == null) {
+            return;
+        }
+        current.interrupt();
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Claim as many pending submissions as there are free workers, then wait for more work
+    private void dispatch() {
+        while (running) {
+            try {
+                workers.acquire();
+                int free = 1 + workers.drainPermits();
+                List<Long> claimed;
+                try {
+                    claimed = transactionTemplate.execute(status -> submissionRepository.claimPending(free));
+                } catch (RuntimeException e) {
+                    log.warn("Failed to claim order submissions", e);
+                    claimed = List.of();
+                }
+                workers.release(free - claimed.size());
+                for (Long id : claimed) {
+                    executor.execute(() -> {
+                        try {
+                            process(id);
+                        } finally {
+                            workers.release();
+                        }
+                    });
+                }
+                if (claimed.isEmpty()) {
+                    wakeups.tryAcquire(pollIntervalMs, TimeUnit.MILLISECONDS);
+                    wakeups.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void process(Long id) {
+        OrderSubmission submission = submissionRepository.findById(id).orElse(null);
+        if (submission == null) {
+            return;
+        }
+
+        SubmissionStatus outcome;
+        Long orderId = null;
+        String error = null;
+        try {
+            OrderRequest request = objectMapper.readValue(submission.getRequest(), OrderRequest.class);
+            // The client's key if it sent one, so a synchronous retry with that key finds the same order
+            IdempotentOrderService.Result result = submission.getIdempotencyKey() != null
+                    ? idempotentOrderService.createOrder(submission.getUserId(), submission.getIdempotencyKey(), request)
+                    : idempotentOrderService.createOrderWithInternalKey(
+                            submission.getUserId(), "submission-" + submission.getId(), request);
+            orderId = result.order().getId();
+            outcome = SubmissionStatus.COMPLETED;
+        } catch (TransientDataAccessException | CannotCreateTransactionException e) {
+            // The database, not the order, failed; leave it for another attempt
+            log.warn("Order submission {} failed on attempt {}", id, submission.getAttempts(), e);
+            outcome = submission.getAttempts() < maxAttempts ? SubmissionStatus.PENDING : SubmissionStatus.FAILED;
+            error = outcome == SubmissionStatus.FAILED ? "Order could not be created, please try again" : null;
+        } catch (JsonProcessingException | RuntimeException e) {
+            outcome = SubmissionStatus.FAILED;
+            error = e.getMessage();
+        }
+
+        if (error != null && error.length() > MAX_ERROR_LENGTH) {
+            error = error.substring(0, MAX_ERROR_LENGTH);
+        }
+        SubmissionStatus status = outcome;
+        Long createdId = orderId;
+        String message = error;
+        try {
+            transactionTemplate.executeWithoutResult(tx -> submissionRepository.finish(id, status, createdId, message));
+        } catch (RuntimeException e) {
+            // Stays PROCESSING until requeued; the idempotency key keeps the retry from ordering twice
+            log.error("Failed to record outcome of order submission {}", id, e);
+        }
+    }
+
+    private OrderSubmissionResponse toResponse(OrderSubmission submission) {
+        OrderResponse order = submission.getStatus() == SubmissionStatus.COMPLETED
+                ? orderService.getOrderById(submission.getOrderId())
+                : null;
+        return new OrderSubmissionResponse(
+                submission.getId(),
+                submission.getStatus(),
+                order,
+                submission.getError(),
+                submission.getCreatedAt(),
+                submission.getUpdatedAt()
+        );
+    }
+
+    private static OrderSubmission checkSameRequest(OrderSubmission submission, String json) {
+        if (!submission.getRequest().equals(json)) {
+            throw new RuntimeException("Idempotency-Key was already used for a different order");
+        }
+        return submission;
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
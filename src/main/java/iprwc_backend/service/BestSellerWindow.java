@@ -0,0 +1,42 @@
+package iprwc_backend.service;
+
+import java.time.Duration;
+import java.util.Locale;
+
+// Windows of the best-seller lists, each made of a fixed number of time buckets. A window covers its
+// buckets up to and including the current one, so it reaches back between (buckets - 1) and buckets
+// bucket lengths.
+public enum BestSellerWindow {
+
+    HOUR(Duration.ofMinutes(5), 12),
+    DAY(Duration.ofHours(1), 24),
+    WEEK(Duration.ofHours(6), 28);
+
+    private final Duration bucketLength;
+    private final int buckets;
+
+    BestSellerWindow(Duration bucketLength, int buckets) {
+        this.bucketLength = bucketLength;
+        this.buckets = buckets;
+    }
+
+    public Duration bucketLength() {
+        return bucketLength;
+    }
+
+    public int buckets() {
+        return buckets;
+    }
+
+    public Duration length() {
+        return bucketLength.multipliedBy(buckets);
+    }
+
+    public static BestSellerWindow of(String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported window: " + name);
+        }
+    }
+}
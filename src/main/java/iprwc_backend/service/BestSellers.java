@@ -0,0 +1,204 @@
+package iprwc_backend.service;
+
+import iprwc_backend.dto.response.BestSellerResponse;
+import iprwc_backend.dto.response.OrderItemResponse;
+import iprwc_backend.dto.response.OrderResponse;
+import iprwc_backend.dto.response.ProductSummaryResponse;
+import iprwc_backend.entity.OrderStatus;
+import iprwc_backend.event.OrderChangedEvent;
+import iprwc_backend.repository.OrderItemRepository;
+import iprwc_backend.util.SpaceSaving;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Best-selling products of the last hour, day and week, kept in memory so storefront widgets read no
+// order history. Each window is a ring of time buckets, each bucket a Space-Saving summary of the units
+// sold per product; orders are added as they commit and a window is read by merging its buckets.
+// A periodic exact recompute refills the rings from the orders of the last week, which is also how
+// cancellations leave the lists. Assumes a single application instance.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BestSellers {
+
+    public static final int DEFAULT_LIMIT = 10;
+    public static final int MAX_LIMIT = 50;
+
+    private final OrderItemRepository orderItemRepository;
+    private final ProductService productService;
+
+    // Counters per bucket; products selling more than 1 / capacity of a bucket's units are always kept
+    @Value("${catalog.best-sellers.capacity:200}")
+    private int capacity;
+
+    // Guarded by this; null until the first read
+    private Map<BestSellerWindow, Ring> rings;
+
+    // The best sellers of a window, most units first; only the first call reads the database
+    public List<BestSellerResponse> getBestSellers(BestSellerWindow window, Integer limit) {
+        int size = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+        Ring ring;
+        synchronized (this) {
+            ring = rings == null ? null : rings.get(window);
+        }
+        if (ring == null) {
+            recompute();
+            synchronized (this) {
+                ring = rings.get(window);
+            }
+        }
+
+        // Products deleted since they sold are skipped, so a few more candidates than asked for are resolved
+        List<SpaceSaving.Entry> top = ring.top(bucketOf(LocalDateTime.now(), window), 2 * size);
+        Map<Long, ProductSummaryResponse> products = productService
+                .getProductSummaries(top.stream().map(SpaceSaving.Entry::key).toList()).stream()
+                .collect(Collectors.toMap(ProductSummaryResponse::getId, Function.identity()));
+
+        List<BestSellerResponse> bestSellers = new ArrayList<>(size);
+        for (SpaceSaving.Entry entry : top) {
+            ProductSummaryResponse product = products.get(entry.key());
+            if (product != null && bestSellers.size() < size) {
+                bestSellers.add(new BestSellerResponse(product, entry.count(), entry.error()));
+            }
+        }
+        return bestSellers;
+    }
+
+    // Refill the rings from the database; skipped while nothing has read them yet
+    @Scheduled(fixedDelayString = "${catalog.best-sellers.recompute-interval:PT10M}")
+    public void recomputeIfLoaded() {
+        synchronized (this) {
+            if (rings == null) {
+                return;
+            }
+        }
+        recompute();
+    }
+
+    // Orders committed while the queries run may be missed or counted twice until the next recompute
+    void recompute() {
+        long started = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        Map<BestSellerWindow, Ring> loaded = new EnumMap<>(BestSellerWindow.class);
+        for (BestSellerWindow window : BestSellerWindow.values()) {
+            Ring ring = new Ring(window.buckets(), capacity);
+            long current = bucketOf(now, window);
+            long first = current - window.buckets() + 1;
+            LocalDateTime since = LocalDateTime.ofEpochSecond(first * window.bucketLength().toSeconds(), 0, ZoneOffset.UTC);
+            // Rows come largest first per bucket, so each bucket holds exact counts of its top sellers
+            for (Object[] row : orderItemRepository.findUnitsSoldByBucket(window.bucketLength().toSeconds(), since, capacity)) {
+                ring.add(((Number) row[0]).longValue(), ((Number) row[1]).longValue(), ((Number) row[2]).longValue());
+            }
+            loaded.put(window, ring);
+        }
+        synchronized (this) {
+            rings = loaded;
+        }
+        log.debug("Recomputed best sellers in {} ms", (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        if (event.getType() != OrderChangedEvent.ChangeType.CREATED) {
+            return;
+        }
+        Map<BestSellerWindow, Ring> current;
+        synchronized (this) {
+            current = rings;
+        }
+        if (current == null) {
+            return;
+        }
+        for (OrderResponse order : event.getOrders()) {
+            if (order.getStatus() == OrderStatus.CANCELLED || order.getItems() == null) {
+                continue;
+            }
+            LocalDateTime createdAt = order.getCreatedAt() != null ? order.getCreatedAt() : LocalDateTime.now();
+            current.forEach((window, ring) -> {
+                long bucket = bucketOf(createdAt, window);
+                for (OrderItemResponse item : order.getItems()) {
+                    ring.add(bucket, item.getProduct().getId(), item.getQuantity());
+                }
+            });
+        }
+    }
+
+    // Buckets are numbered from the epoch, reading order times as UTC like extract(epoch ...) does
+    private static long bucketOf(LocalDateTime time, BestSellerWindow window) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), window.bucketLength().toSeconds());
+    }
+
+    // Fixed number of bucket summaries, reused round-robin as time moves on
+    private static final class Ring {
+
+        private final int capacity;
+        private final SpaceSaving[] summaries;
+        // Bucket number each slot holds
+        private final long[] buckets;
+
+        private Ring(int size, int capacity) {
+            this.capacity = capacity;
+            this.summaries = new SpaceSaving[size];
+            this.buckets = new long[size];
+            Arrays.fill(buckets, Long.MIN_VALUE);
+        }
+
+        private synchronized void add(long bucket, long productId, long units) {
+            int slot = Math.floorMod(bucket, summaries.length);
+            if (buckets[slot] != bucket) {
+                // Units of a bucket that has already left the ring are dropped
+                if (bucket < buckets[slot]) {
+                    return;
+                }
+                summaries[slot] = new SpaceSaving(capacity);
+                buckets[slot] = bucket;
+            }
+            summaries[slot].add(productId, units);
+        }
+
+        // Merge the buckets of the window ending at the current bucket. A product missing from a full
+        // bucket may still have sold up to that bucket's smallest count there, which adds to its error.
+        private synchronized List<SpaceSaving.Entry> top(long current, int limit) {
+            Map<Long, long[]> merged = new HashMap<>();
+            long missingBound = 0;
+            for (int slot = 0; slot < summaries.length; slot++) {
+                if (summaries[slot] == null || buckets[slot] <= current - summaries.length || buckets[slot] > current) {
+                    continue;
+                }
+                long minCount = summaries[slot].minCount();
+                missingBound += minCount;
+                for (SpaceSaving.Entry entry : summaries[slot].entries()) {
+                    long[] totals = merged.computeIfAbsent(entry.key(), key -> new long[3]);
+                    totals[0] += entry.count();
+                    totals[1] += entry.error();
+                    totals[2] += minCount;
+                }
+            }
+
+            long bound = missingBound;
+            return merged.entrySet().stream()
+                    .map(entry -> new SpaceSaving.Entry(entry.getKey(), entry.getValue()[0],
+                            entry.getValue()[1] + bound - entry.getValue()[2]))
+                    .sorted(Comparator.comparingLong(SpaceSaving.Entry::count).reversed()
+                            .thenComparingLong(SpaceSaving.Entry::key))
+                    .limit(limit)
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package iprwc_backend.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+// Strong ETags for catalog reads, derived from the catalog cache snapshot that serves them. A tag moves
+// exactly when that snapshot is replaced: on product writes, on periodic reloads and, for stock, when the
+// checkouts of the last stock-refresh-interval are folded in, the same moment the stock shown changes.
+// While reads go to the database there is no tag. The boot prefix keeps tags from colliding across restarts.
+@Component
+@RequiredArgsConstructor
+public class CatalogVersion {
+
+    private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+    private final ProductCatalogCache catalogCache;
+
+    // Null while no snapshot is served. Callers take the tag before reading, so a concurrent refresh can
+    // only make it older than the data
+    public Tag current() {
+        ProductCatalogCache.Snapshot snapshot = catalogCache.peek();
+        if (snapshot == null) {
+            return null;
+        }
+        return new Tag("\"" + bootId + "-" + snapshot.getVersion() + "\"", snapshot.getLastModified());
+    }
+
+    public record Tag(String etag, long lastModified) {
+    }
+}
@@ -0,0 +1,208 @@
+package iprwc_backend.service;
+
+import iprwc_backend.dto.DashboardStats;
+import iprwc_backend.dto.response.OrderResponse;
+import iprwc_backend.entity.OrderStatus;
+import iprwc_backend.event.OrderChangedEvent;
+import iprwc_backend.event.ProductChangedEvent;
+import iprwc_backend.event.UserChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Map;
+
+// Dashboard totals kept in memory: seeded from one grouped query on first use, then moved by the
+// order, product and user events of each commit, so reading them costs no query. A periodic
+// reconciliation against the database corrects anything an event could not account for (writes
+// made outside the application, or a commit racing the seed). Archived orders count through
+// order_archive_totals, so archiving moves no totals. Assumes a single application instance.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DashboardCounters {
+
+    // Live orders per status, archived orders per status, and the product and user counts, in one round trip
+    private static final String TOTALS_SQL =
+            "SELECT 'orders', status, COUNT(*), COALESCE(SUM(total_amount), 0) FROM orders GROUP BY status " +
+            "UNION ALL SELECT 'orders', status, order_count, revenue FROM order_archive_totals " +
+            "UNION ALL SELECT 'products', NULL, COUNT(*), NULL FROM products " +
+            "UNION ALL SELECT 'users', NULL, COUNT(*), NULL FROM users";
+
+    // A reconciliation that raced an event is retried at the next run; after this many it is applied anyway
+    private static final int MAX_SKIPPED_RECONCILIATIONS = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Guarded by this
+    private Totals totals;
+    private long changes;
+    private int skippedReconciliations;
+
+    // Current totals; only the first call queries the database
+    public DashboardStats getStats() {
+        synchronized (this) {
+            if (totals != null) {
+                return totals.toStats();
+            }
+        }
+        reconcile();
+        synchronized (this) {
+            return totals.toStats();
+        }
+    }
+
+    // Replace the counters with the database totals. Skipped while nothing has read them yet, and when an
+    // event was applied during the query, since the query may or may not have seen that commit.
+    @Scheduled(fixedDelayString = "${dashboard.stats.reconcile-interval:PT5M}")
+    public void reconcileIfSeeded() {
+        synchronized (this) {
+            if (totals == null) {
+                return;
+            }
+        }
+        reconcile();
+    }
+
+    void reconcile() {
+        long seen;
+        synchronized (this) {
+            seen = changes;
+        }
+        Totals loaded = load();
+        synchronized (this) {
+            if (totals != null && changes != seen && ++skippedReconciliations < MAX_SKIPPED_RECONCILIATIONS) {
+                log.debug("Dashboard reconciliation raced {} changes, retrying at the next run", changes - seen);
+                return;
+            }
+            if (totals != null && changes == seen && !totals.equals(loaded)) {
+                log.warn("Dashboard counters drifted from the database: {} in memory, {} stored", totals, loaded);
+            }
+            totals = loaded;
+            skippedReconciliations = 0;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        synchronized (this) {
+            if (totals == null) {
+                return;
+            }
+            changes++;
+            if (event.getType() == OrderChangedEvent.ChangeType.CREATED) {
+                for (OrderResponse order : event.getOrders()) {
+                    totals.add(order.getStatus(), 1);
+                    totals.revenue = totals.revenue.add(order.getTotalAmount());
+                }
+            } else {
+                for (OrderStatus previous : event.getPreviousStatuses().values()) {
+                    totals.add(previous, -1);
+                    totals.add(event.getStatus(), 1);
+                }
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        switch (event.getType()) {
+            case CREATED -> addProducts(1);
+            case DELETED -> addProducts(-1);
+            // A bulk import does not say how many products it added
+            case RELOADED -> reconcileIfSeeded();
+            default -> {
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        synchronized (this) {
+            if (totals == null) {
+                return;
+            }
+            changes++;
+            totals.users += event.getType() == UserChangedEvent.ChangeType.CREATED ? 1 : -1;
+        }
+    }
+
+    private synchronized void addProducts(int delta) {
+        if (totals == null) {
+            return;
+        }
+        changes++;
+        totals.products += delta;
+    }
+
+    private Totals load() {
+        Totals loaded = new Totals();
+        jdbcTemplate.query(TOTALS_SQL, rs -> {
+            switch (rs.getString(1)) {
+                case "products" -> loaded.products = rs.getLong(3);
+                case "users" -> loaded.users = rs.getLong(3);
+                default -> {
+                    loaded.add(OrderStatus.valueOf(rs.getString(2)), rs.getLong(3));
+                    loaded.revenue = loaded.revenue.add(rs.getBigDecimal(4));
+                }
+            }
+        });
+        return loaded;
+    }
+
+    private static final class Totals {
+
+        private long products;
+        private long users;
+        private final Map<OrderStatus, Long> orders = new EnumMap<>(OrderStatus.class);
+        private BigDecimal revenue = BigDecimal.ZERO;
+
+        private void add(OrderStatus status, long count) {
+            orders.merge(status, count, Long::sum);
+        }
+
+        private long count(OrderStatus status) {
+            return orders.getOrDefault(status, 0L);
+        }
+
+        private DashboardStats toStats() {
+            return new DashboardStats(
+                    products,
+                    orders.values().stream().mapToLong(Long::longValue).sum(),
+                    users,
+                    count(OrderStatus.PENDING),
+                    count(OrderStatus.PROCESSING),
+                    count(OrderStatus.SHIPPED),
+                    count(OrderStatus.DELIVERED),
+                    revenue
+            );
+        }
+
+        // Compared by value; revenue by numeric value since the scales of the two sources differ
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Totals that)) {
+                return false;
+            }
+            return products == that.products && users == that.users
+                    && orders.entrySet().stream().allMatch(entry -> that.count(entry.getKey()) == entry.getValue())
+                    && that.orders.entrySet().stream().allMatch(entry -> count(entry.getKey()) == entry.getValue())
+                    && revenue.compareTo(that.revenue) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(products) * 31 + Long.hashCode(users);
+        }
+
+        @Override
+        public String toString() {
+            return "products=" + products + ", users=" + users + ", orders=" + orders + ", revenue=" + revenue;
+        }
+    }
+}
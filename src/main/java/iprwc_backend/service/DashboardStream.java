@@ -0,0 +1,178 @@
+package iprwc_backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import iprwc_backend.dto.DashboardStats;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Live dashboard over Server-Sent Events. A subscriber first gets the current totals as a "stats" event,
+// then a "delta" event holding only the fields that changed whenever DashboardCounters moves. Each tick
+// reads the in-memory counters once and hands the same frame to every subscriber, so a burst of changes
+// becomes one frame and subscribers cost no queries. Streams use async servlet support and hold no thread
+// while idle; frames are written on virtual threads, in order per subscriber, so a slow client holds up
+// nobody else. Heartbeat comments keep proxies from closing quiet streams and find clients that left.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DashboardStream {
+
+    // A subscriber this far behind is dropped; its EventSource reconnects and starts from a fresh snapshot
+    private static final int MAX_QUEUED_FRAMES = 64;
+
+    private static final Set<DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("heartbeat").build();
+
+    private final DashboardCounters dashboardCounters;
+    private final ObjectMapper objectMapper;
+
+    @Value("${dashboard.stream.timeout:PT30M}")
+    private Duration timeout;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Totals the last delta was taken against, guarded by this
+    private DashboardStats last;
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> drop(subscriber));
+        emitter.onError(error -> drop(subscriber));
+
+        DashboardStats stats = dashboardCounters.getStats();
+        synchronized (this) {
+            // Without subscribers no tick has kept last current
+            if (last == null || subscribers.isEmpty()) {
+                last = stats;
+            }
+            // The snapshot is what the next delta is taken against, so no change falls in between
+            enqueue(subscriber, frame("stats", last));
+            subscribers.add(subscriber);
+        }
+        return emitter;
+    }
+
+    // Send what changed since the last tick, if anything
+    @Scheduled(fixedDelayString = "${dashboard.stream.tick-interval:PT1S}")
+    public void tick() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        DashboardStats stats = dashboardCounters.getStats();
+        synchronized (this) {
+            DashboardStats delta = delta(last, stats);
+            if (delta == null) {
+                return;
+            }
+            last = stats;
+            Set<DataWithMediaType> frame = frame("delta", delta);
+            subscribers.forEach(subscriber -> enqueue(subscriber, frame));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${dashboard.stream.heartbeat-interval:PT15S}")
+    public void heartbeat() {
+        subscribers.forEach(subscriber -> enqueue(subscriber, HEARTBEAT));
+    }
+
+    @PreDestroy
+    public void close() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        senders.shutdown();
+    }
+
+    // Changed fields of to, the others null; null when nothing changed
+    static DashboardStats delta(DashboardStats from, DashboardStats to) {
+        DashboardStats delta = new DashboardStats(
+                changed(from.getTotalProducts(), to.getTotalProducts()),
+                changed(from.getTotalOrders(), to.getTotalOrders()),
+                changed(from.getTotalUsers(), to.getTotalUsers()),
+                changed(from.getPendingOrders(), to.getPendingOrders()),
+                changed(from.getProcessingOrders(), to.getProcessingOrders()),
+                changed(from.getShippedOrders(), to.getShippedOrders()),
+                changed(from.getDeliveredOrders(), to.getDeliveredOrders()),
+                // Compared by value, the scale depends on where the total came from
+                from.getTotalRevenue().compareTo(to.getTotalRevenue()) == 0 ? null : to.getTotalRevenue());
+        return delta.equals(new DashboardStats()) ? null : delta;
+    }
+
+    private static Long changed(Long from, Long to) {
+        return Objects.equals(from, to) ? null : to;
+    }
+
+    // Serialized once per tick and shared by all subscribers
+    private Set<DataWithMediaType> frame(String name, DashboardStats stats) {
+        try {
+            return SseEmitter.event().name(name).data(objectMapper.writeValueAsString(stats)).build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize dashboard stats", e);
+        }
+    }
+
+    private void enqueue(Subscriber subscriber, Set<DataWithMediaType> frame) {
+        if (subscriber.frames.size() >= MAX_QUEUED_FRAMES) {
+            log.debug("Dropping a dashboard subscriber {} frames behind", MAX_QUEUED_FRAMES);
+            drop(subscriber);
+            subscriber.emitter.complete();
+            return;
+        }
+        subscriber.frames.add(frame);
+        if (subscriber.sending.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    // Writes queued frames until none are left; at most one drain runs per subscriber
+    private void drain(Subscriber subscriber) {
+        do {
+            Set<DataWithMediaType> frame;
+            // Nothing is written once the container has begun closing the stream
+            while (!subscriber.closed && (frame = subscriber.frames.poll()) != null) {
+                try {
+                    subscriber.emitter.send(frame);
+                } catch (IOException | IllegalStateException e) {
+                    // The client went away or the stream already ended
+                    drop(subscriber);
+                    return;
+                }
+            }
+            subscriber.sending.set(false);
+        } while (!subscriber.closed && !subscriber.frames.isEmpty() && subscriber.sending.compareAndSet(false, true));
+    }
+
+    private void drop(Subscriber subscriber) {
+        subscriber.closed = true;
+        subscribers.remove(subscriber);
+        subscriber.frames.clear();
+    }
+
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Queue<Set<DataWithMediaType>> frames = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package iprwc_backend.service;
+
+import iprwc_backend.dto.response.DistinctCountsResponse;
+import iprwc_backend.dto.response.DistinctCountsSummaryResponse;
+import iprwc_backend.dto.response.OrderItemResponse;
+import iprwc_backend.dto.response.OrderResponse;
+import iprwc_backend.event.OrderChangedEvent;
+import iprwc_backend.repository.OrderRepository;
+import iprwc_backend.util.HyperLogLog;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Unique buyers and unique products sold per day as HyperLogLog sketches in order_distinct_sketches, so a
+// distinct count over any range of days merges one small row per day instead of running COUNT(DISTINCT ...)
+// over order history. Created orders are added in memory after commit and written out every flush-interval;
+// adding and merging are idempotent, so the replay of the last stored days at startup recovers whatever a
+// crash kept from being written without counting anything twice. Orders count from creation on, also once
+// cancelled. Assumes a single application instance.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DistinctCounts {
+
+    public enum Metric {
+        BUYERS,
+        PRODUCTS
+    }
+
+    private static final String SELECT_RANGE_SQL =
+            "SELECT metric, registers FROM order_distinct_sketches WHERE day >= ? AND day < ?";
+
+    private static final String SELECT_FOR_UPDATE_SQL =
+            "SELECT registers FROM order_distinct_sketches WHERE metric = ? AND day = ? FOR UPDATE";
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO order_distinct_sketches (metric, day, registers) VALUES (?, ?, ?) " +
+            "ON CONFLICT (metric, day) DO UPDATE SET registers = EXCLUDED.registers";
+
+    private static final String LAST_DAY_SQL = "SELECT MAX(day) FROM order_distinct_sketches";
+
+    // Buyers and products per day of a created_at range, live and archived orders; duplicates are left to the sketches
+    private static final String HISTORY_SQL =
+            "SELECT 'BUYERS', CAST(created_at AS date), user_id FROM orders " +
+            "WHERE created_at >= ? AND created_at < ? " +
+            "UNION ALL SELECT 'BUYERS', CAST(created_at AS date), user_id FROM orders_archive " +
+            "WHERE created_at >= ? AND created_at < ? " +
+            "UNION ALL SELECT 'PRODUCTS', CAST(o.created_at AS date), i.product_id " +
+            "FROM orders o JOIN order_items i ON i.order_id = o.id WHERE o.created_at >= ? AND o.created_at < ? " +
+            "UNION ALL SELECT 'PRODUCTS', CAST(order_created_at AS date), product_id FROM order_items_archive " +
+            "WHERE order_created_at >= ? AND order_created_at < ?";
+
+    private static final int FETCH_SIZE = 5_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${orders.distinct.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    // Sketches not yet written, guarded by this; an entry stays until a flush has written its latest version
+    private final Map<Key, Pending> pending = new HashMap<>();
+    private long changes;
+
+    // Serializes writers, so a day's read-merge-write never races another one
+    private final Object flushLock = new Object();
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        if (event.getType() != OrderChangedEvent.ChangeType.CREATED) {
+            return;
+        }
+        synchronized (this) {
+            for (OrderResponse order : event.getOrders()) {
+                LocalDate day = (order.getCreatedAt() != null ? order.getCreatedAt() : LocalDateTime.now()).toLocalDate();
+                add(Metric.BUYERS, day, order.getUser() != null ? order.getUser().getId() : order.getUserId());
+                if (order.getItems() != null) {
+                    for (OrderItemResponse item : order.getItems()) {
+                        add(Metric.PRODUCTS, day, item.getProduct().getId());
+                    }
+                }
+            }
+        }
+    }
+
+    // Distinct counts over days from (inclusive) to (exclusive)
+    public DistinctCountsResponse getDistinctCounts(LocalDate from, LocalDate to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        Map<Metric, HyperLogLog> merged = new EnumMap<>(Metric.class);
+        for (Metric metric : Metric.values()) {
+            merged.put(metric, new HyperLogLog());
+        }
+        jdbcTemplate.query(SELECT_RANGE_SQL, (ResultSet rs) -> {
+            merged.get(Metric.valueOf(rs.getString(1))).merge(HyperLogLog.fromBytes(rs.getBytes(2)));
+        }, Date.valueOf(from), Date.valueOf(to));
+        synchronized (this) {
+            pending.forEach((key, sketch) -> {
+                if (!key.day().isBefore(from) && key.day().isBefore(to)) {
+                    merged.get(key.metric()).merge(sketch.sketch);
+                }
+            });
+        }
+        return new DistinctCountsResponse(from, to, merged.get(Metric.BUYERS).estimate(),
+                merged.get(Metric.PRODUCTS).estimate(), HyperLogLog.relativeError());
+    }
+
+    // Distinct counts of today, this week and this month
+    public DistinctCountsSummaryResponse getCurrentDistinctCounts() {
+        LocalDate today = LocalDate.now();
+        LocalDate monday = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        LocalDate firstOfMonth = today.withDayOfMonth(1);
+        return new DistinctCountsSummaryResponse(
+                getDistinctCounts(today, today.plusDays(1)),
+                getDistinctCounts(monday, monday.plusWeeks(1)),
+                getDistinctCounts(firstOfMonth, firstOfMonth.plusMonths(1)));
+    }
+
+    // Write the sketches changed since the last flush, merged into the stored ones, in one transaction
+    @Scheduled(fixedDelayString = "${orders.distinct.flush-interval:PT1M}")
+    public void flush() {
+        synchronized (flushLock) {
+            Map<Key, Pending> written = new HashMap<>();
+            synchronized (this) {
+                pending.forEach((key, sketch) -> written.put(key, new Pending(sketch.sketch.copy(), sketch.version)));
+            }
+            if (written.isEmpty()) {
+                return;
+            }
+            transactionTemplate.executeWithoutResult(status -> written.forEach(this::write));
+            synchronized (this) {
+                written.forEach((key, sketch) -> {
+                    Pending current = pending.get(key);
+                    if (current != null && current.version == sketch.version) {
+                        pending.remove(key);
+                    }
+                });
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    // Add the orders created on days from (inclusive) to (exclusive) to the sketches, one month at a time;
+    // returns the number of rows read
+    public long backfill(LocalDate from, LocalDate to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        long started = System.nanoTime();
+        long rows = 0;
+        for (LocalDate start = from; start.isBefore(to); ) {
+            LocalDate monthEnd = start.withDayOfMonth(1).plusMonths(1);
+            LocalDate end = monthEnd.isBefore(to) ? monthEnd : to;
+            rows += readHistory(start, end);
+            flush();
+            start = end;
+        }
+        log.info("Added {} order rows from {} to {} to the distinct count sketches in {} ms",
+                rows, from, to, (System.nanoTime() - started) / 1_000_000);
+        return rows;
+    }
+
+    // Add all order history to the sketches
+    public long backfillAll() {
+        LocalDateTime first = orderRepository.findFirstHistoryCreatedAt();
+        if (first == null) {
+            return 0;
+        }
+        return backfill(first.toLocalDate(), lastDay());
+    }
+
+    // The first start fills the sketches from history; later starts replay the days since the last
+    // stored one, which holds whatever an unclean shutdown kept from being flushed
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (!backfillOnStartup) {
+            return;
+        }
+        Thread.ofVirtual().name("distinct-count-backfill").start(() -> {
+            try {
+                LocalDate lastStored = jdbcTemplate.queryForObject(LAST_DAY_SQL, LocalDate.class);
+                if (lastStored == null) {
+                    backfillAll();
+                } else {
+                    backfill(lastStored.minusDays(1), lastDay());
+                }
+            } catch (RuntimeException e) {
+                log.error("Distinct count backfill failed", e);
+            }
+        });
+    }
+
+    // Day after the newest order or today, whichever is later
+    private LocalDate lastDay() {
+        LocalDateTime last = orderRepository.findLastHistoryCreatedAt();
+        LocalDate today = LocalDate.now();
+        return (last != null && last.toLocalDate().isAfter(today) ? last.toLocalDate() : today).plusDays(1);
+    }
+
+    // Streams the rows of the range into the pending sketches; the transaction keeps the cursor open
+    private long readHistory(LocalDate from, LocalDate to) {
+        Timestamp start = Timestamp.valueOf(from.atStartOfDay());
+        Timestamp end = Timestamp.valueOf(to.atStartOfDay());
+        long[] rows = new long[1];
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(HISTORY_SQL);
+            ps.setFetchSize(FETCH_SIZE);
+            for (int i = 0; i < 4; i++) {
+                ps.setTimestamp(2 * i + 1, start);
+                ps.setTimestamp(2 * i + 2, end);
+            }
+            return ps;
+        }, (ResultSet rs) -> {
+            Metric metric = Metric.valueOf(rs.getString(1));
+            LocalDate day = rs.getObject(2, LocalDate.class);
+            long value = rs.getLong(3);
+            synchronized (this) {
+                add(metric, day, value);
+            }
+            rows[0]++;
+        }));
+        return rows[0];
+    }
+
+    // Callers hold this
+    private void add(Metric metric, LocalDate day, long value) {
+        Pending sketch = pending.computeIfAbsent(new Key(metric, day), key -> new Pending(new HyperLogLog(), 0));
+        sketch.sketch.add(value);
+        sketch.version = ++changes;
+    }
+
+    private void write(Key key, Pending sketch) {
+        HyperLogLog merged = sketch.sketch;
+        List<byte[]> stored = jdbcTemplate.query(SELECT_FOR_UPDATE_SQL, (rs, rowNum) -> rs.getBytes(1),
+                key.metric().name(), Date.valueOf(key.day()));
+        if (!stored.isEmpty()) {
+            merged.merge(HyperLogLog.fromBytes(stored.get(0)));
+        }
+        jdbcTemplate.update(UPSERT_SQL, key.metric().name(), Date.valueOf(key.day()), merged.toBytes());
+    }
+
+    private record Key(Metric metric, LocalDate day) {
+    }
+
+    private static final class Pending {
+
+        private final HyperLogLog sketch;
+        private long version;
+
+        private Pending(HyperLogLog sketch, long version) {
+            this.sketch = sketch;
+            this.version = version;
+        }
+    }
+}
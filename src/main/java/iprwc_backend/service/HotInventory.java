@@ -0,0 +1,334 @@
+package iprwc_backend.service;
+
+import iprwc_backend.dto.response.HotInventoryResponse;
+import iprwc_backend.entity.HotInventoryEntry;
+import iprwc_backend.entity.Product;
+import iprwc_backend.event.ProductChangedEvent;
+import iprwc_backend.exception.ResourceNotFoundException;
+import iprwc_backend.repository.HotInventoryRepository;
+import iprwc_backend.repository.OrderItemRepository;
+import iprwc_backend.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.Collectors;
+
+// Flash-sale mode for flagged products: checkouts reserve stock with a CAS on an in-memory counter
+// instead of queueing on the products row lock, and committed sales are written back in coalesced batches.
+// The hot_inventory ledger tracks what was written back, so a restart recovers unflushed sales from order_items.
+// Assumes a single application instance owns the hot products.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HotInventory implements SmartInitializingSingleton {
+
+    private static final int STRIPES = 64;
+    // Bounded waits: a checkout gives up rather than queueing behind a mode switch indefinitely
+    private static final long RESERVE_LOCK_TIMEOUT_MS = 2_000;
+    private static final long SWITCH_LOCK_TIMEOUT_MS = 10_000;
+
+    private final ProductRepository productRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final HotInventoryRepository hotInventoryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+    // Checkouts hold the read lock of their products' stripes until their transaction completes and mode
+    // switches take the write lock, so a product never changes mode while an order for it is in flight
+    private final StampedLock[] stripes = new StampedLock[STRIPES];
+
+    {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new StampedLock();
+        }
+    }
+
+    // Reserve the hot products of an order in memory and return the quantities that still need the
+    // database. Must run inside the order transaction: the reservation is confirmed when it commits
+    // and handed back when it rolls back.
+    public Reservation reserve(SortedMap<Long, Integer> quantities) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Stock can only be reserved inside a transaction");
+        }
+
+        ReservationSync sync = lockStripes(quantities.keySet());
+        SortedMap<Long, Integer> databaseQuantities = new TreeMap<>();
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            Counter counter = counters.get(entry.getKey());
+            if (counter == null) {
+                databaseQuantities.put(entry.getKey(), entry.getValue());
+            } else if (counter.tryTake(entry.getValue())) {
+                sync.taken.put(counter, entry.getValue());
+            } else {
+                sync.release();
+                return new Reservation(databaseQuantities, entry.getKey(), sync::release);
+            }
+        }
+        return new Reservation(databaseQuantities, null, sync::release);
+    }
+
+    // The hot products among the given ones, kept in their mode until the current transaction completes,
+    // for writes that must leave in-memory stock alone
+    public Set<Long> lockModes(Collection<Long> productIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Modes can only be locked inside a transaction");
+        }
+        lockStripes(productIds);
+        return productIds.stream().filter(counters::containsKey).collect(Collectors.toSet());
+    }
+
+    public boolean isHot(Long productId) {
+        return counters.containsKey(productId);
+    }
+
+    // Move a product's stock into memory. Takes the product row lock so every committed order is counted.
+    public HotInventoryResponse enable(Long productId) {
+        int stripe = stripeOf(productId);
+        long stamp = writeLock(stripe);
+        try {
+            Counter existing = counters.get(productId);
+            if (existing != null) {
+                return existing.toResponse();
+            }
+            Integer stock = transactionTemplate.execute(status -> {
+                Product product = productRepository.findWithLockById(productId)
+                        .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
+                long sold = orderItemRepository.sumQuantityByProductId(productId);
+                hotInventoryRepository.save(new HotInventoryEntry(productId, sold, 0L, null));
+                return product.getStock();
+            });
+            Counter counter = new Counter(productId, stock);
+            counters.put(productId, counter);
+            log.info("Enabled hot inventory for product {} with {} in stock", productId, stock);
+            return counter.toResponse();
+        } finally {
+            stripes[stripe].unlockWrite(stamp);
+        }
+    }
+
+    // Write back everything sold and return the product to database-checked stock
+    public void disable(Long productId) {
+        int stripe = stripeOf(productId);
+        long stamp = writeLock(stripe);
+        try {
+            synchronized (this) {
+                if (!counters.containsKey(productId)) {
+                    return;
+                }
+                if (!flushPending()) {
+                    throw new RuntimeException("Could not write back stock of product " + productId + ", try again");
+                }
+                counters.remove(productId);
+                hotInventoryRepository.deleteById(productId);
+            }
+            log.info("Disabled hot inventory for product {}", productId);
+        } finally {
+            stripes[stripe].unlockWrite(stamp);
+        }
+    }
+
+    public List<HotInventoryResponse> getStatus() {
+        return counters.values().stream()
+                .map(Counter::toResponse)
+                .sorted(Comparator.comparing(HotInventoryResponse::getProductId))
+                .toList();
+    }
+
+    // Write committed sales back to products.stock, one batch and one commit for all hot products
+    @Scheduled(fixedDelayString = "${catalog.hot-inventory.flush-interval-ms:50}")
+    public synchronized void flush() {
+        flushPending();
+    }
+
+    // Load the ledger and subtract sales that were committed but never written back before a restart
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (HotInventoryEntry entry : hotInventoryRepository.findAll()) {
+            Long productId = entry.getProductId();
+            Integer stock = transactionTemplate.execute(status -> {
+                Product product = productRepository.findWithLockById(productId).orElse(null);
+                if (product == null) {
+                    return null;
+                }
+                long sold = orderItemRepository.sumQuantityByProductId(productId) - entry.getBaseSold();
+                long unflushed = sold - entry.getFlushedUnits();
+                if (unflushed != 0) {
+                    productRepository.batchSubtractStock(Map.of(productId, unflushed));
+                    hotInventoryRepository.addFlushedUnits(productId, unflushed);
+                    log.info("Recovered {} unflushed units of hot product {}", unflushed, productId);
+                }
+                return Math.toIntExact(product.getStock() - unflushed);
+            });
+            if (stock != null) {
+                counters.put(productId, new Counter(productId, stock));
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        // The ledger row goes with the product through ON DELETE CASCADE
+        if (event.getType() == ProductChangedEvent.ChangeType.DELETED) {
+            counters.remove(event.getProductId());
+        }
+    }
+
+    private boolean flushPending() {
+        SortedMap<Long, Long> units = new TreeMap<>();
+        for (Counter counter : counters.values()) {
+            long pending = counter.unflushed.getAndSet(0);
+            if (pending > 0) {
+                units.put(counter.productId, pending);
+            }
+        }
+        if (units.isEmpty()) {
+            return true;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                productRepository.batchSubtractStock(units);
+                units.forEach(hotInventoryRepository::addFlushedUnits);
+            });
+        } catch (RuntimeException e) {
+            // Nothing was written; the units go back and the next flush retries them
+            units.forEach((productId, pending) -> {
+                Counter counter = counters.get(productId);
+                if (counter != null) {
+                    counter.unflushed.addAndGet(pending);
+                }
+            });
+            log.warn("Failed to flush hot inventory, will retry", e);
+            return false;
+        }
+
+        units.forEach((productId, pending) ->
+                eventPublisher.publishEvent(ProductChangedEvent.stock(productId, -Math.toIntExact(pending))));
+        return true;
+    }
+
+    // Read-lock the stripes of the products, in stripe order, until the current transaction completes
+    private ReservationSync lockStripes(Collection<Long> productIds) {
+        ReservationSync sync = new ReservationSync();
+        TransactionSynchronizationManager.registerSynchronization(sync);
+        for (int stripe : new TreeSet<>(productIds.stream().map(HotInventory::stripeOf).toList())) {
+            long stamp = readLock(stripe);
+            sync.stamps.add(new long[]{stripe, stamp});
+        }
+        return sync;
+    }
+
+    private long readLock(int stripe) {
+        try {
+            long stamp = stripes[stripe].tryReadLock(RESERVE_LOCK_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            if (stamp == 0) {
+                throw new RuntimeException("Checkout is busy, please try again");
+            }
+            return stamp;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Checkout was interrupted");
+        }
+    }
+
+    private long writeLock(int stripe) {
+        try {
+            long stamp = stripes[stripe].tryWriteLock(SWITCH_LOCK_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            if (stamp == 0) {
+                throw new RuntimeException("Orders in flight did not finish, try again");
+            }
+            return stamp;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for orders in flight");
+        }
+    }
+
+    private static int stripeOf(Long productId) {
+        return (int) Math.floorMod(productId, (long) STRIPES);
+    }
+
+    // Quantities the database still has to reserve, or the product that ran out
+    public record Reservation(SortedMap<Long, Integer> databaseQuantities, Long shortProductId, Runnable release) {
+
+        // Give the in-memory part back now, for an order that fails while its transaction carries on
+        public void cancel() {
+            release.run();
+        }
+    }
+
+    private static final class Counter {
+
+        private final Long productId;
+        private final AtomicLong available;
+        private final AtomicLong unflushed = new AtomicLong();
+
+        private Counter(Long productId, long available) {
+            this.productId = productId;
+            this.available = new AtomicLong(available);
+        }
+
+        private boolean tryTake(int quantity) {
+            while (true) {
+                long current = available.get();
+                if (current < quantity) {
+                    return false;
+                }
+                if (available.compareAndSet(current, current - quantity)) {
+                    return true;
+                }
+            }
+        }
+
+        private HotInventoryResponse toResponse() {
+            return new HotInventoryResponse(productId, available.get(), unflushed.get());
+        }
+    }
+
+    // Confirms or hands back the in-memory reservation of one order and releases its stripe locks
+    private final class ReservationSync implements TransactionSynchronization {
+
+        private final List<long[]> stamps = new ArrayList<>();
+        private final Map<Counter, Integer> taken = new ConcurrentHashMap<>();
+
+        // Give back what was taken so far, as soon as the order is known to fail
+        private void release() {
+            taken.forEach((counter, quantity) -> counter.available.addAndGet(quantity));
+            taken.clear();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status == STATUS_COMMITTED) {
+                taken.forEach((counter, quantity) -> counter.unflushed.addAndGet(quantity));
+            } else {
+                release();
+            }
+            for (long[] stamp : stamps) {
+                stripes[(int) stamp[0]].unlockRead(stamp[1]);
+            }
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package iprwc_backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import iprwc_backend.dto.request.OrderRequest;
+import iprwc_backend.dto.response.OrderResponse;
+import iprwc_backend.entity.IdempotencyKey;
+import iprwc_backend.repository.IdempotencyKeyRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+// Entry point for checkout. Orders go through the group-commit pipeline when it is running, otherwise
+// through their own transaction. With an Idempotency-Key an order is created at most once per user and key:
+// concurrent duplicates wait for the first attempt instead of running again, and completed keys replay
+// the stored response from a bounded in-memory cache or the idempotency_keys table without touching
+// orders or products.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IdempotentOrderService {
+
+    private static final int MAX_KEY_LENGTH = 255;
+    // Starts the keys the server makes up itself; client keys may not hold control characters, so never collide
+    private static final char INTERNAL_KEY_PREFIX = '\u0001';
+    private static final long DUPLICATE_WAIT_SECONDS = 30;
+
+    private final OrderService orderService;
+    private final OrderIngestionPipeline ingestionPipeline;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${orders.idempotency.cache-size:10000}")
+    private int cacheSize;
+
+    @Value("${orders.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    // Least recently used completed keys; guarded by its own monitor
+    private final Map<String, Completed> completed = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Completed> eldest) {
+            return size() > cacheSize;
+        }
+    };
+
+    // Create the order, or return the order an earlier request with the same key created
+    public Result createOrder(Long userId, String key, OrderRequest request) {
+        if (key == null) {
+            return new Result(placeOrder(userId, request, null), false);
+        }
+        checkKey(key);
+        return createIdempotent(userId, key, request);
+    }
+
+    // Create the order under a key of the server's own, e.g. for an async submission sent without one
+    Result createOrderWithInternalKey(Long userId, String name, OrderRequest request) {
+        return createIdempotent(userId, INTERNAL_KEY_PREFIX + name, request);
+    }
+
+    // Reject an Idempotency-Key a client may not send
+    static void checkKey(String key) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        if (key.chars().anyMatch(Character::isISOControl)) {
+            throw new IllegalArgumentException("Idempotency-Key must not contain control characters");
+        }
+    }
+
+    private Result createIdempotent(Long userId, String key, OrderRequest request) {
+        String cacheKey = userId + ":" + key;
+        String requestHash = hash(request);
+        Result cached = lookupCompleted(cacheKey, requestHash);
+        if (cached != null) {
+            return cached;
+        }
+
+        InFlight attempt = new InFlight(requestHash, new CompletableFuture<>());
+        InFlight running = inFlight.putIfAbsent(cacheKey, attempt);
+        if (running != null) {
+            checkSameRequest(running.requestHash(), requestHash);
+            return new Result(await(running.result()), true);
+        }
+
+        try {
+            Result result = createOnce(userId, key, requestHash, request);
+            remember(cacheKey, requestHash, result.order());
+            attempt.result().complete(result.order());
+            return result;
+        } catch (RuntimeException e) {
+            // Waiting duplicates get the same error; nothing is stored, so a later retry runs again
+            attempt.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(cacheKey, attempt);
+        }
+    }
+
+    // Drop stored keys past the retention period
+    @Scheduled(fixedDelayString = "PT1H")
+    public void purgeExpiredKeys() {
+        LocalDateTime before = LocalDateTime.now().minusHours(ttlHours);
+        Integer deleted = transactionTemplate.execute(status -> idempotencyKeyRepository.deleteByCreatedAtBefore(before));
+        if (deleted != null && deleted > 0) {
+            log.info("Purged {} expired idempotency keys", deleted);
+        }
+    }
+
+    private Result createOnce(Long userId, String key, String requestHash, OrderRequest request) {
+        IdempotencyKey stored = idempotencyKeyRepository.findByUserIdAndIdempotencyKey(userId, key).orElse(null);
+        if (stored != null) {
+            return replay(stored, requestHash);
+        }
+
+        try {
+            // The key row commits with the order, so a stored key always means the order exists
+            OrderResponse order = placeOrder(userId, request, created -> idempotencyKeyRepository.save(
+                    new IdempotencyKey(null, userId, key, requestHash, created.getId(), toJson(created), null)));
+            return new Result(order, false);
+        } catch (DataIntegrityViolationException e) {
+            // Another instance committed the same key first; its order stands and this one was rolled back
+            return idempotencyKeyRepository.findByUserIdAndIdempotencyKey(userId, key)
+                    .map(winner -> replay(winner, requestHash))
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    // Create the order in a shared batch if possible, else on its own; inTransaction runs before either commits
+    private OrderResponse placeOrder(Long userId, OrderRequest request, Consumer<OrderResponse> inTransaction) {
+        Optional<OrderResponse> batched = ingestionPipeline.submit(userId, request, inTransaction);
+        if (batched.isPresent()) {
+            return batched.get();
+        }
+        return transactionTemplate.execute(status -> {
+            OrderResponse created = orderService.createOrder(userId, request);
+            if (inTransaction != null) {
+                inTransaction.accept(created);
+            }
+            return created;
+        });
+    }
+
+    private Result lookupCompleted(String cacheKey, String requestHash) {
+        Completed entry;
+        synchronized (completed) {
+            entry = completed.get(cacheKey);
+            if (entry != null && entry.expiresAt() < System.nanoTime()) {
+                completed.remove(cacheKey);
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            return null;
+        }
+        checkSameRequest(entry.requestHash(), requestHash);
+        return new Result(entry.order(), true);
+    }
+
+    private void remember(String cacheKey, String requestHash, OrderResponse order) {
+        long expiresAt = System.nanoTime() + TimeUnit.HOURS.toNanos(ttlHours);
+        synchronized (completed) {
+            completed.put(cacheKey, new Completed(requestHash, order, expiresAt));
+        }
+    }
+
+    private Result replay(IdempotencyKey stored, String requestHash) {
+        checkSameRequest(stored.getRequestHash(), requestHash);
+        try {
+            return new Result(objectMapper.readValue(stored.getResponse(), OrderResponse.class), true);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored response for idempotency key " + stored.getId() + " is unreadable", e);
+        }
+    }
+
+    private static OrderResponse await(CompletableFuture<OrderResponse> result) {
+        try {
+            return result.get(DUPLICATE_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new RuntimeException("A request with this Idempotency-Key is still being processed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the original request");
+        }
+    }
+
+    private static void checkSameRequest(String expectedHash, String requestHash) {
+        if (!expectedHash.equals(requestHash)) {
+            throw new RuntimeException("Idempotency-Key was already used for a different order");
+        }
+    }
+
+    private String hash(OrderRequest request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(toJson(request).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // The order, and whether it was created by an earlier request with the same key
+    public record Result(OrderResponse order, boolean replayed) {
+    }
+
+    private record InFlight(String requestHash, CompletableFuture<OrderResponse> result) {
+    }
+
+    private record Completed(String requestHash, OrderResponse order, long expiresAt) {
+    }
+}
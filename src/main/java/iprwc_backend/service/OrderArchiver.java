@@ -0,0 +1,58 @@
+package iprwc_backend.service;
+
+import iprwc_backend.repository.ArchivedOrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+// Moves DELIVERED and CANCELLED orders older than orders.archive.after-days into the monthly partitioned
+// archive tables, so orders and order_items only hold the working set. Each batch commits on its own
+// and locks only the rows it moves.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderArchiver {
+
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${orders.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${orders.archive.after-days:365}")
+    private long afterDays;
+
+    @Value("${orders.archive.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${orders.archive.max-batches-per-run:100}")
+    private int maxBatchesPerRun;
+
+    // Archive in bounded batches; whatever is left over waits for the next run
+    @Scheduled(cron = "${orders.archive.cron:0 30 3 * * *}")
+    public void archiveCompletedOrders() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime before = LocalDateTime.now().minusDays(afterDays);
+        long started = System.nanoTime();
+        int archived = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            Integer moved = transactionTemplate.execute(status ->
+                    archivedOrderRepository.archiveCompletedBefore(before, batchSize));
+            if (moved == null || moved == 0) {
+                break;
+            }
+            archived += moved;
+        }
+        if (archived > 0) {
+            log.info("Archived {} completed orders created before {} in {} ms",
+                    archived, before, (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+}
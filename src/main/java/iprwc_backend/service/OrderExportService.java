@@ -0,0 +1,165 @@
+package iprwc_backend.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import iprwc_backend.util.CsvWriter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+// Writes order lines of a created_at range as CSV or NDJSON straight from a forward-only JDBC cursor,
+// live and archived orders alike. Rows go from the result set to the response without entities or
+// intermediate objects, so heap use does not grow with the range.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderExportService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int FETCH_SIZE = 5_000;
+
+    private static final List<String> CSV_COLUMNS = List.of(
+            "order_id", "user_id", "product_id", "quantity", "price", "status", "created_at", "updated_at");
+
+    // The archive branch filters on both partition keys so only the partitions of the range are read
+    private static final String ORDER_LINES_SQL =
+            "SELECT o.id, o.user_id, i.product_id, i.quantity, i.price, o.status, o.created_at, o.updated_at " +
+            "FROM orders o JOIN order_items i ON i.order_id = o.id " +
+            "WHERE o.created_at >= ? AND o.created_at < ? " +
+            "UNION ALL " +
+            "SELECT o.id, o.user_id, i.product_id, i.quantity, i.price, o.status, o.created_at, o.updated_at " +
+            "FROM orders_archive o JOIN order_items_archive i ON i.order_id = o.id AND i.order_created_at = o.created_at " +
+            "WHERE o.created_at >= ? AND o.created_at < ? AND i.order_created_at >= ? AND i.order_created_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    // Export the lines of orders created from (inclusive) to (exclusive), in no particular order;
+    // returns the number of rows written. The transaction keeps the cursor open between fetches.
+    @Transactional(readOnly = true)
+    public long exportOrderLines(LocalDate from, LocalDate to, OutputStream output, ProductFileFormat format) throws IOException {
+        long started = System.nanoTime();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), BUFFER_SIZE);
+        LineHandler handler = format == ProductFileFormat.CSV ? new CsvLines(writer) : new NdjsonLines(writer);
+
+        Timestamp start = Timestamp.valueOf(from.atStartOfDay());
+        Timestamp end = Timestamp.valueOf(to.atStartOfDay());
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(
+                        ORDER_LINES_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(FETCH_SIZE);
+                for (int i = 0; i < 3; i++) {
+                    ps.setTimestamp(2 * i + 1, start);
+                    ps.setTimestamp(2 * i + 2, end);
+                }
+                return ps;
+            }, handler);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        handler.finish();
+        writer.flush();
+
+        log.info("Exported {} order lines from {} to {} as {} in {} ms",
+                handler.rows, from, to, format, (System.nanoTime() - started) / 1_000_000);
+        return handler.rows;
+    }
+
+    // Writes each row as it is fetched
+    private abstract static class LineHandler implements RowCallbackHandler {
+
+        private long rows;
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            try {
+                write(rs);
+            } catch (IOException e) {
+                // The client went away; unwound to exportOrderLines, which ends the query
+                throw new UncheckedIOException(e);
+            }
+            rows++;
+        }
+
+        abstract void write(ResultSet rs) throws SQLException, IOException;
+
+        void finish() throws IOException {
+        }
+    }
+
+    private static final class CsvLines extends LineHandler {
+
+        private final CsvWriter csv;
+        private final String[] fields = new String[CSV_COLUMNS.size()];
+        private final List<String> record = Arrays.asList(fields);
+
+        private CsvLines(Writer writer) throws IOException {
+            this.csv = new CsvWriter(writer);
+            csv.write(CSV_COLUMNS);
+        }
+
+        @Override
+        void write(ResultSet rs) throws SQLException, IOException {
+            fields[0] = rs.getString(1);
+            fields[1] = rs.getString(2);
+            fields[2] = rs.getString(3);
+            fields[3] = rs.getString(4);
+            fields[4] = rs.getBigDecimal(5).toPlainString();
+            fields[5] = rs.getString(6);
+            fields[6] = rs.getTimestamp(7).toLocalDateTime().toString();
+            fields[7] = rs.getTimestamp(8).toLocalDateTime().toString();
+            csv.write(record);
+        }
+    }
+
+    private final class NdjsonLines extends LineHandler {
+
+        private final JsonGenerator generator;
+
+        private NdjsonLines(Writer writer) throws IOException {
+            generator = objectMapper.getFactory().createGenerator(writer);
+            // The generator must not close the response stream or put spaces between root values
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        void write(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("orderId", rs.getLong(1));
+            generator.writeNumberField("userId", rs.getLong(2));
+            generator.writeNumberField("productId", rs.getLong(3));
+            generator.writeNumberField("quantity", rs.getInt(4));
+            generator.writeNumberField("price", rs.getBigDecimal(5));
+            generator.writeStringField("status", rs.getString(6));
+            generator.writeStringField("createdAt", rs.getTimestamp(7).toLocalDateTime().toString());
+            generator.writeStringField("updatedAt", rs.getTimestamp(8).toLocalDateTime().toString());
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        void finish() throws IOException {
+            generator.close();
+        }
+    }
+}
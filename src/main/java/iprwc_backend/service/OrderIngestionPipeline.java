@@ -0,0 +1,334 @@
+package iprwc_backend.service;
+
+import iprwc_backend.dto.request.OrderRequest;
+import iprwc_backend.dto.response.OrderResponse;
+import iprwc_backend.entity.Order;
+import iprwc_backend.entity.Product;
+import iprwc_backend.entity.User;
+import iprwc_backend.event.OrderChangedEvent;
+import iprwc_backend.event.ProductChangedEvent;
+import iprwc_backend.exception.ResourceNotFoundException;
+import iprwc_backend.repository.OrderRepository;
+import iprwc_backend.repository.ProductRepository;
+import iprwc_backend.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Group commit for checkouts: concurrent orders are queued and a single writer drains them in micro-batches
+// (orders.group-commit.max-batch orders or max-wait-micros). Each batch locks the stock it needs once, checks
+// every order against it in memory, writes all orders and items with batched inserts and commits once.
+// Every caller gets its own order or error; if the batch as a whole fails, callers fall back to their own transaction.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderIngestionPipeline implements SmartLifecycle {
+
+    private final UserRepository userRepository;
+    private final ProductRepository productRepository;
+    private final OrderRepository orderRepository;
+    private final HotInventory hotInventory;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${orders.group-commit.enabled:false}")
+    private boolean enabled;
+
+    @Value("${orders.group-commit.max-batch:64}")
+    private int maxBatch;
+
+    @Value("${orders.group-commit.max-wait-micros:2000}")
+    private long maxWaitMicros;
+
+    @Value("${orders.group-commit.queue-capacity:10000}")
+    private int queueCapacity;
+
+    private BlockingQueue<Submission> queue;
+    private volatile Thread writer;
+    private volatile boolean running;
+
+    // Create the order in the next batch. inTransaction runs inside the batch transaction once the order is
+    // written. Empty means the order did not go through a batch (pipeline off or full, or the batch failed)
+    // and the caller should create it in its own transaction.
+    public Optional<OrderResponse> submit(Long userId, OrderRequest request, Consumer<OrderResponse> inTransaction) {
+        if (!running) {
+            return Optional.empty();
+        }
+        Submission submission = new Submission(userId, request, inTransaction, new CompletableFuture<>());
+        if (!queue.offer(submission)) {
+            return Optional.empty();
+        }
+
+        while (true) {
+            try {
+                return submission.result().get(1, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                // Only possible to strand a submission if the writer stopped right after it was queued
+                Thread current = writer;
+                if ((current == null || !current.isAlive()) && queue.remove(submission)) {
+                    return Optional.empty();
+                }
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new IllegalStateException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for the order to be written");
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        writer = Thread.ofPlatform().name("order-group-commit").daemon().start(this::drain);
+    }
+
+    // Stops before the web server does; later checkouts take the single-transaction path
+    @Override
+    public void stop() {
+        running = false;
+        Thread current = writer;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Submission left;
+        while ((left = queue.poll()) != null) {
+            left.result().complete(Optional.empty());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void drain() {
+        List<Submission> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Submission first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - batch.size());
+                long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(maxWaitMicros);
+                while (batch.size() < maxBatch) {
+                    Submission next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (RuntimeException e) {
+                log.error("Order group commit failed", e);
+            } finally {
+                // No-op for submissions that already have their result
+                batch.forEach(submission -> submission.result().complete(Optional.empty()));
+                batch.clear();
+            }
+        }
+    }
+
+    // Write one batch in one transaction; results are handed out only once the transaction has committed
+    private void write(List<Submission> batch) {
+        List<Pending> pending;
+        try {
+            pending = transactionTemplate.execute(status -> writeBatch(batch));
+        } catch (RuntimeException e) {
+            log.warn("Group commit of {} orders failed, creating them one by one", batch.size(), e);
+            return;
+        }
+
+        for (Pending order : pending) {
+            if (order.error != null) {
+                order.submission.result().completeExceptionally(order.error);
+            } else {
+                order.submission.result().complete(Optional.of(order.response));
+            }
+        }
+        log.debug("Group committed {} orders", batch.size());
+    }
+
+    private List<Pending> writeBatch(List<Submission> batch) {
+        List<Pending> pending = new ArrayList<>(batch.size());
+        Set<Long> userIds = new HashSet<>();
+        Set<Long> productIds = new HashSet<>();
+        for (Submission submission : batch) {
+            Pending order = new Pending(submission, OrderService.quantitiesByProduct(submission.request()));
+            pending.add(order);
+            userIds.add(submission.userId());
+            productIds.addAll(order.quantities.keySet());
+        }
+
+        Map<Long, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        for (Pending order : pending) {
+            if (!users.containsKey(order.submission.userId())) {
+                order.error = new ResourceNotFoundException("User not found with id: " + order.submission.userId());
+                continue;
+            }
+            // Flash-sale products are taken in memory; the rest is checked against the locked rows below
+            try {
+                order.reservation = hotInventory.reserve(order.quantities);
+                if (order.reservation.shortProductId() != null) {
+                    order.shortProductId = order.reservation.shortProductId();
+                }
+            } catch (RuntimeException e) {
+                order.error = e;
+            }
+        }
+
+        // Lock the rows whose stock this batch checks, then load the remaining products without a lock
+        Set<Long> lockIds = new TreeSet<>();
+        for (Pending order : pending) {
+            if (order.isOpen()) {
+                lockIds.addAll(order.reservation.databaseQuantities().keySet());
+            }
+        }
+        Map<Long, Product> products = new HashMap<>();
+        Map<Long, Integer> remaining = new HashMap<>();
+        for (Product product : lockIds.isEmpty() ? List.<Product>of() : productRepository.findWithLockByIdInOrderByIdAsc(lockIds)) {
+            products.put(product.getId(), product);
+            remaining.put(product.getId(), product.getStock());
+        }
+        Set<Long> unlocked = new HashSet<>(productIds);
+        unlocked.removeAll(products.keySet());
+        productRepository.findAllById(unlocked).forEach(product -> products.put(product.getId(), product));
+
+        // Orders claim stock in arrival order; one that does not fit fails alone
+        LocalDateTime now = LocalDateTime.now();
+        SortedMap<Long, Long> decrements = new TreeMap<>();
+        List<Order> orders = new ArrayList<>();
+        for (Pending order : pending) {
+            if (order.error != null) {
+                continue;
+            }
+            Order built;
+            try {
+                built = OrderService.buildOrder(users.get(order.submission.userId()), order.submission.request(), products);
+            } catch (RuntimeException e) {
+                order.fail(e);
+                continue;
+            }
+            if (order.shortProductId == null) {
+                for (Map.Entry<Long, Integer> entry : order.reservation.databaseQuantities().entrySet()) {
+                    if (remaining.get(entry.getKey()) < entry.getValue()) {
+                        order.shortProductId = entry.getKey();
+                        break;
+                    }
+                }
+            }
+            if (order.shortProductId != null) {
+                order.fail(ProductService.insufficientStock(products.get(order.shortProductId).getName()));
+                continue;
+            }
+
+            order.reservation.databaseQuantities().forEach((id, quantity) -> {
+                remaining.merge(id, -quantity, Integer::sum);
+                decrements.merge(id, (long) quantity, Long::sum);
+            });
+            // Written with JDBC, so the timestamps Hibernate would fill in are set here
+            built.setCreatedAt(now);
+            built.setUpdatedAt(now);
+            order.order = built;
+            orders.add(built);
+        }
+
+        orderRepository.batchInsert(orders);
+        if (!decrements.isEmpty()) {
+            productRepository.batchSubtractStock(decrements);
+        }
+        List<OrderResponse> created = new ArrayList<>(orders.size());
+        for (Pending order : pending) {
+            if (order.order != null) {
+                order.response = OrderService.convertToResponse(order.order);
+                created.add(order.response);
+                if (order.submission.inTransaction() != null) {
+                    order.submission.inTransaction().accept(order.response);
+                }
+            }
+        }
+        // Listeners run after commit, like the stock events of a single order
+        decrements.forEach((id, quantity) ->
+                eventPublisher.publishEvent(ProductChangedEvent.stock(id, -Math.toIntExact(quantity))));
+        if (!created.isEmpty()) {
+            eventPublisher.publishEvent(OrderChangedEvent.created(created));
+        }
+        return pending;
+    }
+
+    private record Submission(Long userId, OrderRequest request, Consumer<OrderResponse> inTransaction,
+                              CompletableFuture<Optional<OrderResponse>> result) {
+    }
+
+    // One order's progress through a batch
+    private static final class Pending {
+
+        private final Submission submission;
+        private final SortedMap<Long, Integer> quantities;
+        private HotInventory.Reservation reservation;
+        private Long shortProductId;
+        private RuntimeException error;
+        private Order order;
+        private OrderResponse response;
+
+        private Pending(Submission submission, SortedMap<Long, Integer> quantities) {
+            this.submission = submission;
+            this.quantities = quantities;
+        }
+
+        private boolean isOpen() {
+            return error == null && shortProductId == null;
+        }
+
+        // The order fails while the batch carries on, so its in-memory stock goes back now
+        private void fail(RuntimeException error) {
+            this.error = error;
+            if (reservation != null) {
+                reservation.cancel();
+            }
+        }
+    }
+}
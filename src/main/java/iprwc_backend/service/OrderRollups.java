@@ -0,0 +1,150 @@
+package iprwc_backend.service;
+
+import iprwc_backend.dto.response.OrderResponse;
+import iprwc_backend.dto.response.TimeSeriesPoint;
+import iprwc_backend.dto.response.TimeSeriesResponse;
+import iprwc_backend.entity.OrderRollup;
+import iprwc_backend.entity.OrderStatus;
+import iprwc_backend.event.OrderChangedEvent;
+import iprwc_backend.repository.OrderRepository;
+import iprwc_backend.repository.OrderRollupRepository;
+import iprwc_backend.repository.OrderRollupRepositoryCustom.RollupBucket;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Order counts, units and revenue per category, day and status in order_rollups, so time series are read
+// from a few hundred rows per year instead of order history. Each order write adjusts its rollups in its
+// own transaction, just before it commits; the backfill rebuilds them from orders and the archive.
+// A product that moves to another category keeps its past sales in the old one until the next backfill.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderRollups {
+
+    // Upper bound on the points of one time series
+    private static final int MAX_POINTS = 5_000;
+
+    private final OrderRollupRepository rollupRepository;
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${orders.rollups.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    // Runs in the order transaction, so the rollups commit or roll back with the orders
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        if (event.getType() == OrderChangedEvent.ChangeType.CREATED) {
+            Map<OrderStatus, List<Long>> byStatus = event.getOrders().stream().collect(Collectors.groupingBy(
+                    OrderResponse::getStatus, () -> new EnumMap<>(OrderStatus.class),
+                    Collectors.mapping(OrderResponse::getId, Collectors.toList())));
+            byStatus.forEach((status, ids) -> rollupRepository.addOrders(ids, status, 1));
+            return;
+        }
+
+        Map<OrderStatus, List<Long>> byPrevious = event.getPreviousStatuses().entrySet().stream().collect(Collectors.groupingBy(
+                Map.Entry::getValue, () -> new EnumMap<>(OrderStatus.class),
+                Collectors.mapping(Map.Entry::getKey, Collectors.toList())));
+        byPrevious.forEach((previous, ids) -> rollupRepository.addOrders(ids, previous, -1));
+        rollupRepository.addOrders(event.getPreviousStatuses().keySet(), event.getStatus(), 1);
+    }
+
+    // Rebuild the rollups of days from (inclusive) to (exclusive), one month per transaction so order writes
+    // wait on at most one month; returns the number of rows written
+    public int backfill(LocalDate from, LocalDate to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        long started = System.nanoTime();
+        int rows = 0;
+        for (LocalDate start = from; start.isBefore(to); ) {
+            LocalDate monthEnd = start.withDayOfMonth(1).plusMonths(1);
+            LocalDate end = monthEnd.isBefore(to) ? monthEnd : to;
+            LocalDate monthStart = start;
+            Integer written = transactionTemplate.execute(status -> rollupRepository.rebuild(monthStart, end));
+            rows += written == null ? 0 : written;
+            start = end;
+        }
+        log.info("Rebuilt {} order rollup rows from {} to {} in {} ms",
+                rows, from, to, (System.nanoTime() - started) / 1_000_000);
+        return rows;
+    }
+
+    // Rebuild the rollups of all order history
+    public int backfillAll() {
+        LocalDateTime first = orderRepository.findFirstHistoryCreatedAt();
+        if (first == null) {
+            return 0;
+        }
+        LocalDate last = orderRepository.findLastHistoryCreatedAt().toLocalDate();
+        LocalDate today = LocalDate.now();
+        return backfill(first.toLocalDate(), (last.isAfter(today) ? last : today).plusDays(1));
+    }
+
+    // The first start after order_rollups is created fills it in the background
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (!backfillOnStartup || rollupRepository.count() > 0) {
+            return;
+        }
+        Thread.ofVirtual().name("order-rollup-backfill").start(() -> {
+            try {
+                backfillAll();
+            } catch (RuntimeException e) {
+                log.error("Order rollup backfill failed", e);
+            }
+        });
+    }
+
+    // Totals per period over days from (inclusive) to (exclusive), of one category or all (null) and one status
+    // or all (null). Every period in the range has a point; the first one is labelled with the start of its
+    // period but only counts days from from on.
+    public TimeSeriesResponse getTimeSeries(LocalDate from, LocalDate to, TimeGranularity granularity,
+                                            String category, OrderStatus status) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        List<LocalDate> periods = new ArrayList<>();
+        for (LocalDate period = granularity.truncate(from); period.isBefore(to); period = granularity.next(period)) {
+            if (periods.size() == MAX_POINTS) {
+                throw new IllegalArgumentException("Range has more than " + MAX_POINTS + " periods, use a coarser granularity");
+            }
+            periods.add(period);
+        }
+
+        Map<LocalDate, RollupBucket> buckets = rollupRepository.sumByPeriod(
+                        granularity.unit(),
+                        category == null || category.isBlank() ? OrderRollup.ALL_CATEGORIES : category,
+                        from,
+                        to,
+                        status)
+                .stream()
+                .collect(Collectors.toMap(RollupBucket::period, Function.identity()));
+        List<TimeSeriesPoint> points = periods.stream()
+                .map(period -> {
+                    RollupBucket bucket = buckets.get(period);
+                    return bucket == null
+                            ? new TimeSeriesPoint(period, 0, 0, BigDecimal.ZERO)
+                            : new TimeSeriesPoint(period, bucket.orderCount(), bucket.units(), bucket.revenue());
+                })
+                .collect(Collectors.toList());
+        return new TimeSeriesResponse(from, to, granularity.unit(), category, status, points);
+    }
+}
@@ -1,23 +1,41 @@
 package iprwc_backend.service;
 
-import iprwc_backend.dto.DashboardStats;
+import iprwc_backend.dto.request.BulkStatusUpdateRequest;
 import iprwc_backend.dto.request.OrderItemRequest;
 import iprwc_backend.dto.request.OrderRequest;
+import iprwc_backend.dto.response.BulkStatusOutcome;
+import iprwc_backend.dto.response.BulkStatusUpdateResponse;
+import iprwc_backend.dto.response.CursorPage;
+import iprwc_backend.dto.response.OrderHistorySummary;
 import iprwc_backend.dto.response.OrderItemResponse;
 import iprwc_backend.dto.response.OrderResponse;
 import iprwc_backend.dto.response.ProductResponse;
 import iprwc_backend.dto.response.UserResponse;
 import iprwc_backend.entity.*;
+import iprwc_backend.event.OrderChangedEvent;
 import iprwc_backend.exception.ResourceNotFoundException;
+import iprwc_backend.repository.ArchivedOrderRepository;
 import iprwc_backend.repository.OrderRepository;
 import iprwc_backend.repository.ProductRepository;
 import iprwc_backend.repository.UserRepository;
+import iprwc_backend.util.CursorCodec;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,32 +47,87 @@ public class OrderService {
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
     private final ProductService productService;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private static final int MAX_BULK_UPDATE = 10_000;
 
     // Get all orders
-    public List<OrderResponse> getAllOrders() {
-        return orderRepository.findAll().stream()
-                .map(this::convertToResponse)
+    @Transactional(readOnly = true)
+    public List<OrderResponse> getAllOrders(OrderView view) {
+        return orderRepository.findNewestFirst(null, null, view.fetchPaths()).stream()
+                .map(order -> convertToResponse(order, view))
                 .collect(Collectors.toList());
     }
 
+    // Get a page of orders, newest first, optionally only those with the given status
+    @Transactional(readOnly = true)
+    public CursorPage<OrderResponse> getOrdersPage(OrderStatus status, String cursor, Integer size, OrderView view) {
+        int pageSize = ProductService.resolvePageSize(size);
+        long beforeId = decodeCursor(cursor);
+        List<Long> ids = status == null
+                ? orderRepository.findIdsBefore(beforeId, Limit.of(pageSize + 1))
+                : orderRepository.findIdsByStatusBefore(status, beforeId, Limit.of(pageSize + 1));
+        return loadPage(ids, pageSize, false, view, order -> CursorCodec.encode(order.getId()));
+    }
+
     // Get order by ID
+    @Transactional(readOnly = true)
     public OrderResponse getOrderById(Long id) {
-        Order order = orderRepository.findById(id)
+        return getOrderById(id, OrderView.FULL);
+    }
+
+    // Get order by ID, shaped by the view
+    @Transactional(readOnly = true)
+    public OrderResponse getOrderById(Long id, OrderView view) {
+        List<Long> ids = List.of(id);
+        Optional<Order> order = orderRepository.findByIdIn(ids, view.fetchPaths()).stream().findFirst();
+        if (order.isPresent()) {
+            return convertToResponse(order.get(), view);
+        }
+        // Completed orders move to the archive after a while but stay readable
+        return archivedOrderRepository.findByIdIn(ids, view.fetchPaths()).stream().findFirst()
+                .map(archived -> convertToResponse(toOrder(archived, view), view))
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + id));
-        return convertToResponse(order);
     }
 
     // Get orders by user ID
-    public List<OrderResponse> getOrdersByUserId(Long userId) {
-        return orderRepository.findByUserId(userId).stream()
-                .map(this::convertToResponse)
+    @Transactional(readOnly = true)
+    public List<OrderResponse> getOrdersByUserId(Long userId, OrderView view) {
+        return orderRepository.findNewestFirst(userId, null, view.fetchPaths()).stream()
+                .map(order -> convertToResponse(order, view))
                 .collect(Collectors.toList());
     }
 
+    // Get a page of a user's orders, archived ones included, newest first
+    @Transactional(readOnly = true)
+    public CursorPage<OrderResponse> getUserOrdersPage(Long userId, String cursor, Integer size, OrderView view) {
+        int pageSize = ProductService.resolvePageSize(size);
+        List<Long> ids;
+        if (cursor == null || cursor.isBlank()) {
+            ids = orderRepository.findHistoryIdsByUserId(userId, pageSize + 1);
+        } else {
+            CursorCodec.TimePosition position = CursorCodec.decodeTimePosition(cursor);
+            ids = orderRepository.findHistoryIdsByUserIdBefore(userId, position.time(), position.id(), pageSize + 1);
+        }
+        return loadPage(ids, pageSize, true, view, order -> CursorCodec.encode(order.getCreatedAt(), order.getId()));
+    }
+
+    // Get the order count and most recent order of a user, for the head of the order history
+    @Transactional(readOnly = true)
+    public OrderHistorySummary getUserOrderSummary(Long userId) {
+        long orderCount = orderRepository.countHistoryByUserId(userId);
+        return orderRepository.findLatestHistoryByUserId(userId)
+                .map(last -> new OrderHistorySummary(
+                        orderCount, last.getId(), last.getCreatedAt(), last.getStatus(), last.getTotalAmount()))
+                .orElseGet(() -> new OrderHistorySummary(0, null, null, null, null));
+    }
+
     // Get orders by status
-    public List<OrderResponse> getOrdersByStatus(OrderStatus status) {
-        return orderRepository.findByStatus(status).stream()
-                .map(this::convertToResponse)
+    @Transactional(readOnly = true)
+    public List<OrderResponse> getOrdersByStatus(OrderStatus status, OrderView view) {
+        return orderRepository.findNewestFirst(null, status, view.fetchPaths()).stream()
+                .map(order -> convertToResponse(order, view))
                 .collect(Collectors.toList());
     }
 
@@ -63,6 +136,41 @@ public class OrderService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
 
+        SortedMap<Long, Integer> quantities = quantitiesByProduct(request);
+
+        // Load every product in one query; the entities are only read, stock is changed by the reservation below
+        Map<Long, Product> products = productRepository.findAllById(quantities.keySet()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        Order order = buildOrder(user, request, products);
+
+        // Check and take stock with one conditional update per product; fails the whole order if any is short
+        productService.reserveStock(quantities);
+
+        Order savedOrder = orderRepository.save(order);
+
+        OrderResponse response = convertToResponse(savedOrder);
+        eventPublisher.publishEvent(OrderChangedEvent.created(List.of(response)));
+        return response;
+    }
+
+    // Total quantity per product, sorted by id so stock is always reserved in the same order
+    static SortedMap<Long, Integer> quantitiesByProduct(OrderRequest request) {
+        SortedMap<Long, Integer> quantities = new TreeMap<>();
+        for (OrderItemRequest itemRequest : request.getItems()) {
+            quantities.merge(itemRequest.getProductId(), itemRequest.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    // New pending order for the request, priced from the loaded products; also used by the group-commit
+    // pipeline, so both checkout paths validate and price orders the same way. Stock is left to the caller.
+    static Order buildOrder(User user, OrderRequest request, Map<Long, Product> products) {
+        for (Long productId : quantitiesByProduct(request).keySet()) {
+            if (!products.containsKey(productId)) {
+                throw new ResourceNotFoundException("Product not found with id: " + productId);
+            }
+        }
+
         Order order = new Order();
         order.setUser(user);
         order.setShippingAddress(request.getShippingAddress());
@@ -71,13 +179,7 @@ public class OrderService {
         BigDecimal totalAmount = BigDecimal.ZERO;
 
         for (OrderItemRequest itemRequest : request.getItems()) {
-            Product product = productRepository.findById(itemRequest.getProductId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + itemRequest.getProductId()));
-
-            // Check stock
-            if (product.getStock() < itemRequest.getQuantity()) {
-                throw new RuntimeException("Insufficient stock for product: " + product.getName());
-            }
+            Product product = products.get(itemRequest.getProductId());
 
             OrderItem orderItem = new OrderItem();
             orderItem.setProduct(product);
@@ -89,15 +191,10 @@ public class OrderService {
             // Calculate total
             BigDecimal itemTotal = product.getPrice().multiply(new BigDecimal(itemRequest.getQuantity()));
             totalAmount = totalAmount.add(itemTotal);
-
-            // Update product stock
-            productService.updateStock(product.getId(), itemRequest.getQuantity());
         }
 
         order.setTotalAmount(totalAmount);
-        Order savedOrder = orderRepository.save(order);
-
-        return convertToResponse(savedOrder);
+        return order;
     }
 
     // Update order status
@@ -105,89 +202,197 @@ public class OrderService {
         Order order = orderRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + id));
 
+        OrderStatus previous = order.getStatus();
         order.setStatus(status);
         Order updatedOrder = orderRepository.save(order);
+        if (previous != status) {
+            eventPublisher.publishEvent(OrderChangedEvent.statusChanged(status, Map.of(id, previous)));
+        }
         return convertToResponse(updatedOrder);
     }
 
-    // Get dashboard statistics
-    public DashboardStats getDashboardStats() {
-        long totalProducts = productRepository.count();
-        long totalOrders = orderRepository.count();
-        long totalUsers = userRepository.count();
-        long pendingOrders = orderRepository.countByStatus(OrderStatus.PENDING);
-        long processingOrders = orderRepository.countByStatus(OrderStatus.PROCESSING);
-        long shippedOrders = orderRepository.countByStatus(OrderStatus.SHIPPED);
-        long deliveredOrders = orderRepository.countByStatus(OrderStatus.DELIVERED);
-        BigDecimal totalRevenue = orderRepository.getTotalRevenue();
-
-        if (totalRevenue == null) {
-            totalRevenue = BigDecimal.ZERO;
-        }
-
-        return new DashboardStats(
-                totalProducts,
-                totalOrders,
-                totalUsers,
-                pendingOrders,
-                processingOrders,
-                shippedOrders,
-                deliveredOrders,
-                totalRevenue
-        );
+    // Move many orders to one status with set-based updates. Orders whose current status does not allow
+    // the move are reported, not changed. Nothing is loaded into the persistence context.
+    public BulkStatusUpdateResponse bulkUpdateStatus(BulkStatusUpdateRequest request) {
+        OrderStatus target = request.getStatus();
+        boolean byIds = request.getIds() != null && !request.getIds().isEmpty();
+        if (byIds == (request.getFromStatus() != null)) {
+            throw new IllegalArgumentException("Give either ids or fromStatus");
+        }
+
+        if (!byIds) {
+            if (!request.getFromStatus().canMoveTo(target)) {
+                throw new IllegalArgumentException("Orders cannot move from " + request.getFromStatus() + " to " + target);
+            }
+            Map<Long, OrderStatus> updated = orderRepository.updateStatusWhere(
+                    Set.of(request.getFromStatus()), request.getCreatedBefore(), target, MAX_BULK_UPDATE);
+            publishStatusChanges(target, updated);
+            List<BulkStatusOutcome> results = updated.entrySet().stream()
+                    .map(entry -> new BulkStatusOutcome(entry.getKey(), BulkStatusOutcome.Result.UPDATED, entry.getValue()))
+                    .collect(Collectors.toList());
+            return new BulkStatusUpdateResponse(target, updated.size(), results, updated.size() == MAX_BULK_UPDATE);
+        }
+
+        Set<Long> ids = new LinkedHashSet<>(request.getIds());
+        Map<Long, OrderStatus> updated = orderRepository.updateStatus(ids, OrderStatus.sourcesOf(target), target);
+        publishStatusChanges(target, updated);
+        Set<Long> rest = new LinkedHashSet<>(ids);
+        rest.removeAll(updated.keySet());
+        Map<Long, OrderStatus> current = orderRepository.findStatuses(rest);
+
+        List<BulkStatusOutcome> results = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            OrderStatus previous = updated.get(id);
+            if (previous != null) {
+                results.add(new BulkStatusOutcome(id, BulkStatusOutcome.Result.UPDATED, previous));
+                continue;
+            }
+            OrderStatus status = current.get(id);
+            BulkStatusOutcome.Result result = status == null ? BulkStatusOutcome.Result.NOT_FOUND
+                    : status == target ? BulkStatusOutcome.Result.UNCHANGED
+                    : BulkStatusOutcome.Result.INVALID_TRANSITION;
+            results.add(new BulkStatusOutcome(id, result, status));
+        }
+        return new BulkStatusUpdateResponse(target, updated.size(), results, false);
     }
 
-    // Convert entity to response DTO
-    private OrderResponse convertToResponse(Order order) {
-        UserResponse userResponse = new UserResponse(
-                order.getUser().getId(),
-                order.getUser().getEmail(),
-                order.getUser().getFirstName(),
-                order.getUser().getLastName(),
-                order.getUser().getRole(),
-                order.getUser().getAddress(),
-                order.getUser().getCity(),
-                order.getUser().getState(),
-                order.getUser().getZipCode(),
-                order.getUser().getCountry(),
-                order.getUser().getPhoneNumber(),
-                order.getUser().getCreatedAt()
-        );
+    // Load one page of orders from its IDs (fetched with one extra to detect a next page), keeping their order
+    // With includeArchive, IDs not found in orders are looked up in the archive. The cursor is taken from
+    // the last entity, so it does not depend on the fields the view fills.
+    private CursorPage<OrderResponse> loadPage(List<Long> ids, int pageSize, boolean includeArchive,
+                                               OrderView view, Function<Order, String> cursorOf) {
+        boolean hasMore = ids.size() > pageSize;
+        List<Long> pageIds = hasMore ? ids.subList(0, pageSize) : ids;
+        if (pageIds.isEmpty()) {
+            return new CursorPage<>(List.of(), null, false);
+        }
 
-        List<OrderItemResponse> itemResponses = order.getItems().stream()
-                .map(this::convertOrderItemToResponse)
+        Map<Long, Order> orders = orderRepository.findByIdIn(pageIds, view.fetchPaths()).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+        if (includeArchive && orders.size() < pageIds.size()) {
+            List<Long> archivedIds = pageIds.stream().filter(id -> !orders.containsKey(id)).toList();
+            archivedOrderRepository.findByIdIn(archivedIds, view.fetchPaths())
+                    .forEach(order -> orders.put(order.getId(), toOrder(order, view)));
+        }
+        List<Order> page = pageIds.stream()
+                .map(orders::get)
+                .filter(Objects::nonNull)
+                .toList();
+        List<OrderResponse> items = page.stream()
+                .map(order -> convertToResponse(order, view))
                 .collect(Collectors.toList());
+        String nextCursor = hasMore && !page.isEmpty() ? cursorOf.apply(page.get(page.size() - 1)) : null;
+        return new CursorPage<>(items, nextCursor, hasMore);
+    }
 
-        return new OrderResponse(
-                order.getId(),
-                userResponse,
-                itemResponses,
-                order.getTotalAmount(),
-                order.getStatus(),
-                order.getShippingAddress(),
-                order.getCreatedAt(),
-                order.getUpdatedAt()
-        );
+    private void publishStatusChanges(OrderStatus status, Map<Long, OrderStatus> previousStatuses) {
+        if (!previousStatuses.isEmpty()) {
+            eventPublisher.publishEvent(OrderChangedEvent.statusChanged(status, previousStatuses));
+        }
     }
 
-    private OrderItemResponse convertOrderItemToResponse(OrderItem item) {
-        ProductResponse productResponse = new ProductResponse(
-                item.getProduct().getId(),
-                item.getProduct().getName(),
-                item.getProduct().getDescription(),
-                item.getProduct().getPrice(),
-                item.getProduct().getCategory(),
-                item.getProduct().getImage(),
-                item.getProduct().getStock(),
-                item.getProduct().getCreatedAt(),
-                item.getProduct().getUpdatedAt()
-        );
+    private static long decodeCursor(String cursor) {
+        return cursor == null || cursor.isBlank() ? Long.MAX_VALUE : CursorCodec.decodeId(cursor);
+    }
 
-        return new OrderItemResponse(
-                item.getId(),
-                productResponse,
-                item.getQuantity(),
-                item.getPrice()
+    // Convert entity to response DTO
+    static OrderResponse convertToResponse(Order order) {
+        return convertToResponse(order, OrderView.FULL);
+    }
+
+    // Convert entity to response DTO, touching only the associations the view includes
+    static OrderResponse convertToResponse(Order order, OrderView view) {
+        OrderResponse response = new OrderResponse();
+        response.setId(order.getId());
+        if (view.includes("user")) {
+            if (view.compact()) {
+                // The id of a lazy user comes from the order row without loading the user
+                response.setUserId(order.getUser().getId());
+            } else {
+                response.setUser(convertUserToResponse(order.getUser()));
+            }
+        }
+        if (view.includes("items")) {
+            response.setItems(order.getItems().stream()
+                    .map(item -> convertOrderItemToResponse(item, view))
+                    .collect(Collectors.toList()));
+        }
+        if (view.includes("totalAmount")) {
+            response.setTotalAmount(order.getTotalAmount());
+        }
+        if (view.includes("status")) {
+            response.setStatus(order.getStatus());
+        }
+        if (view.includes("shippingAddress")) {
+            response.setShippingAddress(order.getShippingAddress());
+        }
+        if (view.includes("createdAt")) {
+            response.setCreatedAt(order.getCreatedAt());
+        }
+        if (view.includes("updatedAt")) {
+            response.setUpdatedAt(order.getUpdatedAt());
+        }
+        return response;
+    }
+
+    // Copy an archived order into a detached Order, so it converts like a live one; items are copied only if the view includes them,
+    // since they are not fetched otherwise
+    private static Order toOrder(ArchivedOrder archived, OrderView view) {
+        Order order = new Order();
+        order.setId(archived.getId());
+        order.setUser(archived.getUser());
+        order.setTotalAmount(archived.getTotalAmount());
+        order.setStatus(archived.getStatus());
+        order.setShippingAddress(archived.getShippingAddress());
+        order.setCreatedAt(archived.getCreatedAt());
+        order.setUpdatedAt(archived.getUpdatedAt());
+        if (view.includes("items")) {
+            for (ArchivedOrderItem item : archived.getItems()) {
+                order.getItems().add(new OrderItem(item.getId(), order, item.getProduct(), item.getQuantity(), item.getPrice()));
+            }
+        }
+        return order;
+    }
+
+    private static UserResponse convertUserToResponse(User user) {
+        return new UserResponse(
+                user.getId(),
+                user.getEmail(),
+                user.getFirstName(),
+                user.getLastName(),
+                user.getRole(),
+                user.getAddress(),
+                user.getCity(),
+                user.getState(),
+                user.getZipCode(),
+                user.getCountry(),
+                user.getPhoneNumber(),
+                user.getCreatedAt()
         );
     }
-}
\ No newline at end of file
+
+    private static OrderItemResponse convertOrderItemToResponse(OrderItem item, OrderView view) {
+        OrderItemResponse response = new OrderItemResponse();
+        response.setId(item.getId());
+        if (view.compact()) {
+            // Name and price snapshot only; the description and the rest of the product stay out
+            response.setProductId(item.getProduct().getId());
+            response.setProductName(item.getProduct().getName());
+        } else {
+            response.setProduct(new ProductResponse(
+                    item.getProduct().getId(),
+                    item.getProduct().getName(),
+                    item.getProduct().getDescription(),
+                    item.getProduct().getPrice(),
+                    item.getProduct().getCategory(),
+                    item.getProduct().getImage(),
+                    item.getProduct().getStock(),
+                    item.getProduct().getCreatedAt(),
+                    item.getProduct().getUpdatedAt()
+            ));
+        }
+        response.setQuantity(item.getQuantity());
+        response.setPrice(item.getPrice());
+        return response;
+    }
+}
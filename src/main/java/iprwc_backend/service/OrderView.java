@@ -0,0 +1,60 @@
+package iprwc_backend.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// Shape of an order response as asked for by ?view= and ?fields=. The full view embeds the user and each
+// item's product; the compact view reduces them to userId and productId/productName. fields lists the
+// top-level OrderResponse fields to fill (id is always included); fields left out are not loaded either.
+public record OrderView(boolean compact, Set<String> fields) {
+
+    static final Set<String> FIELDS = Set.of(
+            "id", "user", "items", "totalAmount", "status", "shippingAddress", "createdAt", "updatedAt");
+
+    public static final OrderView FULL = new OrderView(false, FIELDS);
+    public static final OrderView COMPACT = new OrderView(true, FIELDS);
+
+    public static OrderView of(String view, String fields) {
+        boolean compact;
+        if (view == null || view.isBlank() || view.equalsIgnoreCase("full")) {
+            compact = false;
+        } else if (view.equalsIgnoreCase("compact")) {
+            compact = true;
+        } else {
+            throw new IllegalArgumentException("Unsupported view: " + view);
+        }
+        if (fields == null || fields.isBlank()) {
+            return compact ? COMPACT : FULL;
+        }
+
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add("id");
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (!FIELDS.contains(name)) {
+                throw new IllegalArgumentException("Unknown order field: " + name);
+            }
+            selected.add(name);
+        }
+        return new OrderView(compact, Set.copyOf(selected));
+    }
+
+    public boolean includes(String field) {
+        return fields.contains(field);
+    }
+
+    // Associations to fetch with the orders; the compact user is its id, which the order row already holds
+    List<String> fetchPaths() {
+        List<String> paths = new ArrayList<>();
+        if (includes("user") && !compact) {
+            paths.add("user");
+        }
+        if (includes("items")) {
+            paths.add("items");
+            paths.add("items.product");
+        }
+        return paths;
+    }
+}
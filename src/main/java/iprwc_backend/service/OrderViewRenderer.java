@@ -0,0 +1,30 @@
+package iprwc_backend.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import iprwc_backend.dto.response.OrderItemResponse;
+import iprwc_backend.dto.response.OrderResponse;
+import org.springframework.stereotype.Component;
+
+// Writes order responses in the shape their view asked for. The full view goes out as is, so its contract
+// (null fields included) is unchanged; compact and sparse views leave out the fields they did not fill.
+@Component
+public class OrderViewRenderer {
+
+    private final ObjectMapper sparseMapper;
+
+    public OrderViewRenderer(ObjectMapper objectMapper) {
+        this.sparseMapper = objectMapper.copy()
+                .addMixIn(OrderResponse.class, OmitNulls.class)
+                .addMixIn(OrderItemResponse.class, OmitNulls.class);
+    }
+
+    // The body itself for the full view, otherwise its JSON tree without the null order and item fields
+    public Object render(Object body, OrderView view) {
+        return view.equals(OrderView.FULL) ? body : sparseMapper.valueToTree(body);
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private interface OmitNulls {
+    }
+}
@@ -0,0 +1,403 @@
+package iprwc_backend.service;
+
+import iprwc_backend.dto.response.CacheStatsResponse;
+import iprwc_backend.dto.response.ProductResponse;
+import iprwc_backend.entity.Product;
+import iprwc_backend.event.ProductChangedEvent;
+import iprwc_backend.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+// Process-local, read-mostly copy of the whole catalog.
+// Readers get the current immutable snapshot without locking and never build one. Admin writes patch the
+// snapshot in their after-commit listener, so a read after the write's response sees it. Checkouts only mark
+// the product's stock stale; stock-refresh-interval re-reads the stale rows in one query instead of copying
+// the catalog per order, as deltas delivered out of commit order cannot be summed safely. Loads run on a
+// background thread: an expired snapshot is served until its reload replaces it, and reads go to the
+// database while there is none.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductCatalogCache {
+
+    private final ProductRepository productRepository;
+
+    @Value("${catalog.cache.max-products:50000}")
+    private int maxProducts;
+
+    @Value("${catalog.cache.max-age-seconds:300}")
+    private long maxAgeSeconds;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder reloads = new LongAdder();
+
+    // Guarded by this, as are changes to snapshot and version
+    private final Set<Long> staleStock = new HashSet<>();
+    private final Set<Long> changedDuringLoad = new HashSet<>();
+    private boolean loading;
+    private boolean reloadRequested;
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile Snapshot snapshot;
+    private volatile boolean oversized;
+    private volatile long version;
+
+    // Current snapshot, or null while there is none and callers must use the database
+    public Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            if (!oversized) {
+                requestRefresh();
+            }
+            misses.increment();
+            return null;
+        }
+        if (isExpired(current)) {
+            requestRefresh();
+        }
+        hits.increment();
+        return current;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        synchronized (this) {
+            if (event.getType() != ProductChangedEvent.ChangeType.RELOADED) {
+                apply(event);
+                return;
+            }
+            // Too many changes to patch; reads go to the database until the reload is done
+            if (snapshot != null) {
+                evict(snapshot);
+            }
+            staleStock.clear();
+            reloadRequested = true;
+            oversized = false;
+        }
+        requestRefresh();
+    }
+
+    // Snapshot being served, without counting a read or starting a refresh
+    public Snapshot peek() {
+        return snapshot;
+    }
+
+    // Read the stock of products changed since the last refresh and fold it into a new snapshot
+    @Scheduled(fixedDelayString = "${catalog.cache.stock-refresh-interval:PT5S}")
+    public void refreshStock() {
+        Set<Long> ids;
+        synchronized (this) {
+            if (staleStock.isEmpty()) {
+                return;
+            }
+            ids = Set.copyOf(staleStock);
+            staleStock.clear();
+        }
+
+        Map<Long, Integer> stock = new HashMap<>();
+        try {
+            for (Object[] row : productRepository.findStockByIdIn(ids)) {
+                stock.put(((Number) row[0]).longValue(), ((Number) row[1]).intValue());
+            }
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                staleStock.addAll(ids);
+            }
+            throw e;
+        }
+
+        // A change committed after the read marks its product stale again, so an older value is corrected next round
+        synchronized (this) {
+            Snapshot current = snapshot;
+            if (current == null) {
+                return;
+            }
+            Map<Long, ProductResponse> byId = null;
+            for (Map.Entry<Long, Integer> entry : stock.entrySet()) {
+                ProductResponse product = current.get(entry.getKey());
+                if (product != null && product.getStock() != entry.getValue().intValue()) {
+                    if (byId == null) {
+                        byId = new TreeMap<>(current.byId);
+                    }
+                    byId.put(entry.getKey(), withStock(product, entry.getValue()));
+                }
+            }
+            if (byId != null) {
+                publish(current, byId);
+            }
+        }
+    }
+
+    public CacheStatsResponse getStats() {
+        Snapshot current = snapshot;
+        return new CacheStatsResponse(
+                current != null,
+                current != null ? current.getVersion() : version,
+                current != null ? current.size() : 0,
+                hits.sum(),
+                misses.sum(),
+                evictions.sum(),
+                reloads.sum()
+        );
+    }
+
+    // Callers hold the monitor
+    private void apply(ProductChangedEvent event) {
+        if (loading) {
+            // The load reads the product again before it publishes
+            changedDuringLoad.add(event.getProductId());
+        }
+        Snapshot current = snapshot;
+        if (current == null) {
+            if (oversized && event.getType() == ProductChangedEvent.ChangeType.DELETED) {
+                // The catalog may fit again; retry on the next read
+                oversized = false;
+            }
+            return;
+        }
+        if (event.getType() != ProductChangedEvent.ChangeType.DELETED) {
+            // An update carries the stock its transaction read, which may predate a checkout already applied
+            staleStock.add(event.getProductId());
+        }
+        if (event.getType() == ProductChangedEvent.ChangeType.STOCK) {
+            return;
+        }
+
+        Map<Long, ProductResponse> byId = new TreeMap<>(current.byId);
+        if (event.getType() == ProductChangedEvent.ChangeType.DELETED) {
+            if (byId.remove(event.getProductId()) != null) {
+                evictions.increment();
+            }
+        } else {
+            byId.put(event.getProductId(), event.getProduct());
+        }
+        if (byId.size() > maxProducts) {
+            log.warn("Catalog exceeds {} products, dropping the cache", maxProducts);
+            evict(current);
+            oversized = true;
+            return;
+        }
+        publish(current, byId);
+    }
+
+    // Callers hold the monitor
+    private void publish(Snapshot current, Map<Long, ProductResponse> byId) {
+        snapshot = new Snapshot(++version, byId, current.loadedAt);
+    }
+
+    // Start the load thread unless it is already running; it picks up whatever is waiting
+    private void requestRefresh() {
+        if (refreshing.compareAndSet(false, true)) {
+            Thread.ofVirtual().name("catalog-cache-refresh").start(this::refresh);
+        }
+    }
+
+    private void refresh() {
+        boolean failed = false;
+        try {
+            while (refreshOnce()) {
+                // Another load was requested during the round
+            }
+        } catch (RuntimeException e) {
+            // The current snapshot stays; the next read or reload tries again
+            failed = true;
+            log.warn("Failed to refresh the catalog cache", e);
+        } finally {
+            refreshing.set(false);
+        }
+        // Work that arrived after the last round looked, but before the flag was cleared
+        if (!failed && hasWork()) {
+            requestRefresh();
+        }
+    }
+
+    // Load the catalog if it is missing, expired or invalidated; returns whether another load is due
+    private boolean refreshOnce() {
+        Snapshot current;
+        synchronized (this) {
+            current = snapshot;
+            if (!reloadRequested && (current == null ? oversized : !isExpired(current))) {
+                return false;
+            }
+            // Everything committed so far is visible to the load
+            reloadRequested = false;
+            loading = true;
+            changedDuringLoad.clear();
+            staleStock.clear();
+        }
+        load(current);
+        return hasWork();
+    }
+
+    private synchronized boolean hasWork() {
+        Snapshot current = snapshot;
+        return reloadRequested || (current == null ? !oversized : isExpired(current));
+    }
+
+    private boolean isExpired(Snapshot current) {
+        return System.nanoTime() - current.loadedAt > maxAgeSeconds * 1_000_000_000L;
+    }
+
+    private void evict(Snapshot current) {
+        evictions.add(current.size());
+        snapshot = null;
+    }
+
+    // Read the whole catalog. A change committed while findAll ran may be missing from what it read, and a
+    // stock delta cannot be replayed onto rows that may already include it, so products changed during the
+    // load are read again by id until a round passes without changes; only then is the snapshot published.
+    private void load(Snapshot previous) {
+        try {
+            if (productRepository.count() > maxProducts) {
+                log.warn("Catalog exceeds {} products, serving reads from the database", maxProducts);
+                synchronized (this) {
+                    oversized = true;
+                    if (snapshot != null) {
+                        evict(snapshot);
+                    }
+                }
+                return;
+            }
+
+            Map<Long, ProductResponse> byId = new TreeMap<>();
+            for (Product product : productRepository.findAll(Sort.by("id"))) {
+                byId.put(product.getId(), ProductService.convertToResponse(product));
+            }
+            while (true) {
+                Set<Long> changed;
+                synchronized (this) {
+                    if (reloadRequested) {
+                        // A bulk change arrived; the next round loads again
+                        return;
+                    }
+                    if (changedDuringLoad.isEmpty()) {
+                        if (previous != null && snapshot != null) {
+                            evictions.add(snapshot.size());
+                        }
+                        reloads.increment();
+                        snapshot = new Snapshot(++version, byId, System.nanoTime());
+                        loading = false;
+                        return;
+                    }
+                    changed = Set.copyOf(changedDuringLoad);
+                    changedDuringLoad.clear();
+                }
+                for (Long id : changed) {
+                    byId.remove(id);
+                }
+                for (Product product : productRepository.findAllById(changed)) {
+                    byId.put(product.getId(), ProductService.convertToResponse(product));
+                }
+            }
+        } finally {
+            synchronized (this) {
+                loading = false;
+                changedDuringLoad.clear();
+            }
+        }
+    }
+
+    private static ProductResponse withStock(ProductResponse product, int stock) {
+        return new ProductResponse(
+                product.getId(),
+                product.getName(),
+                product.getDescription(),
+                product.getPrice(),
+                product.getCategory(),
+                product.getImage(),
+                stock,
+                product.getCreatedAt(),
+                product.getUpdatedAt()
+        );
+    }
+
+    // Immutable view of the catalog at one version, indexed by id and by category
+    public static final class Snapshot {
+
+        private final long version;
+        private final long loadedAt;
+        // Wall clock time the snapshot was built, to the second as HTTP dates are
+        private final long lastModified;
+        private final Map<Long, ProductResponse> byId;
+        private final long[] ids;
+        private final List<ProductResponse> all;
+        private final Map<String, List<ProductResponse>> byCategory;
+        private final List<String> categories;
+
+        private Snapshot(long version, Map<Long, ProductResponse> sortedById, long loadedAt) {
+            this.version = version;
+            this.loadedAt = loadedAt;
+            this.lastModified = System.currentTimeMillis() / 1000 * 1000;
+            this.byId = Collections.unmodifiableMap(new HashMap<>(sortedById));
+            this.all = List.copyOf(sortedById.values());
+            this.ids = new long[all.size()];
+
+            Map<String, List<ProductResponse>> grouped = new LinkedHashMap<>();
+            for (int i = 0; i < all.size(); i++) {
+                ProductResponse product = all.get(i);
+                ids[i] = product.getId();
+                grouped.computeIfAbsent(product.getCategory(), category -> new ArrayList<>()).add(product);
+            }
+            Map<String, List<ProductResponse>> frozen = new HashMap<>();
+            grouped.forEach((category, products) -> frozen.put(category, List.copyOf(products)));
+            this.byCategory = Collections.unmodifiableMap(frozen);
+            this.categories = frozen.keySet().stream().sorted().toList();
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public int size() {
+            return all.size();
+        }
+
+        public ProductResponse get(Long id) {
+            return byId.get(id);
+        }
+
+        // All products ordered by id
+        public List<ProductResponse> getAll() {
+            return all;
+        }
+
+        public List<ProductResponse> getByCategory(String category) {
+            return byCategory.getOrDefault(category, List.of());
+        }
+
+        public List<String> getCategories() {
+            return categories;
+        }
+
+        // Up to limit products with an id greater than afterId, in id order
+        public List<ProductResponse> after(long afterId, int limit) {
+            int index = Arrays.binarySearch(ids, afterId);
+            int from = index >= 0 ? index + 1 : -index - 1;
+            return all.subList(from, Math.min(all.size(), from + limit));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package iprwc_backend.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import iprwc_backend.dto.response.ProductResponse;
+import iprwc_backend.entity.Product;
+import iprwc_backend.repository.ProductRepository;
+import iprwc_backend.util.CsvWriter;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Writes the whole catalog as CSV or NDJSON straight from a database cursor.
+// Each row is written and detached before the next is fetched, so heap use does not grow with the catalog.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductExportService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ProductRepository productRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    // Export every product in id order; returns the number of rows written
+    @Transactional(readOnly = true)
+    public long exportProducts(OutputStream output, ProductFileFormat format) throws IOException {
+        long started = System.nanoTime();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), BUFFER_SIZE);
+        long rows;
+        try (Stream<Product> products = productRepository.streamAllOrderById()) {
+            rows = format == ProductFileFormat.CSV
+                    ? writeCsv(products.iterator(), writer)
+                    : writeNdjson(products.iterator(), writer);
+        }
+        writer.flush();
+
+        log.info("Exported {} products as {} in {} ms", rows, format, (System.nanoTime() - started) / 1_000_000);
+        return rows;
+    }
+
+    private long writeCsv(Iterator<Product> products, Writer writer) throws IOException {
+        CsvWriter csv = new CsvWriter(writer);
+        List<String> header = new ArrayList<>();
+        header.add("id");
+        header.addAll(ProductFileFormat.CSV_COLUMNS);
+        csv.write(header);
+
+        long rows = 0;
+        while (products.hasNext()) {
+            Product product = products.next();
+            csv.write(List.of(
+                    product.getId().toString(),
+                    product.getName(),
+                    product.getDescription(),
+                    product.getPrice().toPlainString(),
+                    product.getCategory(),
+                    product.getImage(),
+                    product.getStock().toString()
+            ));
+            entityManager.detach(product);
+            rows++;
+        }
+        return rows;
+    }
+
+    private long writeNdjson(Iterator<Product> products, Writer writer) throws IOException {
+        // Flushing after every row would send one tiny chunk per product; the buffer flushes on its own
+        ObjectWriter rowWriter = objectMapper.writerFor(ProductResponse.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long rows = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(writer)) {
+            // The generator must not close the response stream or put spaces between root values
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            while (products.hasNext()) {
+                Product product = products.next();
+                rowWriter.writeValue(generator, ProductService.convertToResponse(product));
+                generator.writeRaw('\n');
+                entityManager.detach(product);
+                rows++;
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,314 @@
+package iprwc_backend.service;
+
+import iprwc_backend.dto.response.ProductResponse;
+import iprwc_backend.entity.Product;
+import iprwc_backend.event.ProductChangedEvent;
+import iprwc_backend.repository.ProductRepository;
+import iprwc_backend.util.CompressedBitmap;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Compressed bitsets over the product id space for category, price bucket and stock facets.
+// Filtering and facet counting are bitmap intersections and never touch the database.
+@Component
+@RequiredArgsConstructor
+public class ProductFacetIndex {
+
+    // Lower bounds of the price buckets; the last bucket is open-ended
+    private static final BigDecimal[] PRICE_BOUNDS = {
+            BigDecimal.ZERO,
+            BigDecimal.valueOf(10),
+            BigDecimal.valueOf(25),
+            BigDecimal.valueOf(50),
+            BigDecimal.valueOf(100),
+            BigDecimal.valueOf(250),
+            BigDecimal.valueOf(500),
+            BigDecimal.valueOf(1000)
+    };
+
+    private final ProductRepository productRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final CompressedBitmap all = new CompressedBitmap();
+    private final CompressedBitmap inStock = new CompressedBitmap();
+    private final Map<String, CompressedBitmap> byCategory = new TreeMap<>();
+    private final CompressedBitmap[] byPriceBucket = new CompressedBitmap[PRICE_BOUNDS.length];
+    private final Map<Integer, Facets> facetsById = new HashMap<>();
+    private volatile boolean built;
+
+    // Products changed while a build reads the database, re-read once it is done; guarded by itself
+    private final Set<Long> changedDuringBuild = new HashSet<>();
+    private boolean building;
+    private boolean reloadedDuringBuild;
+
+    {
+        for (int i = 0; i < byPriceBucket.length; i++) {
+            byPriceBucket[i] = new CompressedBitmap();
+        }
+    }
+
+    // Ids matching all filters, with facet counts where each facet ignores its own filter
+    public Result filter(Collection<String> categories, BigDecimal minPrice, BigDecimal maxPrice, Boolean onlyInStock, long afterId, int limit) {
+        ensureBuilt();
+        lock.readLock().lock();
+        try {
+            CompressedBitmap categoryFilter = categoryFilter(categories);
+            CompressedBitmap priceFilter = priceFilter(minPrice, maxPrice);
+            CompressedBitmap stockFilter = Boolean.TRUE.equals(onlyInStock) ? inStock : all;
+
+            CompressedBitmap priceAndStock = priceFilter.and(stockFilter);
+            CompressedBitmap categoryAndStock = categoryFilter.and(stockFilter);
+            CompressedBitmap categoryAndPrice = categoryFilter.and(priceFilter);
+            CompressedBitmap matches = categoryAndPrice.and(stockFilter);
+
+            Map<String, Long> categoryCounts = new LinkedHashMap<>();
+            byCategory.forEach((category, bitmap) -> {
+                long count = bitmap.andCardinality(priceAndStock);
+                if (count > 0) {
+                    categoryCounts.put(category, count);
+                }
+            });
+
+            Map<String, Long> priceCounts = new LinkedHashMap<>();
+            for (int i = 0; i < byPriceBucket.length; i++) {
+                priceCounts.put(bucketLabel(i), byPriceBucket[i].andCardinality(categoryAndStock));
+            }
+
+            long inStockCount = categoryAndPrice.andCardinality(inStock);
+            long outOfStockCount = categoryAndPrice.cardinality() - inStockCount;
+
+            int after = afterId > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) afterId;
+            int[] page = matches.after(after, limit + 1);
+            return new Result(page, matches.cardinality(), categoryCounts, priceCounts, inStockCount, outOfStockCount);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        synchronized (changedDuringBuild) {
+            if (building) {
+                if (event.getType() == ProductChangedEvent.ChangeType.RELOADED) {
+                    reloadedDuringBuild = true;
+                } else {
+                    changedDuringBuild.add(event.getProductId());
+                }
+                return;
+            }
+            // Not built yet: the next build reads the database after this commit
+            if (!built) {
+                return;
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            if (built) {
+                apply(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureBuilt() {
+        if (built) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (built) {
+                return;
+            }
+            synchronized (changedDuringBuild) {
+                building = true;
+                reloadedDuringBuild = true;
+            }
+            try {
+                build();
+            } finally {
+                synchronized (changedDuringBuild) {
+                    changedDuringBuild.clear();
+                    building = false;
+                }
+                if (!built) {
+                    clear();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // A change committed while findAll ran may be missing from what it read, and a stock delta cannot be
+    // replayed onto a snapshot that may already include it, so the products changed during the build are
+    // read again afterwards, until a round passes without changes. Callers hold the write lock.
+    private void build() {
+        while (true) {
+            Set<Long> changed;
+            boolean reload;
+            synchronized (changedDuringBuild) {
+                if (!reloadedDuringBuild && changedDuringBuild.isEmpty()) {
+                    building = false;
+                    built = true;
+                    return;
+                }
+                reload = reloadedDuringBuild;
+                changed = Set.copyOf(changedDuringBuild);
+                reloadedDuringBuild = false;
+                changedDuringBuild.clear();
+            }
+
+            if (reload) {
+                clear();
+                for (Product product : productRepository.findAll()) {
+                    index(Math.toIntExact(product.getId()), product.getCategory(), product.getPrice(), product.getStock());
+                }
+            } else {
+                for (Long id : changed) {
+                    remove(Math.toIntExact(id));
+                }
+                for (Product product : productRepository.findAllById(changed)) {
+                    index(Math.toIntExact(product.getId()), product.getCategory(), product.getPrice(), product.getStock());
+                }
+            }
+        }
+    }
+
+    // Callers hold the write lock
+    private void apply(ProductChangedEvent event) {
+        switch (event.getType()) {
+            case CREATED, UPDATED -> index(event.getProduct());
+            case DELETED -> remove(Math.toIntExact(event.getProductId()));
+            case RELOADED -> clear();
+            case STOCK -> {
+                int id = Math.toIntExact(event.getProductId());
+                Facets facets = facetsById.get(id);
+                if (facets != null) {
+                    index(id, facets.category(), facets.price(), facets.stock() + event.getStockDelta());
+                }
+            }
+        }
+    }
+
+    // Drop everything; the next filter rebuilds from the database
+    private void clear() {
+        for (Integer id : List.copyOf(facetsById.keySet())) {
+            remove(id);
+        }
+        built = false;
+    }
+
+    private CompressedBitmap categoryFilter(Collection<String> categories) {
+        if (categories == null || categories.isEmpty()) {
+            return all;
+        }
+        CompressedBitmap union = new CompressedBitmap();
+        for (String category : categories) {
+            CompressedBitmap bitmap = byCategory.get(category);
+            if (bitmap != null) {
+                union = union.or(bitmap);
+            }
+        }
+        return union;
+    }
+
+    // Whole buckets inside the range are OR-ed in; only the two edge buckets are checked per product
+    private CompressedBitmap priceFilter(BigDecimal minPrice, BigDecimal maxPrice) {
+        if (minPrice == null && maxPrice == null) {
+            return all;
+        }
+        CompressedBitmap result = new CompressedBitmap();
+        for (int i = 0; i < byPriceBucket.length; i++) {
+            BigDecimal lower = PRICE_BOUNDS[i];
+            BigDecimal upper = i + 1 < PRICE_BOUNDS.length ? PRICE_BOUNDS[i + 1] : null;
+            boolean aboveMin = minPrice == null || lower.compareTo(minPrice) >= 0;
+            boolean belowMax = maxPrice == null || (upper != null && upper.compareTo(maxPrice) <= 0);
+            boolean disjoint = (maxPrice != null && lower.compareTo(maxPrice) > 0)
+                    || (minPrice != null && upper != null && upper.compareTo(minPrice) <= 0);
+
+            if (disjoint) {
+                continue;
+            }
+            if (aboveMin && belowMax) {
+                result = result.or(byPriceBucket[i]);
+            } else {
+                CompressedBitmap edge = new CompressedBitmap();
+                byPriceBucket[i].forEach(id -> {
+                    BigDecimal price = facetsById.get(id).price();
+                    if ((minPrice == null || price.compareTo(minPrice) >= 0) && (maxPrice == null || price.compareTo(maxPrice) <= 0)) {
+                        edge.add(id);
+                    }
+                });
+                result = result.or(edge);
+            }
+        }
+        return result;
+    }
+
+    private void index(ProductResponse product) {
+        index(Math.toIntExact(product.getId()), product.getCategory(), product.getPrice(), product.getStock());
+    }
+
+    private void index(int id, String category, BigDecimal price, int stock) {
+        remove(id);
+        Facets facets = new Facets(category, price, stock, bucketOf(price));
+        facetsById.put(id, facets);
+        all.add(id);
+        byCategory.computeIfAbsent(category, key -> new CompressedBitmap()).add(id);
+        byPriceBucket[facets.bucket()].add(id);
+        if (stock > 0) {
+            inStock.add(id);
+        }
+    }
+
+    private void remove(int id) {
+        Facets facets = facetsById.remove(id);
+        if (facets == null) {
+            return;
+        }
+        all.remove(id);
+        inStock.remove(id);
+        byPriceBucket[facets.bucket()].remove(id);
+        CompressedBitmap categoryBitmap = byCategory.get(facets.category());
+        categoryBitmap.remove(id);
+        if (categoryBitmap.isEmpty()) {
+            byCategory.remove(facets.category());
+        }
+    }
+
+    private static int bucketOf(BigDecimal price) {
+        for (int i = PRICE_BOUNDS.length - 1; i > 0; i--) {
+            if (price.compareTo(PRICE_BOUNDS[i]) >= 0) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private static String bucketLabel(int bucket) {
+        String lower = PRICE_BOUNDS[bucket].toPlainString();
+        return bucket + 1 < PRICE_BOUNDS.length ? lower + "-" + PRICE_BOUNDS[bucket + 1].toPlainString() : lower + "+";
+    }
+
+    private record Facets(String category, BigDecimal price, int stock, int bucket) {
+    }
+
+    // Up to limit + 1 matching ids after the cursor, so callers can tell whether more exist
+    public record Result(int[] ids, long total, Map<String, Long> categories, Map<String, Long> priceRanges,
+                         long inStock, long outOfStock) {
+    }
+}
@@ -0,0 +1,44 @@
+package iprwc_backend.service;
+
+import org.springframework.http.MediaType;
+
+import java.util.List;
+import java.util.Locale;
+
+// File formats accepted by the product import and produced by the product and order exports
+public enum ProductFileFormat {
+
+    CSV(new MediaType("text", "csv"), "csv"),
+    NDJSON(MediaType.APPLICATION_NDJSON, "ndjson");
+
+    // CSV columns in export order; the import also accepts an optional id column
+    static final List<String> CSV_COLUMNS = List.of("name", "description", "price", "category", "image", "stock");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    ProductFileFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static ProductFileFormat of(MediaType contentType) {
+        return NDJSON.mediaType.includes(contentType) ? NDJSON : CSV;
+    }
+
+    public static ProductFileFormat of(String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported format: " + name);
+        }
+    }
+}
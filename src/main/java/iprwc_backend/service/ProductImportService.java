@@ -0,0 +1,322 @@
+package iprwc_backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import iprwc_backend.dto.request.ProductRequest;
+import iprwc_backend.dto.response.ImportRowError;
+import iprwc_backend.dto.response.ProductImportResponse;
+import iprwc_backend.entity.Product;
+import iprwc_backend.event.ProductChangedEvent;
+import iprwc_backend.repository.ProductRepository;
+import iprwc_backend.util.CsvReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Streams a CSV or NDJSON product file row by row and writes it in fixed-size JDBC batches.
+// Each batch commits on its own, so memory stays flat and one bad row never rolls back the rest.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final HotInventory hotInventory;
+
+    @Value("${catalog.import.batch-size:500}")
+    private int batchSize;
+
+    // Import products; rows with an id update that product, rows without one are inserted. A row whose id
+    // no longer exists is inserted as a new product, under a new id, since ids are generated by the database.
+    public ProductImportResponse importProducts(InputStream input, ProductFileFormat format) throws IOException {
+        long started = System.nanoTime();
+        Batch batch = new Batch();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            if (format == ProductFileFormat.CSV) {
+                readCsv(reader, batch);
+            } else {
+                readNdjson(reader, batch);
+            }
+            batch.flush();
+        } finally {
+            if (batch.inserted + batch.updated > 0) {
+                // Too many rows to patch one by one; in-memory catalog views rebuild from the database
+                eventPublisher.publishEvent(ProductChangedEvent.reloaded());
+            }
+        }
+
+        long elapsedMillis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        double rowsPerSecond = batch.rowsRead * 1000.0 / elapsedMillis;
+        log.info("Imported {} product rows ({} inserted, {} updated, {} failed) at {} rows/s",
+                batch.rowsRead, batch.inserted, batch.updated, batch.failed, Math.round(rowsPerSecond));
+        return new ProductImportResponse(
+                batch.rowsRead,
+                batch.inserted,
+                batch.updated,
+                batch.failed,
+                batch.errors,
+                elapsedMillis,
+                rowsPerSecond
+        );
+    }
+
+    private void readCsv(BufferedReader reader, Batch batch) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.next();
+        if (header == null) {
+            return;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).strip().toLowerCase(Locale.ROOT), i);
+        }
+        for (String column : ProductFileFormat.CSV_COLUMNS) {
+            if (!columns.containsKey(column)) {
+                throw new IllegalArgumentException("Missing CSV column: " + column);
+            }
+        }
+
+        long row = 0;
+        List<String> record;
+        while ((record = csv.next()) != null) {
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            row++;
+            batch.rowsRead++;
+            try {
+                ProductRequest request = new ProductRequest(
+                        field(record, columns, "name"),
+                        field(record, columns, "description"),
+                        parseOrNull(field(record, columns, "price"), BigDecimal::new),
+                        field(record, columns, "category"),
+                        field(record, columns, "image"),
+                        parseOrNull(field(record, columns, "stock"), Integer::valueOf)
+                );
+                batch.add(row, parseOrNull(field(record, columns, "id"), Long::valueOf), request);
+            } catch (NumberFormatException e) {
+                batch.reject(row, "Invalid number: " + e.getMessage());
+            }
+        }
+    }
+
+    private void readNdjson(BufferedReader reader, Batch batch) throws IOException {
+        long row = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            row++;
+            batch.rowsRead++;
+            try {
+                JsonNode node = objectMapper.readTree(line);
+                Long id = node.hasNonNull("id") ? node.get("id").asLong() : null;
+                batch.add(row, id, objectMapper.treeToValue(node, ProductRequest.class));
+            } catch (JsonProcessingException e) {
+                batch.reject(row, "Invalid JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    private static String field(List<String> record, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).strip();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static <T> T parseOrNull(String value, Function<String, T> parser) {
+        return value == null ? null : parser.apply(value);
+    }
+
+    // Pending rows of the current batch plus running totals for the whole import
+    private class Batch {
+
+        private final List<Long> insertRows = new ArrayList<>();
+        private final List<ProductRequest> inserts = new ArrayList<>();
+        private final List<Long> updateRows = new ArrayList<>();
+        private final List<Long> updateIds = new ArrayList<>();
+        private final List<ProductRequest> updates = new ArrayList<>();
+        private final List<ImportRowError> errors = new ArrayList<>();
+        private long rowsRead;
+        private long inserted;
+        private long updated;
+        private long failed;
+
+        void add(long row, Long id, ProductRequest request) {
+            Set<ConstraintViolation<ProductRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                reject(row, violations.stream()
+                        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                return;
+            }
+
+            if (id == null) {
+                insertRows.add(row);
+                inserts.add(request);
+            } else {
+                updateRows.add(row);
+                updateIds.add(id);
+                updates.add(request);
+            }
+            if (inserts.size() + updates.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void reject(long row, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportRowError(row, message));
+            }
+        }
+
+        void flush() {
+            if (inserts.isEmpty() && updates.isEmpty()) {
+                return;
+            }
+            Integer insertedCount;
+            try {
+                insertedCount = transactionTemplate.execute(status -> {
+                    skipHotStockEdits();
+                    insertMissing(productRepository.batchUpdate(updateIds, updates));
+                    return productRepository.batchInsert(inserts).length;
+                });
+            } catch (DataAccessException e) {
+                // Something in the batch was rejected by the database; retry row by row to find it
+                insertedCount = null;
+                retryIndividually();
+            }
+
+            if (insertedCount != null) {
+                inserted += insertedCount;
+                updated += updateIds.size();
+            }
+            insertRows.clear();
+            inserts.clear();
+            updateRows.clear();
+            updateIds.clear();
+            updates.clear();
+        }
+
+        private void skipHotStockEdits() {
+            List<Integer> refused = hotStockEdits(updateIds, updates);
+            for (int i = refused.size() - 1; i >= 0; i--) {
+                int index = refused.get(i);
+                rejectHot(updateRows.remove(index), updateIds.remove(index));
+                updates.remove(index);
+            }
+        }
+
+        // Positions of the updates that would change the stock of a hot product. Flash-sale stock lives in memory
+        // and only moves through orders, so like updateProduct such a row is refused; other fields of hot products
+        // are imported. Modes and product rows stay locked until the transaction ends, so neither can move before
+        // the update is written.
+        private List<Integer> hotStockEdits(List<Long> ids, List<ProductRequest> requests) {
+            Set<Long> hot = hotInventory.lockModes(ids);
+            if (hot.isEmpty()) {
+                return List.of();
+            }
+            Map<Long, Integer> stock = productRepository.findWithLockByIdInOrderByIdAsc(hot).stream()
+                    .collect(Collectors.toMap(Product::getId, Product::getStock));
+            List<Integer> refused = new ArrayList<>();
+            for (int i = 0; i < ids.size(); i++) {
+                Integer current = stock.get(ids.get(i));
+                if (current != null && !current.equals(requests.get(i).getStock())) {
+                    refused.add(i);
+                }
+            }
+            return refused;
+        }
+
+        private void rejectHot(long row, Long id) {
+            reject(row, "Stock of product " + id + " cannot be changed in hot inventory mode; disable it first");
+        }
+
+        // Updates that matched no product become inserts of the same batch
+        private void insertMissing(int[] counts) {
+            for (int i = counts.length - 1; i >= 0; i--) {
+                if (counts[i] == 0) {
+                    insertRows.add(updateRows.remove(i));
+                    inserts.add(updates.remove(i));
+                    updateIds.remove(i);
+                }
+            }
+        }
+
+        private void retryIndividually() {
+            for (int i = 0; i < inserts.size(); i++) {
+                List<ProductRequest> single = List.of(inserts.get(i));
+                try {
+                    transactionTemplate.executeWithoutResult(status -> productRepository.batchInsert(single));
+                    inserted++;
+                } catch (DataAccessException e) {
+                    reject(insertRows.get(i), NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+                }
+            }
+            for (int i = 0; i < updates.size(); i++) {
+                try {
+                    updateIndividually(updateRows.get(i), updateIds.get(i), updates.get(i));
+                } catch (DataAccessException e) {
+                    reject(updateRows.get(i), NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+                }
+            }
+        }
+
+        private void updateIndividually(long row, Long id, ProductRequest request) {
+            List<Long> ids = List.of(id);
+            List<ProductRequest> single = List.of(request);
+            int count = transactionTemplate.execute(status -> {
+                if (!hotStockEdits(ids, single).isEmpty()) {
+                    return -1;
+                }
+                int updatedCount = productRepository.batchUpdate(ids, single)[0];
+                if (updatedCount == 0) {
+                    productRepository.batchInsert(single);
+                }
+                return updatedCount;
+            });
+            if (count < 0) {
+                rejectHot(row, id);
+            } else if (count == 0) {
+                inserted++;
+            } else {
+                updated++;
+            }
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package iprwc_backend.service;
+
+import iprwc_backend.dto.response.ProductResponse;
+import iprwc_backend.entity.Product;
+import iprwc_backend.event.ProductChangedEvent;
+import iprwc_backend.repository.ProductRepository;
+import iprwc_backend.util.TextAnalyzer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-memory inverted index over product name, category and description with BM25 ranking.
+// Built from the database on first use and kept current from ProductChangedEvents.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductSearchIndex {
+
+    // Field boosts: a hit in the name outweighs the same hit in a long description
+    private static final float NAME_BOOST = 3f;
+    private static final float CATEGORY_BOOST = 2f;
+    private static final float DESCRIPTION_BOOST = 1f;
+
+    // BM25 parameters
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Expanded terms score lower than exact ones
+    private static final double PREFIX_WEIGHT = 0.8;
+    private static final double FUZZY_WEIGHT = 0.6;
+    private static final double MIN_TRIGRAM_OVERLAP = 0.4;
+    private static final int MAX_EXPANSIONS = 8;
+
+    private final ProductRepository productRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Map<Long, Float>> postings = new HashMap<>();
+    private final NavigableSet<String> vocabulary = new TreeSet<>();
+    private final Map<String, Set<String>> termsByTrigram = new HashMap<>();
+    private final Map<Long, Map<String, Float>> documents = new HashMap<>();
+    private final Map<Long, Float> documentLengths = new HashMap<>();
+    private double totalLength;
+    private volatile boolean built;
+
+    // Events that arrive while a build reads the database, replayed once it is done; guarded by itself
+    private final List<ProductChangedEvent> eventsDuringBuild = new ArrayList<>();
+    private boolean building;
+
+    // Ids of the best matching products, highest score first
+    public List<Long> search(String query, int limit) {
+        ensureBuilt();
+        List<String> terms = TextAnalyzer.analyze(query);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int documentCount = documents.size();
+            if (documentCount == 0) {
+                return List.of();
+            }
+            double averageLength = totalLength / documentCount;
+
+            Map<Long, Double> scores = new HashMap<>();
+            for (int i = 0; i < terms.size(); i++) {
+                // The last term is usually still being typed, so it also matches as a prefix
+                boolean lastTerm = i == terms.size() - 1;
+                for (Map.Entry<String, Double> expansion : expand(terms.get(i), lastTerm).entrySet()) {
+                    Map<Long, Float> matches = postings.get(expansion.getKey());
+                    double idf = Math.log(1 + (documentCount - matches.size() + 0.5) / (matches.size() + 0.5));
+                    for (Map.Entry<Long, Float> match : matches.entrySet()) {
+                        double tf = match.getValue();
+                        double norm = K1 * (1 - B + B * documentLengths.get(match.getKey()) / averageLength);
+                        double score = idf * tf * (K1 + 1) / (tf + norm) * expansion.getValue();
+                        scores.merge(match.getKey(), score, Double::sum);
+                    }
+                }
+            }
+            return topScores(scores, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getType() == ProductChangedEvent.ChangeType.STOCK) {
+            return;
+        }
+        synchronized (eventsDuringBuild) {
+            if (building) {
+                eventsDuringBuild.add(event);
+                return;
+            }
+            // Not built yet: the next build reads the database after this commit
+            if (!built) {
+                return;
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            if (built) {
+                apply(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureBuilt() {
+        if (built) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (built) {
+                return;
+            }
+            synchronized (eventsDuringBuild) {
+                building = true;
+            }
+            try {
+                for (Product product : productRepository.findAll()) {
+                    index(ProductService.convertToResponse(product));
+                }
+                built = true;
+            } finally {
+                // A change committed while findAll ran may be missing from what it read, so every event
+                // queued since the build started is applied on top; a reload discards the build again
+                synchronized (eventsDuringBuild) {
+                    for (ProductChangedEvent event : eventsDuringBuild) {
+                        if (!built) {
+                            break;
+                        }
+                        apply(event);
+                    }
+                    eventsDuringBuild.clear();
+                    building = false;
+                }
+                if (!built) {
+                    clear();
+                }
+            }
+            if (built) {
+                log.info("Built product search index with {} products and {} terms", documents.size(), postings.size());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Callers hold the write lock
+    private void apply(ProductChangedEvent event) {
+        switch (event.getType()) {
+            case DELETED -> remove(event.getProductId());
+            case RELOADED -> clear();
+            default -> index(event.getProduct());
+        }
+    }
+
+    // Drop everything; the next search rebuilds from the database
+    private void clear() {
+        postings.clear();
+        vocabulary.clear();
+        termsByTrigram.clear();
+        documents.clear();
+        documentLengths.clear();
+        totalLength = 0;
+        built = false;
+    }
+
+    // Exact term, prefix completions and close spellings, each with a score weight
+    private Map<String, Double> expand(String term, boolean prefix) {
+        Map<String, Double> expansions = new LinkedHashMap<>();
+        if (postings.containsKey(term)) {
+            expansions.put(term, 1.0);
+        }
+
+        if (prefix) {
+            for (String candidate : vocabulary.subSet(term, false, term + Character.MAX_VALUE, false)) {
+                if (expansions.size() >= MAX_EXPANSIONS) {
+                    break;
+                }
+                expansions.put(candidate, PREFIX_WEIGHT);
+            }
+        }
+
+        if (expansions.isEmpty()) {
+            for (String candidate : fuzzyCandidates(term)) {
+                expansions.put(candidate, FUZZY_WEIGHT);
+            }
+        }
+        return expansions;
+    }
+
+    private List<String> fuzzyCandidates(String term) {
+        List<String> grams = TextAnalyzer.trigrams(term);
+        Map<String, Integer> shared = new HashMap<>();
+        for (String gram : new HashSet<>(grams)) {
+            for (String candidate : termsByTrigram.getOrDefault(gram, Set.of())) {
+                shared.merge(candidate, 1, Integer::sum);
+            }
+        }
+
+        int maxDistance = term.length() <= 4 ? 1 : 2;
+        List<String> candidates = new ArrayList<>();
+        shared.entrySet().stream()
+                .filter(entry -> (double) entry.getValue() / grams.size() >= MIN_TRIGRAM_OVERLAP)
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .map(Map.Entry::getKey)
+                .filter(candidate -> TextAnalyzer.editDistance(term, candidate, maxDistance) <= maxDistance)
+                .limit(MAX_EXPANSIONS)
+                .forEach(candidates::add);
+        return candidates;
+    }
+
+    private static List<Long> topScores(Map<Long, Double> scores, int limit) {
+        Comparator<Map.Entry<Long, Double>> byScore = Map.Entry.<Long, Double>comparingByValue()
+                .thenComparing(Map.Entry.<Long, Double>comparingByKey().reversed());
+        PriorityQueue<Map.Entry<Long, Double>> top = new PriorityQueue<>(byScore);
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            top.add(entry);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        List<Long> ids = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            ids.add(top.poll().getKey());
+        }
+        return ids.reversed();
+    }
+
+    private void index(ProductResponse product) {
+        remove(product.getId());
+
+        Map<String, Float> frequencies = new HashMap<>();
+        addField(frequencies, product.getName(), NAME_BOOST);
+        addField(frequencies, product.getCategory(), CATEGORY_BOOST);
+        addField(frequencies, product.getDescription(), DESCRIPTION_BOOST);
+
+        float length = 0;
+        for (Map.Entry<String, Float> entry : frequencies.entrySet()) {
+            length += entry.getValue();
+            postings.computeIfAbsent(entry.getKey(), this::addTerm).put(product.getId(), entry.getValue());
+        }
+        documents.put(product.getId(), frequencies);
+        documentLengths.put(product.getId(), length);
+        totalLength += length;
+    }
+
+    private void remove(Long productId) {
+        Map<String, Float> frequencies = documents.remove(productId);
+        if (frequencies == null) {
+            return;
+        }
+        totalLength -= documentLengths.remove(productId);
+        for (String term : frequencies.keySet()) {
+            Map<Long, Float> matches = postings.get(term);
+            matches.remove(productId);
+            if (matches.isEmpty()) {
+                postings.remove(term);
+                removeTerm(term);
+            }
+        }
+    }
+
+    private static void addField(Map<String, Float> frequencies, String text, float boost) {
+        for (String term : TextAnalyzer.analyze(text)) {
+            frequencies.merge(term, boost, Float::sum);
+        }
+    }
+
+    private Map<Long, Float> addTerm(String term) {
+        vocabulary.add(term);
+        for (String gram : TextAnalyzer.trigrams(term)) {
+            termsByTrigram.computeIfAbsent(gram, key -> new HashSet<>()).add(term);
+        }
+        return new HashMap<>();
+    }
+
+    private void removeTerm(String term) {
+        vocabulary.remove(term);
+        for (String gram : TextAnalyzer.trigrams(term)) {
+            Set<String> terms = termsByTrigram.get(gram);
+            if (terms != null) {
+                terms.remove(term);
+                if (terms.isEmpty()) {
+                    termsByTrigram.remove(gram);
+                }
+            }
+        }
+    }
+}
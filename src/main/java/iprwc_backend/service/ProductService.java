@@ -1,15 +1,33 @@
 package iprwc_backend.service;
 
 import iprwc_backend.dto.request.ProductRequest;
+import iprwc_backend.dto.response.CursorPage;
+import iprwc_backend.dto.response.ProductFilterResponse;
 import iprwc_backend.dto.response.ProductResponse;
+import iprwc_backend.dto.response.ProductSummaryResponse;
+import iprwc_backend.dto.response.SuggestionResponse;
+import iprwc_backend.dto.response.CacheStatsResponse;
+import iprwc_backend.dto.response.HotInventoryResponse;
 import iprwc_backend.entity.Product;
+import iprwc_backend.event.ProductChangedEvent;
 import iprwc_backend.exception.ResourceNotFoundException;
 import iprwc_backend.repository.ProductRepository;
+import iprwc_backend.util.CursorCodec;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -17,39 +35,191 @@ import java.util.stream.Collectors;
 @Transactional
 public class ProductService {
 
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+    public static final int DEFAULT_SEARCH_LIMIT = 50;
+
     private final ProductRepository productRepository;
+    // Reads are served from here when possible; they use SUPPORTS so a cache hit never borrows a connection
+    private final ProductCatalogCache catalogCache;
+    private final ProductSearchIndex searchIndex;
+    private final ProductSuggester suggester;
+    private final ProductFacetIndex facetIndex;
+    private final CatalogVersion catalogVersion;
+    private final HotInventory hotInventory;
+    private final ApplicationEventPublisher eventPublisher;
 
     // Get all products
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<ProductResponse> getAllProducts() {
+        ProductCatalogCache.Snapshot snapshot = catalogCache.snapshot();
+        if (snapshot != null) {
+            return snapshot.getAll();
+        }
         return productRepository.findAll().stream()
-                .map(this::convertToResponse)
+                .map(ProductService::convertToResponse)
+                .collect(Collectors.toList());
+    }
+
+    // Get all products as summaries
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<ProductSummaryResponse> getAllProductSummaries() {
+        ProductCatalogCache.Snapshot snapshot = catalogCache.snapshot();
+        if (snapshot != null) {
+            return convertToSummaries(snapshot.getAll());
+        }
+        return productRepository.findAllSummaries();
+    }
+
+    // Get a page of products ordered by id, starting after the cursor
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public CursorPage<ProductResponse> getProductsPage(String cursor, Integer size) {
+        int pageSize = resolvePageSize(size);
+        long afterId = decodeCursor(cursor);
+
+        // Fetch one extra row to find out whether another page exists
+        ProductCatalogCache.Snapshot snapshot = catalogCache.snapshot();
+        if (snapshot != null) {
+            return toPage(snapshot.after(afterId, pageSize + 1), pageSize, ProductResponse::getId);
+        }
+        List<ProductResponse> products = productRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(pageSize + 1))
+                .stream()
+                .map(ProductService::convertToResponse)
                 .collect(Collectors.toList());
+        return toPage(products, pageSize, ProductResponse::getId);
+    }
+
+    // Get a page of product summaries ordered by id, starting after the cursor
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public CursorPage<ProductSummaryResponse> getProductSummariesPage(String cursor, Integer size) {
+        int pageSize = resolvePageSize(size);
+        long afterId = decodeCursor(cursor);
+
+        ProductCatalogCache.Snapshot snapshot = catalogCache.snapshot();
+        if (snapshot != null) {
+            return toPage(convertToSummaries(snapshot.after(afterId, pageSize + 1)), pageSize, ProductSummaryResponse::getId);
+        }
+        List<ProductSummaryResponse> summaries = productRepository.findSummariesAfter(afterId, Limit.of(pageSize + 1));
+        return toPage(summaries, pageSize, ProductSummaryResponse::getId);
     }
 
     // Get product by ID
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public ProductResponse getProductById(Long id) {
+        ProductCatalogCache.Snapshot snapshot = catalogCache.snapshot();
+        if (snapshot != null) {
+            ProductResponse cached = snapshot.get(id);
+            if (cached != null) {
+                return cached;
+            }
+            // The snapshot trails commits by a moment, so a product created just now is looked up below
+        }
+
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
         return convertToResponse(product);
     }
 
     // Get products by category
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<ProductResponse> getProductsByCategory(String category) {
+        ProductCatalogCache.Snapshot snapshot = catalogCache.snapshot();
+        if (snapshot != null) {
+            return snapshot.getByCategory(category);
+        }
         return productRepository.findByCategory(category).stream()
-                .map(this::convertToResponse)
+                .map(ProductService::convertToResponse)
                 .collect(Collectors.toList());
     }
 
+    // Get product summaries by category
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<ProductSummaryResponse> getProductSummariesByCategory(String category) {
+        ProductCatalogCache.Snapshot snapshot = catalogCache.snapshot();
+        if (snapshot != null) {
+            return convertToSummaries(snapshot.getByCategory(category));
+        }
+        return productRepository.findSummariesByCategory(category);
+    }
+
     // Get all categories
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<String> getAllCategories() {
+        ProductCatalogCache.Snapshot snapshot = catalogCache.snapshot();
+        if (snapshot != null) {
+            return snapshot.getCategories();
+        }
         return productRepository.findAllCategories();
     }
 
-    // Search products by name
-    public List<ProductResponse> searchProducts(String keyword) {
-        return productRepository.findByNameContainingIgnoreCase(keyword).stream()
-                .map(this::convertToResponse)
+    // Search products by name, category and description, best match first
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<ProductResponse> searchProducts(String keyword, Integer limit) {
+        return resolveProducts(searchIds(keyword, limit));
+    }
+
+    // Search products, returning summaries
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<ProductSummaryResponse> searchProductSummaries(String keyword, Integer limit) {
+        return resolveSummaries(searchIds(keyword, limit));
+    }
+
+    // Get product summaries by id, keeping the order of the ids; unknown ids are left out
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<ProductSummaryResponse> getProductSummaries(List<Long> ids) {
+        return resolveSummaries(ids);
+    }
+
+    // Filter by category, price range and stock, with facet counts
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public ProductFilterResponse<ProductResponse> filterProducts(List<String> categories, BigDecimal minPrice, BigDecimal maxPrice,
+                                                                 Boolean inStock, String cursor, Integer size) {
+        return filter(categories, minPrice, maxPrice, inStock, cursor, size, this::resolveProducts);
+    }
+
+    // Filter products, returning summaries
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public ProductFilterResponse<ProductSummaryResponse> filterProductSummaries(List<String> categories, BigDecimal minPrice,
+                                                                                BigDecimal maxPrice, Boolean inStock,
+                                                                                String cursor, Integer size) {
+        return filter(categories, minPrice, maxPrice, inStock, cursor, size, this::resolveSummaries);
+    }
+
+    private List<Long> searchIds(String keyword, Integer limit) {
+        return searchIndex.search(keyword, limit == null ? DEFAULT_SEARCH_LIMIT : resolvePageSize(limit));
+    }
+
+    private <T> ProductFilterResponse<T> filter(List<String> categories, BigDecimal minPrice, BigDecimal maxPrice,
+                                                Boolean inStock, String cursor, Integer size,
+                                                Function<List<Long>, List<T>> resolver) {
+        int pageSize = resolvePageSize(size);
+        long afterId = decodeCursor(cursor);
+        ProductFacetIndex.Result result = facetIndex.filter(categories, minPrice, maxPrice, inStock, afterId, pageSize);
+
+        boolean hasMore = result.ids().length > pageSize;
+        List<Long> ids = Arrays.stream(result.ids())
+                .limit(pageSize)
+                .mapToObj(Long::valueOf)
                 .collect(Collectors.toList());
+        String nextCursor = hasMore ? CursorCodec.encode(ids.get(ids.size() - 1)) : null;
+
+        return new ProductFilterResponse<>(
+                resolver.apply(ids),
+                nextCursor,
+                hasMore,
+                result.total(),
+                result.categories(),
+                result.priceRanges(),
+                result.inStock(),
+                result.outOfStock()
+        );
+    }
+
+    // Typeahead completions for product names and categories
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<SuggestionResponse> suggest(String prefix, Integer limit) {
+        int max = limit == null || limit < 1 ? ProductSuggester.MAX_SUGGESTIONS : limit;
+        return suggester.suggest(prefix, max);
     }
 
     // Create product
@@ -63,13 +233,18 @@ public class ProductService {
         product.setStock(request.getStock());
 
         Product savedProduct = productRepository.save(product);
-        return convertToResponse(savedProduct);
+        ProductResponse response = convertToResponse(savedProduct);
+        eventPublisher.publishEvent(ProductChangedEvent.created(response));
+        return response;
     }
 
     // Update product
     public ProductResponse updateProduct(Long id, ProductRequest request) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
+        if (hotInventory.isHot(id) && !product.getStock().equals(request.getStock())) {
+            throw new RuntimeException("Stock of a product in hot inventory mode cannot be changed; disable it first");
+        }
 
         product.setName(request.getName());
         product.setDescription(request.getDescription());
@@ -79,7 +254,9 @@ public class ProductService {
         product.setStock(request.getStock());
 
         Product updatedProduct = productRepository.save(product);
-        return convertToResponse(updatedProduct);
+        ProductResponse response = convertToResponse(updatedProduct);
+        eventPublisher.publishEvent(ProductChangedEvent.updated(response));
+        return response;
     }
 
     // Delete product
@@ -87,18 +264,148 @@ public class ProductService {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
         productRepository.delete(product);
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
     }
 
     // Update stock
     public void updateStock(Long productId, Integer quantity) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
-        product.setStock(product.getStock() - quantity);
-        productRepository.save(product);
+        if (!productRepository.existsById(productId)) {
+            throw new ResourceNotFoundException("Product not found with id: " + productId);
+        }
+        reserveStock(new TreeMap<>(Map.of(productId, quantity)));
+    }
+
+    // Take stock for several products at once, all or nothing. Products are updated in id order
+    // so concurrent orders lock rows in the same order and cannot deadlock.
+    public void reserveStock(SortedMap<Long, Integer> quantities) {
+        // Flash-sale products are reserved in memory; their stock events follow when the sales are written back
+        HotInventory.Reservation reservation = hotInventory.reserve(quantities);
+        if (reservation.shortProductId() != null) {
+            throw insufficientStock(reservation.shortProductId());
+        }
+
+        SortedMap<Long, Integer> databaseQuantities = reservation.databaseQuantities();
+        if (databaseQuantities.isEmpty()) {
+            return;
+        }
+        int[] counts = productRepository.batchDecrementStock(databaseQuantities);
+        int index = 0;
+        for (Long productId : databaseQuantities.keySet()) {
+            if (counts[index++] == 0) {
+                // Thrown inside the transaction, so the decrements that did succeed are rolled back
+                throw insufficientStock(productId);
+            }
+        }
+        databaseQuantities.forEach((productId, quantity) ->
+                eventPublisher.publishEvent(ProductChangedEvent.stock(productId, -quantity)));
+    }
+
+    // Flash-sale products currently in hot inventory mode
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<HotInventoryResponse> getHotInventory() {
+        return hotInventory.getStatus();
+    }
+
+    // Keep a product's stock in memory while it is on flash sale; manages its own transactions
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public HotInventoryResponse enableHotInventory(Long id) {
+        return hotInventory.enable(id);
+    }
+
+    // Write back a flash-sale product's stock and return it to normal mode
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void disableHotInventory(Long id) {
+        hotInventory.disable(id);
+    }
+
+    // Current catalog ETag and Last-Modified time, or null while reads go to the database
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public CatalogVersion.Tag getCatalogTag() {
+        return catalogVersion.current();
+    }
+
+    // Get catalog cache statistics
+    public CacheStatsResponse getCatalogCacheStats() {
+        return catalogCache.getStats();
+    }
+
+    // Look up products by id, keeping the order of the ids
+    private List<ProductResponse> resolveProducts(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        ProductCatalogCache.Snapshot snapshot = catalogCache.snapshot();
+        if (snapshot != null) {
+            return ids.stream()
+                    .map(snapshot::get)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+        }
+
+        Map<Long, Product> products = productRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        return ids.stream()
+                .map(products::get)
+                .filter(Objects::nonNull)
+                .map(ProductService::convertToResponse)
+                .collect(Collectors.toList());
+    }
+
+    // Look up product summaries by id, keeping the order of the ids
+    private List<ProductSummaryResponse> resolveSummaries(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        ProductCatalogCache.Snapshot snapshot = catalogCache.snapshot();
+        if (snapshot != null) {
+            return ids.stream()
+                    .map(snapshot::get)
+                    .filter(Objects::nonNull)
+                    .map(ProductService::convertToSummary)
+                    .collect(Collectors.toList());
+        }
+
+        Map<Long, ProductSummaryResponse> summaries = productRepository.findSummariesByIdIn(ids).stream()
+                .collect(Collectors.toMap(ProductSummaryResponse::getId, Function.identity()));
+        return ids.stream()
+                .map(summaries::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private static long decodeCursor(String cursor) {
+        return cursor == null || cursor.isBlank() ? 0L : CursorCodec.decodeId(cursor);
+    }
+
+    // Trim a list fetched with one extra row to a page, with a cursor when more rows exist
+    private static <T> CursorPage<T> toPage(List<T> rows, int pageSize, Function<T, Long> idOf) {
+        boolean hasMore = rows.size() > pageSize;
+        List<T> items = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasMore ? CursorCodec.encode(idOf.apply(items.get(items.size() - 1))) : null;
+        return new CursorPage<>(items, nextCursor, hasMore);
+    }
+
+    private RuntimeException insufficientStock(Long productId) {
+        return insufficientStock(productRepository.findById(productId).map(Product::getName).orElse(String.valueOf(productId)));
+    }
+
+    // Shared with the group-commit pipeline, so both checkout paths report a short product the same way
+    static RuntimeException insufficientStock(String productName) {
+        return new RuntimeException("Insufficient stock for product: " + productName);
+    }
+
+    // Clamp a requested page size to the allowed range
+    public static int resolvePageSize(Integer size) {
+        if (size == null || size < 1) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
     }
 
     // Convert entity to response DTO
-    private ProductResponse convertToResponse(Product product) {
+    static ProductResponse convertToResponse(Product product) {
         return new ProductResponse(
                 product.getId(),
                 product.getName(),
@@ -111,4 +418,22 @@ public class ProductService {
                 product.getUpdatedAt()
         );
     }
+
+    private static List<ProductSummaryResponse> convertToSummaries(List<ProductResponse> products) {
+        return products.stream()
+                .map(ProductService::convertToSummary)
+                .collect(Collectors.toList());
+    }
+
+    // Summary of an already converted product, used when serving from the catalog cache
+    static ProductSummaryResponse convertToSummary(ProductResponse product) {
+        return new ProductSummaryResponse(
+                product.getId(),
+                product.getName(),
+                product.getPrice(),
+                product.getCategory(),
+                product.getImage(),
+                product.getStock()
+        );
+    }
 }
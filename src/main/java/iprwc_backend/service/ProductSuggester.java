@@ -0,0 +1,420 @@
+package iprwc_backend.service;
+
+import iprwc_backend.dto.response.OrderItemResponse;
+import iprwc_backend.dto.response.OrderResponse;
+import iprwc_backend.dto.response.SuggestionResponse;
+import iprwc_backend.entity.Product;
+import iprwc_backend.event.OrderChangedEvent;
+import iprwc_backend.event.ProductChangedEvent;
+import iprwc_backend.repository.OrderItemRepository;
+import iprwc_backend.repository.ProductRepository;
+import iprwc_backend.util.TextAnalyzer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Typeahead over product names and categories, ranked by units sold.
+// Completions live in one sorted set, so every prefix maps to a contiguous range. Prefixes up to
+// TOP_PREFIX_LENGTH characters, whose ranges span most of the catalog, keep their top completions and are
+// answered without a scan; their tops are updated in place as weights grow, and only rescanned when a
+// completion in them is removed or loses weight. Longer prefixes scan their range, which is narrow. Built from
+// the database on first use, then maintained in place: a product change only replaces that product's
+// completions and its category's, and created orders reweigh the products they contain.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductSuggester {
+
+    public static final int MAX_SUGGESTIONS = 10;
+
+    // Prefixes up to this length keep their top completions, longer ones scan their range
+    private static final int TOP_PREFIX_LENGTH = 4;
+
+    // Only the first few words of a name are indexed as completion starts
+    private static final int MAX_WORD_STARTS = 6;
+
+    private static final byte PRODUCT = 0;
+    private static final byte CATEGORY = 1;
+
+    // Weight is left out, so a completion can be found again without knowing it
+    private static final Comparator<Completion> ORDER = Comparator.comparing(Completion::key)
+            .thenComparingInt(Completion::type)
+            .thenComparingLong(Completion::productId)
+            .thenComparing(Completion::text);
+
+    // Heaviest first; ties are broken by target, so a top kept in place matches a rescan
+    private static final Comparator<Completion> RANK = Comparator.comparingLong(Completion::weight).reversed()
+            .thenComparingInt(Completion::type)
+            .thenComparingLong(Completion::productId)
+            .thenComparing(Completion::text);
+
+    private final ProductRepository productRepository;
+    private final OrderItemRepository orderItemRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableSet<Completion> completions = new TreeSet<>(ORDER);
+    private final Map<Long, Indexed> products = new HashMap<>();
+    private final Map<String, Category> categories = new HashMap<>();
+    private final Map<Long, Long> unitsSold = new HashMap<>();
+    // Top completions of every prefix up to TOP_PREFIX_LENGTH, distinct by target and ordered by RANK
+    private final Map<String, List<Completion>> topByPrefix = new HashMap<>();
+    private volatile boolean built;
+
+    // Product events that arrive while a build reads the database, replayed once it is done; guarded by itself
+    private final List<ProductChangedEvent> eventsDuringBuild = new ArrayList<>();
+    private boolean building;
+
+    public List<SuggestionResponse> suggest(String prefix, int limit) {
+        String normalized = TextAnalyzer.normalize(prefix.strip());
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        ensureBuilt();
+        lock.readLock().lock();
+        try {
+            List<Completion> best = top(normalized);
+            int max = Math.min(limit, MAX_SUGGESTIONS);
+            List<SuggestionResponse> suggestions = new ArrayList<>(Math.min(max, best.size()));
+            for (int i = 0; i < best.size() && suggestions.size() < max; i++) {
+                Completion completion = best.get(i);
+                suggestions.add(new SuggestionResponse(
+                        completion.text(),
+                        completion.type() == PRODUCT ? "PRODUCT" : "CATEGORY",
+                        completion.type() == PRODUCT ? completion.productId() : null
+                ));
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getType() == ProductChangedEvent.ChangeType.STOCK) {
+            return;
+        }
+        synchronized (eventsDuringBuild) {
+            if (building) {
+                eventsDuringBuild.add(event);
+                return;
+            }
+            // Not built yet: the next build reads the database after this commit
+            if (!built) {
+                return;
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            if (built) {
+                apply(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Orders created while unbuilt or building are left to the build or the next popularity refresh
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        if (event.getType() != OrderChangedEvent.ChangeType.CREATED || !built) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!built) {
+                return;
+            }
+            for (OrderResponse order : event.getOrders()) {
+                if (order.getItems() == null) {
+                    continue;
+                }
+                for (OrderItemResponse item : order.getItems()) {
+                    long productId = item.getProduct() != null ? item.getProduct().getId() : item.getProductId();
+                    setUnitsSold(productId, unitsSold.getOrDefault(productId, 0L) + item.getQuantity());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Catches up with orders whose events were missed; units sold only grow, so a count read
+    // before an order event was applied never takes that order back
+    @Scheduled(fixedDelayString = "${catalog.suggest.popularity-refresh-interval:PT1H}")
+    public void refreshPopularity() {
+        if (!built) {
+            return;
+        }
+        Map<Long, Long> sold = loadUnitsSold();
+        lock.writeLock().lock();
+        try {
+            if (!built) {
+                return;
+            }
+            sold.forEach((productId, units) -> setUnitsSold(productId, Math.max(units, unitsSold.getOrDefault(productId, 0L))));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureBuilt() {
+        if (built) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (built) {
+                return;
+            }
+            synchronized (eventsDuringBuild) {
+                building = true;
+            }
+            try {
+                unitsSold.putAll(loadUnitsSold());
+                for (Product product : productRepository.findAll()) {
+                    put(product.getId(), product.getName(), product.getCategory());
+                }
+                built = true;
+            } finally {
+                // A change committed while findAll ran may be missing from what it read, so every event
+                // queued since the build started is applied on top; a reload discards the build again
+                synchronized (eventsDuringBuild) {
+                    for (ProductChangedEvent event : eventsDuringBuild) {
+                        if (!built) {
+                            break;
+                        }
+                        apply(event);
+                    }
+                    eventsDuringBuild.clear();
+                    building = false;
+                }
+                if (!built) {
+                    clear();
+                }
+            }
+            if (built) {
+                log.info("Built product suggestions with {} products and {} completions", products.size(), completions.size());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Callers hold the write lock
+    private void apply(ProductChangedEvent event) {
+        switch (event.getType()) {
+            case CREATED, UPDATED -> put(event.getProductId(), event.getProduct().getName(), event.getProduct().getCategory());
+            case DELETED -> remove(event.getProductId());
+            case RELOADED -> clear();
+            case STOCK -> {
+            }
+        }
+    }
+
+    // Drop everything; the next suggestion rebuilds from the database
+    private void clear() {
+        completions.clear();
+        products.clear();
+        categories.clear();
+        unitsSold.clear();
+        topByPrefix.clear();
+        built = false;
+    }
+
+    private Map<Long, Long> loadUnitsSold() {
+        Map<Long, Long> sold = new HashMap<>();
+        for (Object[] row : orderItemRepository.findUnitsSoldByProduct()) {
+            sold.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+        }
+        return sold;
+    }
+
+    private void setUnitsSold(long productId, long units) {
+        unitsSold.put(productId, units);
+        Indexed product = products.get(productId);
+        if (product == null || product.weight() == 1 + units) {
+            return;
+        }
+        if (product.weight() < 1 + units) {
+            raise(productId, product, 1 + units);
+        } else {
+            put(productId, product.name(), product.category());
+        }
+    }
+
+    private void put(long productId, String name, String category) {
+        remove(productId);
+        long weight = 1 + unitsSold.getOrDefault(productId, 0L);
+        products.put(productId, new Indexed(name, category, weight));
+        for (String key : wordStarts(name)) {
+            add(new Completion(key, name, PRODUCT, productId, weight));
+        }
+        addToCategory(category, weight, 1);
+    }
+
+    private void remove(long productId) {
+        Indexed product = products.remove(productId);
+        if (product == null) {
+            return;
+        }
+        for (String key : wordStarts(product.name())) {
+            remove(new Completion(key, product.name(), PRODUCT, productId, product.weight()));
+        }
+        addToCategory(product.category(), -product.weight(), -1);
+    }
+
+    // A product got heavier: move its completions and its category's up without rescanning any range
+    private void raise(long productId, Indexed product, long weight) {
+        products.put(productId, new Indexed(product.name(), product.category(), weight));
+        for (String key : wordStarts(product.name())) {
+            raise(new Completion(key, product.name(), PRODUCT, productId, weight));
+        }
+        addToCategory(product.category(), weight - product.weight(), 0);
+    }
+
+    // A category weighs as much as its products together and is suggested while it has any
+    private void addToCategory(String displayName, long weight, int productCount) {
+        String key = TextAnalyzer.normalize(displayName);
+        Category current = categories.remove(key);
+        Category updated = current == null
+                ? new Category(displayName, weight, productCount)
+                : new Category(current.displayName(), current.weight() + weight, current.products() + productCount);
+        if (current != null && updated.products() > 0 && weight >= 0) {
+            categories.put(key, updated);
+            raise(new Completion(key, updated.displayName(), CATEGORY, -1, updated.weight()));
+            return;
+        }
+        if (current != null) {
+            remove(new Completion(key, current.displayName(), CATEGORY, -1, current.weight()));
+        }
+        if (updated.products() > 0) {
+            categories.put(key, updated);
+            add(new Completion(key, updated.displayName(), CATEGORY, -1, updated.weight()));
+        }
+    }
+
+    private void add(Completion completion) {
+        completions.add(completion);
+        for (String prefix : topPrefixes(completion.key())) {
+            offer(topByPrefix.computeIfAbsent(prefix, key -> new ArrayList<>(MAX_SUGGESTIONS)), completion);
+        }
+    }
+
+    // Replace a completion with a heavier one for the same target; the tops it was in only move it up
+    private void raise(Completion completion) {
+        // The set orders without weight, so the lighter completion has to go before the heavier one is added
+        completions.remove(completion);
+        completions.add(completion);
+        for (String prefix : topPrefixes(completion.key())) {
+            List<Completion> top = topByPrefix.computeIfAbsent(prefix, key -> new ArrayList<>(MAX_SUGGESTIONS));
+            top.removeIf(kept -> kept.sameTarget(completion));
+            offer(top, completion);
+        }
+    }
+
+    // Tops that held the target lose an entry and are filled again from their range
+    private void remove(Completion completion) {
+        completions.remove(completion);
+        for (String prefix : topPrefixes(completion.key())) {
+            List<Completion> top = topByPrefix.get(prefix);
+            if (top != null && top.stream().anyMatch(kept -> kept.sameTarget(completion))) {
+                List<Completion> rescanned = scan(prefix);
+                if (rescanned.isEmpty()) {
+                    topByPrefix.remove(prefix);
+                } else {
+                    topByPrefix.put(prefix, rescanned);
+                }
+            }
+        }
+    }
+
+    // Heaviest distinct completions starting with the prefix, heaviest first; callers hold a lock
+    private List<Completion> top(String prefix) {
+        if (prefix.length() <= TOP_PREFIX_LENGTH) {
+            return topByPrefix.getOrDefault(prefix, List.of());
+        }
+        return scan(prefix);
+    }
+
+    private List<Completion> scan(String prefix) {
+        List<Completion> best = new ArrayList<>(MAX_SUGGESTIONS);
+        for (Completion completion : completions.subSet(probe(prefix), probe(prefix + Character.MAX_VALUE))) {
+            offer(best, completion);
+        }
+        return best;
+    }
+
+    // Keeps best ordered by RANK, at most MAX_SUGGESTIONS long and free of duplicate targets
+    private static void offer(List<Completion> best, Completion completion) {
+        for (Completion kept : best) {
+            if (kept.sameTarget(completion)) {
+                return;
+            }
+        }
+        if (best.size() < MAX_SUGGESTIONS) {
+            best.add(completion);
+        } else if (RANK.compare(completion, best.getLast()) < 0) {
+            best.set(best.size() - 1, completion);
+        } else {
+            return;
+        }
+        // Bubble the new entry into place
+        for (int i = best.size() - 1; i > 0 && RANK.compare(best.get(i), best.get(i - 1)) < 0; i--) {
+            best.set(i, best.set(i - 1, best.get(i)));
+        }
+    }
+
+    // Prefixes of the key that keep a top
+    private static List<String> topPrefixes(String key) {
+        List<String> prefixes = new ArrayList<>(TOP_PREFIX_LENGTH);
+        for (int length = 1; length <= Math.min(key.length(), TOP_PREFIX_LENGTH); length++) {
+            prefixes.add(key.substring(0, length));
+        }
+        return prefixes;
+    }
+
+    // Sorts before every completion whose key is not smaller
+    private static Completion probe(String key) {
+        return new Completion(key, "", Byte.MIN_VALUE, Long.MIN_VALUE, 0);
+    }
+
+    // The normalized name from each of its first word starts on
+    private static List<String> wordStarts(String displayName) {
+        String name = TextAnalyzer.normalize(displayName);
+        List<String> keys = new ArrayList<>(MAX_WORD_STARTS);
+        for (int i = 0; i < name.length() && keys.size() < MAX_WORD_STARTS; i++) {
+            boolean wordStart = Character.isLetterOrDigit(name.charAt(i))
+                    && (i == 0 || !Character.isLetterOrDigit(name.charAt(i - 1)));
+            if (wordStart) {
+                keys.add(name.substring(i));
+            }
+        }
+        return keys;
+    }
+
+    private record Indexed(String name, String category, long weight) {
+    }
+
+    private record Category(String displayName, long weight, int products) {
+    }
+
+    private record Completion(String key, String text, byte type, long productId, long weight) {
+
+        boolean sameTarget(Completion other) {
+            return type == other.type && (type == CATEGORY ? text.equals(other.text) : productId == other.productId);
+        }
+    }
+}
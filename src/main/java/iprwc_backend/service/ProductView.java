@@ -0,0 +1,18 @@
+package iprwc_backend.service;
+
+import java.util.Locale;
+
+// Shape of products in list responses: everything, or the summary fields list pages render
+public enum ProductView {
+
+    FULL,
+    SUMMARY;
+
+    public static ProductView of(String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported view: " + name);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package iprwc_backend.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Locale;
+
+// Period lengths of the dashboard time series; periods start on the same boundaries as PostgreSQL's date_trunc
+public enum TimeGranularity {
+
+    DAY,
+    WEEK,
+    MONTH,
+    YEAR;
+
+    // The date_trunc unit
+    public String unit() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    // First day of the period containing the given day; weeks start on Monday
+    public LocalDate truncate(LocalDate day) {
+        return switch (this) {
+            case DAY -> day;
+            case WEEK -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> day.withDayOfMonth(1);
+            case YEAR -> day.withDayOfYear(1);
+        };
+    }
+
+    public LocalDate next(LocalDate periodStart) {
+        return switch (this) {
+            case DAY -> periodStart.plusDays(1);
+            case WEEK -> periodStart.plusWeeks(1);
+            case MONTH -> periodStart.plusMonths(1);
+            case YEAR -> periodStart.plusYears(1);
+        };
+    }
+
+    public static TimeGranularity of(String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported granularity: " + name);
+        }
+    }
+}
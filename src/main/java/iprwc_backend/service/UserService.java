@@ -7,9 +7,11 @@ import iprwc_backend.dto.response.JwtResponse;
 import iprwc_backend.dto.response.UserResponse;
 import iprwc_backend.entity.User;
 import iprwc_backend.entity.UserRole;
+import iprwc_backend.event.UserChangedEvent;
 import iprwc_backend.exception.ResourceNotFoundException;
 import iprwc_backend.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -31,6 +33,7 @@ public class UserService {
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
     private final AuthenticationManager authenticationManager;
+    private final ApplicationEventPublisher eventPublisher;
 
     // Register new user
     public JwtResponse register(RegisterRequest request) {
@@ -54,6 +57,7 @@ public class UserService {
         user.setPhoneNumber(request.getPhoneNumber());
 
         User savedUser = userRepository.save(user);
+        eventPublisher.publishEvent(UserChangedEvent.created(savedUser.getId()));
 
         // Generate JWT token
         UserDetails userDetails = userDetailsService.loadUserByUsername(savedUser.getEmail());
@@ -157,6 +161,7 @@ public class UserService {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
         userRepository.delete(user);
+        eventPublisher.publishEvent(UserChangedEvent.deleted(id));
     }
 
     // Convert entity to response DTO
@@ -0,0 +1,513 @@
+package iprwc_backend.util;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// Roaring-style compressed bitmap over non-negative int ids.
+// Ids are split into 65536-wide chunks by their high 16 bits; a chunk is stored as a sorted
+// char array while sparse and switches to a 1024-word bitset once it holds more than 4096 ids.
+public final class CompressedBitmap {
+
+    private static final int ARRAY_LIMIT = 4096;
+    private static final int BITMAP_WORDS = 1024;
+
+    private char[] keys;
+    private Object[] chunks;
+    private int chunkCount;
+
+    public CompressedBitmap() {
+        this(4);
+    }
+
+    private CompressedBitmap(int capacity) {
+        keys = new char[capacity];
+        chunks = new Object[capacity];
+    }
+
+    public void add(int id) {
+        char key = high(id);
+        int index = indexOf(key);
+        if (index < 0) {
+            index = -index - 1;
+            insertChunk(index, key, new ArrayChunk());
+        }
+        chunks[index] = chunk(index).add(low(id));
+    }
+
+    public void remove(int id) {
+        int index = indexOf(high(id));
+        if (index < 0) {
+            return;
+        }
+        Chunk updated = chunk(index).remove(low(id));
+        if (updated.cardinality() == 0) {
+            removeChunk(index);
+        } else {
+            chunks[index] = updated;
+        }
+    }
+
+    public boolean contains(int id) {
+        int index = indexOf(high(id));
+        return index >= 0 && chunk(index).contains(low(id));
+    }
+
+    public long cardinality() {
+        long total = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            total += chunk(i).cardinality();
+        }
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return chunkCount == 0;
+    }
+
+    public CompressedBitmap and(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap(Math.max(1, Math.min(chunkCount, other.chunkCount)));
+        int i = 0;
+        int j = 0;
+        while (i < chunkCount && j < other.chunkCount) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Chunk chunk = chunk(i).and(other.chunk(j));
+                if (chunk.cardinality() > 0) {
+                    result.appendChunk(keys[i], chunk);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    public CompressedBitmap or(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap(Math.max(1, chunkCount + other.chunkCount));
+        int i = 0;
+        int j = 0;
+        while (i < chunkCount || j < other.chunkCount) {
+            if (j >= other.chunkCount || (i < chunkCount && keys[i] < other.keys[j])) {
+                result.appendChunk(keys[i], chunk(i).copy());
+                i++;
+            } else if (i >= chunkCount || keys[i] > other.keys[j]) {
+                result.appendChunk(other.keys[j], other.chunk(j).copy());
+                j++;
+            } else {
+                result.appendChunk(keys[i], chunk(i).or(other.chunk(j)));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    // Size of the intersection without materialising it
+    public long andCardinality(CompressedBitmap other) {
+        long total = 0;
+        int i = 0;
+        int j = 0;
+        while (i < chunkCount && j < other.chunkCount) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                total += chunk(i).andCardinality(other.chunk(j));
+                i++;
+                j++;
+            }
+        }
+        return total;
+    }
+
+    public CompressedBitmap copy() {
+        CompressedBitmap result = new CompressedBitmap(Math.max(1, chunkCount));
+        for (int i = 0; i < chunkCount; i++) {
+            result.appendChunk(keys[i], chunk(i).copy());
+        }
+        return result;
+    }
+
+    // Visit ids in ascending order
+    public void forEach(IntConsumer consumer) {
+        for (int i = 0; i < chunkCount; i++) {
+            chunk(i).forEach(keys[i] << 16, consumer);
+        }
+    }
+
+    // Up to limit ids greater than after, in ascending order
+    public int[] after(int after, int limit) {
+        if (after == Integer.MAX_VALUE) {
+            // No id is greater, and after + 1 would wrap around to the start
+            return new int[0];
+        }
+        int[] ids = new int[limit];
+        int count = 0;
+        int start = after < 0 ? 0 : after + 1;
+        for (int i = 0; i < chunkCount && count < limit; i++) {
+            int base = keys[i] << 16;
+            if (base + 0xFFFF < start) {
+                continue;
+            }
+            count = chunk(i).collect(base, start, ids, count);
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    private Chunk chunk(int index) {
+        return (Chunk) chunks[index];
+    }
+
+    private int indexOf(char key) {
+        return Arrays.binarySearch(keys, 0, chunkCount, key);
+    }
+
+    private void insertChunk(int index, char key, Chunk chunk) {
+        ensureCapacity();
+        System.arraycopy(keys, index, keys, index + 1, chunkCount - index);
+        System.arraycopy(chunks, index, chunks, index + 1, chunkCount - index);
+        keys[index] = key;
+        chunks[index] = chunk;
+        chunkCount++;
+    }
+
+    private void appendChunk(char key, Chunk chunk) {
+        ensureCapacity();
+        keys[chunkCount] = key;
+        chunks[chunkCount] = chunk;
+        chunkCount++;
+    }
+
+    private void removeChunk(int index) {
+        System.arraycopy(keys, index + 1, keys, index, chunkCount - index - 1);
+        System.arraycopy(chunks, index + 1, chunks, index, chunkCount - index - 1);
+        chunks[--chunkCount] = null;
+    }
+
+    private void ensureCapacity() {
+        if (chunkCount == keys.length) {
+            keys = Arrays.copyOf(keys, keys.length * 2);
+            chunks = Arrays.copyOf(chunks, chunks.length * 2);
+        }
+    }
+
+    private static char high(int id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Negative id: " + id);
+        }
+        return (char) (id >>> 16);
+    }
+
+    private static char low(int id) {
+        return (char) id;
+    }
+
+    private abstract static class Chunk {
+
+        abstract int cardinality();
+
+        abstract boolean contains(char value);
+
+        // Each mutator returns the chunk to keep, which may be a converted copy
+        abstract Chunk add(char value);
+
+        abstract Chunk remove(char value);
+
+        abstract Chunk and(Chunk other);
+
+        abstract Chunk or(Chunk other);
+
+        abstract int andCardinality(Chunk other);
+
+        abstract Chunk copy();
+
+        abstract void forEach(int base, IntConsumer consumer);
+
+        abstract int collect(int base, int start, int[] out, int count);
+    }
+
+    private static final class ArrayChunk extends Chunk {
+
+        private char[] values;
+        private int size;
+
+        ArrayChunk() {
+            this(new char[4], 0);
+        }
+
+        ArrayChunk(char[] values, int size) {
+            this.values = values;
+            this.size = size;
+        }
+
+        @Override
+        int cardinality() {
+            return size;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, size, value) >= 0;
+        }
+
+        @Override
+        Chunk add(char value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                return this;
+            }
+            if (size >= ARRAY_LIMIT) {
+                return toBitmap().add(value);
+            }
+            index = -index - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, Math.max(4, values.length * 2)));
+            }
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = value;
+            size++;
+            return this;
+        }
+
+        @Override
+        Chunk remove(char value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, size - index - 1);
+                size--;
+            }
+            return this;
+        }
+
+        @Override
+        Chunk and(Chunk other) {
+            char[] result = new char[Math.min(size, other.cardinality())];
+            int count = 0;
+            if (other instanceof ArrayChunk array) {
+                int i = 0;
+                int j = 0;
+                while (i < size && j < array.size) {
+                    if (values[i] < array.values[j]) {
+                        i++;
+                    } else if (values[i] > array.values[j]) {
+                        j++;
+                    } else {
+                        result[count++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < size; i++) {
+                    if (other.contains(values[i])) {
+                        result[count++] = values[i];
+                    }
+                }
+            }
+            return new ArrayChunk(result, count);
+        }
+
+        @Override
+        Chunk or(Chunk other) {
+            if (other instanceof BitmapChunk) {
+                return other.or(this);
+            }
+            ArrayChunk array = (ArrayChunk) other;
+            char[] result = new char[size + array.size];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < size || j < array.size) {
+                if (j >= array.size || (i < size && values[i] < array.values[j])) {
+                    result[count++] = values[i++];
+                } else if (i >= size || values[i] > array.values[j]) {
+                    result[count++] = array.values[j++];
+                } else {
+                    result[count++] = values[i];
+                    i++;
+                    j++;
+                }
+            }
+            ArrayChunk merged = new ArrayChunk(result, count);
+            return count > ARRAY_LIMIT ? merged.toBitmap() : merged;
+        }
+
+        @Override
+        int andCardinality(Chunk other) {
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (other.contains(values[i])) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        @Override
+        Chunk copy() {
+            return new ArrayChunk(Arrays.copyOf(values, Math.max(1, size)), size);
+        }
+
+        @Override
+        void forEach(int base, IntConsumer consumer) {
+            for (int i = 0; i < size; i++) {
+                consumer.accept(base | values[i]);
+            }
+        }
+
+        @Override
+        int collect(int base, int start, int[] out, int count) {
+            for (int i = 0; i < size && count < out.length; i++) {
+                int id = base | values[i];
+                if (id >= start) {
+                    out[count++] = id;
+                }
+            }
+            return count;
+        }
+
+        private BitmapChunk toBitmap() {
+            BitmapChunk bitmap = new BitmapChunk();
+            for (int i = 0; i < size; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    private static final class BitmapChunk extends Chunk {
+
+        private final long[] words;
+        private int cardinality;
+
+        BitmapChunk() {
+            this(new long[BITMAP_WORDS], 0);
+        }
+
+        BitmapChunk(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        Chunk add(char value) {
+            long before = words[value >>> 6];
+            long after = before | (1L << value);
+            if (before != after) {
+                words[value >>> 6] = after;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Chunk remove(char value) {
+            long before = words[value >>> 6];
+            long after = before & ~(1L << value);
+            if (before != after) {
+                words[value >>> 6] = after;
+                cardinality--;
+            }
+            return cardinality <= ARRAY_LIMIT ? toArray() : this;
+        }
+
+        @Override
+        Chunk and(Chunk other) {
+            if (other instanceof ArrayChunk) {
+                return other.and(this);
+            }
+            long[] otherWords = ((BitmapChunk) other).words;
+            long[] result = new long[BITMAP_WORDS];
+            int count = 0;
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                result[i] = words[i] & otherWords[i];
+                count += Long.bitCount(result[i]);
+            }
+            BitmapChunk bitmap = new BitmapChunk(result, count);
+            return count <= ARRAY_LIMIT ? bitmap.toArray() : bitmap;
+        }
+
+        @Override
+        Chunk or(Chunk other) {
+            long[] result = words.clone();
+            int count;
+            if (other instanceof BitmapChunk bitmap) {
+                count = 0;
+                for (int i = 0; i < BITMAP_WORDS; i++) {
+                    result[i] |= bitmap.words[i];
+                    count += Long.bitCount(result[i]);
+                }
+                return new BitmapChunk(result, count);
+            }
+            BitmapChunk merged = new BitmapChunk(result, cardinality);
+            other.forEach(0, value -> merged.add((char) value));
+            return merged;
+        }
+
+        @Override
+        int andCardinality(Chunk other) {
+            if (other instanceof ArrayChunk) {
+                return other.andCardinality(this);
+            }
+            long[] otherWords = ((BitmapChunk) other).words;
+            int count = 0;
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                count += Long.bitCount(words[i] & otherWords[i]);
+            }
+            return count;
+        }
+
+        @Override
+        Chunk copy() {
+            return new BitmapChunk(words.clone(), cardinality);
+        }
+
+        @Override
+        void forEach(int base, IntConsumer consumer) {
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    consumer.accept(base | (i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        @Override
+        int collect(int base, int start, int[] out, int count) {
+            int from = Math.max(0, start - base);
+            for (int i = from >>> 6; i < BITMAP_WORDS && count < out.length; i++) {
+                long word = words[i];
+                if (i == from >>> 6) {
+                    word &= -1L << from;
+                }
+                while (word != 0 && count < out.length) {
+                    out[count++] = base | (i << 6) | Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+            return count;
+        }
+
+        private ArrayChunk toArray() {
+            char[] values = new char[cardinality];
+            int[] index = {0};
+            forEach(0, value -> values[index[0]++] = (char) value);
+            return new ArrayChunk(values, cardinality);
+        }
+    }
+}
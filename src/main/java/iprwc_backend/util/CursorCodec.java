@@ -0,0 +1,48 @@
+package iprwc_backend.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Encodes keyset positions into opaque, URL-safe cursor tokens
+public final class CursorCodec {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private CursorCodec() {
+    }
+
+    // Encode an id-only position
+    public static String encode(long id) {
+        return ENCODER.encodeToString(Long.toString(id).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    // Decode an id-only position
+    public static long decodeId(String cursor) {
+        try {
+            return Long.parseLong(new String(DECODER.decode(cursor), StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    // Encode a position on a timestamp, with the id breaking ties between equal timestamps
+    public static String encode(LocalDateTime time, long id) {
+        return ENCODER.encodeToString((time + "," + id).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    // Decode a timestamp and id position
+    public static TimePosition decodeTimePosition(String cursor) {
+        try {
+            String[] parts = new String(DECODER.decode(cursor), StandardCharsets.US_ASCII).split(",", 2);
+            return new TimePosition(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    public record TimePosition(LocalDateTime time, long id) {
+    }
+}
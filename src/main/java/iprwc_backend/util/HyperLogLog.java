@@ -0,0 +1,143 @@
+package iprwc_backend.util;
+
+import java.nio.ByteBuffer;
+
+// HyperLogLog distinct counter (Flajolet et al.) over long values with 2^12 registers: estimates are within
+// about 1.6% (one standard error) at any cardinality, and sketches merge losslessly by taking the larger
+// register, so adding a value twice or merging a sketch twice changes nothing. Not thread-safe.
+public final class HyperLogLog {
+
+    private static final int PRECISION = 12;
+    private static final int REGISTERS = 1 << PRECISION;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+    private static final int MAX_RANK = 64 - PRECISION + 1;
+
+    // Serialized forms: (index, value) pairs while few registers are set, else six bits per register
+    private static final byte SPARSE = 1;
+    private static final byte DENSE = 2;
+    private static final int DENSE_BYTES = REGISTERS * 6 / 8;
+
+    private final byte[] registers = new byte[REGISTERS];
+
+    public static double relativeError() {
+        return 1.04 / Math.sqrt(REGISTERS);
+    }
+
+    public void add(long value) {
+        long hash = mix(value);
+        int index = (int) (hash >>> (64 - PRECISION));
+        // Position of the first set bit after the index bits; the sentinel bit caps it at 64 - PRECISION + 1
+        int rank = Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    public void merge(HyperLogLog other) {
+        for (int i = 0; i < REGISTERS; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        // Linear counting is more accurate while many registers are still empty
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public HyperLogLog copy() {
+        HyperLogLog copy = new HyperLogLog();
+        System.arraycopy(registers, 0, copy.registers, 0, REGISTERS);
+        return copy;
+    }
+
+    public byte[] toBytes() {
+        int set = 0;
+        for (byte register : registers) {
+            if (register != 0) {
+                set++;
+            }
+        }
+
+        if (set * 3 < DENSE_BYTES) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 + set * 3).put(SPARSE);
+            for (int i = 0; i < REGISTERS; i++) {
+                if (registers[i] != 0) {
+                    buffer.putShort((short) i).put(registers[i]);
+                }
+            }
+            return buffer.array();
+        }
+
+        byte[] bytes = new byte[1 + DENSE_BYTES];
+        bytes[0] = DENSE;
+        // Four registers per three bytes
+        for (int i = 0, at = 1; i < REGISTERS; i += 4, at += 3) {
+            int packed = registers[i] << 18 | registers[i + 1] << 12 | registers[i + 2] << 6 | registers[i + 3];
+            bytes[at] = (byte) (packed >>> 16);
+            bytes[at + 1] = (byte) (packed >>> 8);
+            bytes[at + 2] = (byte) packed;
+        }
+        return bytes;
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        HyperLogLog sketch = new HyperLogLog();
+        if (bytes.length == 0) {
+            return sketch;
+        }
+        switch (bytes[0]) {
+            case SPARSE -> {
+                if ((bytes.length - 1) % 3 != 0) {
+                    throw new IllegalArgumentException("Truncated HyperLogLog sketch");
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, bytes.length - 1);
+                while (buffer.hasRemaining()) {
+                    int index = buffer.getShort() & 0xFFFF;
+                    byte value = buffer.get();
+                    if (index >= REGISTERS || value < 1 || value > MAX_RANK) {
+                        throw new IllegalArgumentException("Corrupt HyperLogLog sketch");
+                    }
+                    sketch.registers[index] = value;
+                }
+            }
+            case DENSE -> {
+                if (bytes.length != 1 + DENSE_BYTES) {
+                    throw new IllegalArgumentException("Truncated HyperLogLog sketch");
+                }
+                for (int i = 0, at = 1; i < REGISTERS; i += 4, at += 3) {
+                    int packed = (bytes[at] & 0xFF) << 16 | (bytes[at + 1] & 0xFF) << 8 | bytes[at + 2] & 0xFF;
+                    sketch.registers[i] = (byte) (packed >>> 18 & 0x3F);
+                    sketch.registers[i + 1] = (byte) (packed >>> 12 & 0x3F);
+                    sketch.registers[i + 2] = (byte) (packed >>> 6 & 0x3F);
+                    sketch.registers[i + 3] = (byte) (packed & 0x3F);
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown HyperLogLog format: " + bytes[0]);
+        }
+        return sketch;
+    }
+
+    // MurmurHash3's 64-bit finalizer, so sequential ids spread over all registers
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
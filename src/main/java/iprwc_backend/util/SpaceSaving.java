@@ -0,0 +1,84 @@
+package iprwc_backend.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+// Weighted Space-Saving summary of the heaviest keys of a stream (Metwally et al.), in at most capacity
+// counters. A key not yet counted takes over the smallest counter once all are in use and inherits its
+// count as error, so every count overestimates the true weight by at most its error, and any key whose
+// weight exceeds total / capacity is guaranteed to hold a counter. Not thread-safe.
+public final class SpaceSaving {
+
+    public record Entry(long key, long count, long error) {
+    }
+
+    private static final Comparator<Counter> BY_COUNT =
+            Comparator.comparingLong((Counter counter) -> counter.count).thenComparingLong(counter -> counter.key);
+
+    private final int capacity;
+    private final Map<Long, Counter> counters = new HashMap<>();
+    // The same counters, smallest first; a counter is taken out before its count changes
+    private final TreeSet<Counter> byCount = new TreeSet<>(BY_COUNT);
+
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    public void add(long key, long weight) {
+        if (weight <= 0) {
+            return;
+        }
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            byCount.remove(counter);
+        } else if (counters.size() < capacity) {
+            counter = new Counter(key, 0);
+            counters.put(key, counter);
+        } else {
+            Counter smallest = byCount.pollFirst();
+            counters.remove(smallest.key);
+            counter = new Counter(key, smallest.count);
+            counters.put(key, counter);
+        }
+        counter.count += weight;
+        byCount.add(counter);
+    }
+
+    // Upper bound on the weight of any key without a counter: 0 until every counter is in use
+    public long minCount() {
+        return counters.size() < capacity ? 0 : byCount.first().count;
+    }
+
+    public boolean isEmpty() {
+        return counters.isEmpty();
+    }
+
+    // All counters, in no particular order
+    public List<Entry> entries() {
+        List<Entry> entries = new ArrayList<>(counters.size());
+        for (Counter counter : counters.values()) {
+            entries.add(new Entry(counter.key, counter.count, counter.error));
+        }
+        return entries;
+    }
+
+    private static final class Counter {
+
+        private final long key;
+        private final long error;
+        private long count;
+
+        private Counter(long key, long error) {
+            this.key = key;
+            this.error = error;
+            this.count = error;
+        }
+    }
+}
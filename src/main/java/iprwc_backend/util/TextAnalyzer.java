@@ -0,0 +1,130 @@
+package iprwc_backend.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// Tokenisation, normalisation and light stemming shared by the in-memory search structures
+public final class TextAnalyzer {
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is",
+            "it", "of", "on", "or", "the", "to", "with"
+    );
+
+    private TextAnalyzer() {
+    }
+
+    // Lowercase, split on anything that is not a letter or digit, drop stop words and stem
+    public static List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        for (String token : tokenize(text)) {
+            if (!STOP_WORDS.contains(token)) {
+                terms.add(stem(token));
+            }
+        }
+        return terms;
+    }
+
+    // Lowercased tokens without stemming or stop word removal
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String lower = normalize(text);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    public static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    // Strip common English inflections so "phones" and "phone" share a term
+    public static String stem(String term) {
+        int length = term.length();
+        if (length > 3 && term.endsWith("s") && !term.endsWith("ss") && !term.endsWith("us")
+                && !(length > 4 && term.endsWith("ies"))) {
+            // A plural stems like its singular, so "strings" and "string" are the same term
+            return stemSuffix(term.substring(0, length - 1));
+        }
+        return stemSuffix(term);
+    }
+
+    private static String stemSuffix(String term) {
+        int length = term.length();
+        if (length > 4 && term.endsWith("ies")) {
+            return term.substring(0, length - 3) + "y";
+        }
+        if (length > 3 && (term.endsWith("sse") || term.endsWith("xe") || term.endsWith("che") || term.endsWith("she"))) {
+            // What is left of "glasses", "boxes", "watches" and "dishes"; "cache" loses its e the same way
+            return term.substring(0, length - 1);
+        }
+        // The rest must keep a vowel, so "string" and "bring" are words rather than an "-ing" form
+        if (length > 5 && term.endsWith("ing") && hasVowel(term, length - 3)) {
+            return term.substring(0, length - 3);
+        }
+        if (length > 4 && term.endsWith("ed") && !term.endsWith("eed") && hasVowel(term, length - 2)) {
+            return term.substring(0, length - 2);
+        }
+        return term;
+    }
+
+    private static boolean hasVowel(String term, int end) {
+        for (int i = 0; i < end; i++) {
+            if ("aeiouy".indexOf(term.charAt(i)) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Character trigrams of a term padded with boundary markers, used for typo tolerance
+    public static List<String> trigrams(String term) {
+        String padded = "$" + term + "$";
+        List<String> grams = new ArrayList<>(padded.length());
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    // Levenshtein distance, giving up early once it exceeds max
+    public static int editDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
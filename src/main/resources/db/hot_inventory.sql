@@ -0,0 +1,9 @@
+-- Ledger of products in flash-sale (hot inventory) mode, see HotInventory.
+-- Units sold since the product was enabled = SUM(order_items.quantity) - base_sold;
+-- whatever part of that is not yet in flushed_units still has to come off products.stock.
+CREATE TABLE IF NOT EXISTS hot_inventory (
+    product_id    BIGINT PRIMARY KEY REFERENCES products (id) ON DELETE CASCADE,
+    base_sold     BIGINT    NOT NULL,
+    flushed_units BIGINT    NOT NULL DEFAULT 0,
+    enabled_at    TIMESTAMP NOT NULL DEFAULT now()
+);
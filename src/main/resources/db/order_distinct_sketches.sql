@@ -0,0 +1,10 @@
+-- Daily HyperLogLog sketches of unique buyers and unique products sold, see DistinctCounts.
+-- One row per metric and day (of the order's created_at); registers is a HyperLogLog.toBytes() value:
+-- a few bytes per buyer on quiet days, at most 3 KB on busy ones. Rows are only ever merged into, so
+-- rewriting a day from orders and the archive is always safe.
+CREATE TABLE IF NOT EXISTS order_distinct_sketches (
+    metric    VARCHAR(32) NOT NULL,
+    day       DATE        NOT NULL,
+    registers BYTEA       NOT NULL,
+    PRIMARY KEY (metric, day)
+);
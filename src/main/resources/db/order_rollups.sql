@@ -0,0 +1,13 @@
+-- Daily order rollups, see OrderRollups. One row per category, day (of the order's created_at) and status,
+-- kept current in the transaction of each order write and rebuilt from orders and the archive by the backfill.
+-- The '*' category holds the totals over all categories: an order with items in two categories counts once
+-- in each of them, but once in '*'.
+CREATE TABLE IF NOT EXISTS order_rollups (
+    category    VARCHAR(255)   NOT NULL,
+    day         DATE           NOT NULL,
+    status      VARCHAR(255)   NOT NULL,
+    order_count BIGINT         NOT NULL,
+    units       BIGINT         NOT NULL,
+    revenue     NUMERIC(19, 2) NOT NULL,
+    PRIMARY KEY (category, day, status)
+);
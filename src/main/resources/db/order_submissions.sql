@@ -0,0 +1,20 @@
+-- Accepted asynchronous order requests, see AsyncOrderService.
+-- Workers claim PENDING rows with FOR UPDATE SKIP LOCKED; finished rows are purged after the retention period.
+CREATE TABLE IF NOT EXISTS order_submissions (
+    id              BIGSERIAL PRIMARY KEY,
+    user_id         BIGINT        NOT NULL,
+    idempotency_key VARCHAR(255),
+    request         TEXT          NOT NULL,
+    status          VARCHAR(255)  NOT NULL,
+    attempts        INTEGER       NOT NULL DEFAULT 0,
+    order_id        BIGINT,
+    error           VARCHAR(1000),
+    created_at      TIMESTAMP     NOT NULL DEFAULT now(),
+    updated_at      TIMESTAMP     NOT NULL DEFAULT now(),
+    CONSTRAINT uk_order_submissions_user_key UNIQUE (user_id, idempotency_key)
+);
+
+-- Claim queue: only unfinished rows are indexed
+CREATE INDEX IF NOT EXISTS idx_order_submissions_pending ON order_submissions (id)
+    WHERE status IN ('PENDING', 'PROCESSING');
+CREATE INDEX IF NOT EXISTS idx_order_submissions_updated_at ON order_submissions (updated_at);
@@ -0,0 +1,43 @@
+-- Archive of completed orders, see OrderArchiver. Both tables are range-partitioned by month on the
+-- order's created_at; the archiver creates a month's partitions when it first moves an order of that month,
+-- and queries on a created_at range only read the matching partitions.
+-- Old months can be detached or dropped per partition without touching the rest.
+CREATE TABLE IF NOT EXISTS orders_archive (
+    id               BIGINT         NOT NULL,
+    user_id          BIGINT         NOT NULL REFERENCES users (id),
+    total_amount     NUMERIC(10, 2) NOT NULL,
+    status           VARCHAR(255)   NOT NULL,
+    shipping_address VARCHAR(255)   NOT NULL,
+    created_at       TIMESTAMP      NOT NULL,
+    updated_at       TIMESTAMP      NOT NULL,
+    archived_at      TIMESTAMP      NOT NULL DEFAULT now(),
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE INDEX IF NOT EXISTS idx_orders_archive_user_created_at
+    ON orders_archive (user_id, created_at DESC, id DESC);
+
+CREATE TABLE IF NOT EXISTS order_items_archive (
+    id               BIGINT         NOT NULL,
+    order_id         BIGINT         NOT NULL,
+    order_created_at TIMESTAMP      NOT NULL,
+    product_id       BIGINT         NOT NULL REFERENCES products (id),
+    quantity         INTEGER        NOT NULL,
+    price            NUMERIC(10, 2) NOT NULL,
+    PRIMARY KEY (id, order_created_at),
+    FOREIGN KEY (order_id, order_created_at) REFERENCES orders_archive (id, created_at)
+) PARTITION BY RANGE (order_created_at);
+
+CREATE INDEX IF NOT EXISTS idx_order_items_archive_order ON order_items_archive (order_id);
+CREATE INDEX IF NOT EXISTS idx_order_items_archive_product ON order_items_archive (product_id);
+
+-- Count and revenue of archived orders per status, updated in the same transaction as each archive batch
+CREATE TABLE IF NOT EXISTS order_archive_totals (
+    status      VARCHAR(255)   PRIMARY KEY,
+    order_count BIGINT         NOT NULL,
+    revenue     NUMERIC(19, 2) NOT NULL
+);
+
+-- Finds the next archive batch without scanning orders that are still in progress
+CREATE INDEX IF NOT EXISTS idx_orders_completed_created_at
+    ON orders (created_at, id) WHERE status IN ('DELIVERED', 'CANCELLED');
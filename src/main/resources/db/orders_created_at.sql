@@ -0,0 +1,5 @@
+-- Recent orders by creation time, see OrderItemRepository.findUnitsSoldByBucket.
+-- The best-seller recompute reads the last week of orders without scanning older history.
+-- CONCURRENTLY keeps orders writable while the index builds; run it outside a transaction.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orders_created_at
+    ON orders (created_at);
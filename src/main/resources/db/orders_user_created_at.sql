@@ -0,0 +1,5 @@
+-- Per-user order history, newest first, see OrderRepository.findHistoryIdsByUserIdBefore.
+-- Serves the keyset pages, the order count and the most recent order from the index alone.
+-- CONCURRENTLY keeps orders writable while the index builds; run it outside a transaction.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orders_user_created_at
+    ON orders (user_id, created_at DESC, id DESC);
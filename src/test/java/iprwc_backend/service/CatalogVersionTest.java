@@ -0,0 +1,107 @@
+package iprwc_backend.service;
+
+import iprwc_backend.entity.Product;
+import iprwc_backend.event.ProductChangedEvent;
+import iprwc_backend.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CatalogVersionTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductCatalogCache cache = new ProductCatalogCache(productRepository);
+    private final CatalogVersion catalogVersion = new CatalogVersion(cache);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cache, "maxProducts", 1000);
+        ReflectionTestUtils.setField(cache, "maxAgeSeconds", 300L);
+        when(productRepository.count()).thenReturn(1L);
+        when(productRepository.findAll(any(Sort.class))).thenReturn(List.of(product(5)));
+    }
+
+    @Test
+    void noTagWhileReadsGoToTheDatabase() {
+        assertThat(catalogVersion.current()).isNull();
+    }
+
+    @Test
+    void stockMovesTheTagOnlyOnceFoldedIntoTheServedSnapshot() {
+        CatalogVersion.Tag loaded = awaitTag(Objects::nonNull);
+        assertThat(catalogVersion.current()).isEqualTo(loaded);
+
+        cache.onProductChanged(ProductChangedEvent.stock(1L, -1));
+        cache.onProductChanged(ProductChangedEvent.stock(1L, -1));
+        assertThat(catalogVersion.current()).isEqualTo(loaded);
+
+        when(productRepository.findStockByIdIn(Set.of(1L))).thenReturn(List.<Object[]>of(new Object[]{1L, 3}));
+        cache.refreshStock();
+        assertThat(cache.snapshot().get(1L).getStock()).isEqualTo(3);
+        assertThat(catalogVersion.current().etag()).isNotEqualTo(loaded.etag());
+    }
+
+    @Test
+    void anUpdateMovesTheTagBeforeItsListenerReturns() {
+        CatalogVersion.Tag loaded = awaitTag(Objects::nonNull);
+
+        Product renamed = product(5);
+        renamed.setName("Renamed");
+        cache.onProductChanged(ProductChangedEvent.updated(ProductService.convertToResponse(renamed)));
+
+        assertThat(catalogVersion.current().etag()).isNotEqualTo(loaded.etag());
+        assertThat(cache.peek().get(1L).getName()).isEqualTo("Renamed");
+    }
+
+    @Test
+    void reloadingAnExpiredSnapshotMovesTheTag() {
+        CatalogVersion.Tag loaded = awaitTag(Objects::nonNull);
+        // A change made outside this process, picked up by the periodic reload
+        when(productRepository.findAll(any(Sort.class))).thenReturn(List.of(product(42)));
+        ReflectionTestUtils.setField(cache, "maxAgeSeconds", 0L);
+
+        cache.snapshot();
+        CatalogVersion.Tag reloaded = awaitTag(tag -> !tag.equals(loaded));
+        ReflectionTestUtils.setField(cache, "maxAgeSeconds", 300L);
+
+        assertThat(reloaded.etag()).isNotEqualTo(loaded.etag());
+        assertThat(cache.peek().get(1L).getStock()).isEqualTo(42);
+    }
+
+    private CatalogVersion.Tag awaitTag(Predicate<CatalogVersion.Tag> condition) {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (System.nanoTime() < deadline) {
+            cache.snapshot();
+            CatalogVersion.Tag tag = catalogVersion.current();
+            if (tag != null && condition.test(tag)) {
+                return tag;
+            }
+            Thread.onSpinWait();
+        }
+        throw new AssertionError("Catalog tag did not change in time");
+    }
+
+    private static Product product(int stock) {
+        Product product = new Product();
+        product.setId(1L);
+        product.setName("Product 1");
+        product.setDescription("Description of product 1");
+        product.setPrice(BigDecimal.TEN);
+        product.setCategory("Electronics");
+        product.setImage("image.png");
+        product.setStock(stock);
+        return product;
+    }
+}
@@ -0,0 +1,143 @@
+package iprwc_backend.service;
+
+import iprwc_backend.dto.response.HotInventoryResponse;
+import iprwc_backend.dto.response.ProductImportResponse;
+import iprwc_backend.entity.Product;
+import iprwc_backend.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Checkouts commit on their own threads and the write-back runs in its own transactions, so nothing here
+// runs inside a test transaction
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@Import({ProductService.class, HotInventory.class, ProductImportService.class})
+@ImportAutoConfiguration({ValidationAutoConfiguration.class, JacksonAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class HotInventoryTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private HotInventory hotInventory;
+
+    @Autowired
+    private ProductImportService importService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @MockitoBean
+    private ProductCatalogCache catalogCache;
+
+    @MockitoBean
+    private ProductSearchIndex searchIndex;
+
+    @MockitoBean
+    private ProductSuggester suggester;
+
+    @MockitoBean
+    private ProductFacetIndex facetIndex;
+
+    @MockitoBean
+    private CatalogVersion catalogVersion;
+
+    @AfterEach
+    void tearDown() {
+        hotInventory.getStatus().forEach(status -> hotInventory.disable(status.getProductId()));
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentCheckoutsNeverSellMoreThanTheStock() {
+        Long id = persistProduct("Flash sale headset", 50).getId();
+        hotInventory.enable(id);
+
+        AtomicInteger sold = new AtomicInteger();
+        ConcurrentLinkedQueue<String> refusals = new ConcurrentLinkedQueue<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(16)) {
+            for (int i = 0; i < 200; i++) {
+                executor.submit(() -> {
+                    try {
+                        productService.updateStock(id, 1);
+                        sold.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        refusals.add(e.getMessage());
+                    }
+                });
+            }
+        }
+
+        assertThat(sold).hasValue(50);
+        assertThat(refusals).hasSize(150).allSatisfy(message -> assertThat(message).startsWith("Insufficient stock"));
+        hotInventory.flush();
+        assertThat(productRepository.findById(id).orElseThrow().getStock()).isZero();
+        assertThat(hotInventory.getStatus()).singleElement()
+                .extracting(HotInventoryResponse::getAvailable, HotInventoryResponse::getUnflushed)
+                .containsExactly(0L, 0L);
+    }
+
+    @Test
+    void importRefusesHotStockEditsSoCheckoutCannotOversell() throws IOException {
+        Product hot = persistProduct("Flash sale headset", 10);
+        Product regular = persistProduct("Desk lamp", 5);
+        hotInventory.enable(hot.getId());
+
+        String csv = "id,name,description,price,category,image,stock\n"
+                + hot.getId() + ",Flash sale headset,Restocked for the evening,19.99,Audio,image.png,999\n"
+                + hot.getId() + ",Flash sale headset,Noise cancelling over-ear headset,17.99,Audio,image.png,10\n"
+                + regular.getId() + ",Desk lamp,Brighter bulb included,9.99,Lighting,image.png,20\n"
+                + (regular.getId() + 1000) + ",Floor lamp,Tall lamp for the reading corner,29.99,Lighting,image.png,3\n";
+        ProductImportResponse response = importService.importProducts(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), ProductFileFormat.CSV);
+
+        assertThat(response.getUpdated()).isEqualTo(2);
+        assertThat(response.getInserted()).isEqualTo(1);
+        assertThat(response.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.getRow()).isEqualTo(1);
+            assertThat(error.getMessage()).contains("hot inventory");
+        });
+        assertThat(productRepository.findById(hot.getId()).orElseThrow().getPrice()).isEqualByComparingTo("17.99");
+        assertThat(productRepository.findAll()).extracting(Product::getName).contains("Floor lamp");
+        for (int i = 0; i < 10; i++) {
+            productService.updateStock(hot.getId(), 1);
+        }
+        assertThatThrownBy(() -> productService.updateStock(hot.getId(), 1)).hasMessageStartingWith("Insufficient stock");
+
+        hotInventory.flush();
+        assertThat(productRepository.findById(hot.getId()).orElseThrow().getStock()).isZero();
+        assertThat(productRepository.findById(regular.getId()).orElseThrow().getStock()).isEqualTo(20);
+    }
+
+    private Product persistProduct(String name, int stock) {
+        Product product = new Product();
+        product.setName(name);
+        product.setDescription(name + " for the home office");
+        product.setPrice(BigDecimal.TEN);
+        product.setCategory("Electronics");
+        product.setImage("image.png");
+        product.setStock(stock);
+        return productRepository.save(product);
+    }
+}
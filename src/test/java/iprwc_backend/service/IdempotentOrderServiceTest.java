@@ -0,0 +1,232 @@
+package iprwc_backend.service;
+
+import iprwc_backend.dto.request.OrderItemRequest;
+import iprwc_backend.dto.request.OrderRequest;
+import iprwc_backend.dto.response.OrderResponse;
+import iprwc_backend.entity.IdempotencyKey;
+import iprwc_backend.entity.Product;
+import iprwc_backend.entity.User;
+import iprwc_backend.repository.IdempotencyKeyRepository;
+import iprwc_backend.repository.OrderRepository;
+import iprwc_backend.repository.ProductRepository;
+import iprwc_backend.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+// Orders and their keys commit in their own transactions, so nothing here runs inside a test transaction
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@Import({IdempotentOrderService.class, OrderService.class, ProductService.class, HotInventory.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotentOrderServiceTest {
+
+    @Autowired
+    private IdempotentOrderService idempotentOrderService;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    // Off, so every order runs in its own transaction
+    @MockitoBean
+    private OrderIngestionPipeline ingestionPipeline;
+
+    @MockitoBean
+    private ProductCatalogCache catalogCache;
+
+    @MockitoBean
+    private ProductSearchIndex searchIndex;
+
+    @MockitoBean
+    private ProductSuggester suggester;
+
+    @MockitoBean
+    private ProductFacetIndex facetIndex;
+
+    @MockitoBean
+    private CatalogVersion catalogVersion;
+
+    private Long userId;
+    private Long productId;
+
+    @BeforeEach
+    void setUp() {
+        when(ingestionPipeline.submit(any(), any(), any())).thenReturn(Optional.empty());
+        userId = persistUser("buyer@example.com");
+        productId = persistProduct(10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        idempotencyKeyRepository.deleteAll();
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+        forgetCompletedKeys();
+    }
+
+    @Test
+    void firstUseCreatesTheOrderAndStoresTheKey() {
+        IdempotentOrderService.Result result = idempotentOrderService.createOrder(userId, "key-1", request(2, "Street 1"));
+
+        assertThat(result.replayed()).isFalse();
+        assertThat(orderRepository.count()).isEqualTo(1);
+        assertThat(stock()).isEqualTo(8);
+        IdempotencyKey stored = idempotencyKeyRepository.findByUserIdAndIdempotencyKey(userId, "key-1").orElseThrow();
+        assertThat(stored.getOrderId()).isEqualTo(result.order().getId());
+    }
+
+    @Test
+    void retryReplaysTheOriginalOrder() {
+        OrderResponse original = idempotentOrderService.createOrder(userId, "key-1", request(2, "Street 1")).order();
+
+        // From the in-memory cache, then from the table as another instance would
+        IdempotentOrderService.Result cached = idempotentOrderService.createOrder(userId, "key-1", request(2, "Street 1"));
+        forgetCompletedKeys();
+        IdempotentOrderService.Result stored = idempotentOrderService.createOrder(userId, "key-1", request(2, "Street 1"));
+
+        for (IdempotentOrderService.Result replay : List.of(cached, stored)) {
+            assertThat(replay.replayed()).isTrue();
+            assertThat(replay.order().getId()).isEqualTo(original.getId());
+            assertThat(replay.order().getTotalAmount()).isEqualByComparingTo(original.getTotalAmount());
+            assertThat(replay.order().getItems()).hasSize(1);
+        }
+        assertThat(orderRepository.count()).isEqualTo(1);
+        assertThat(stock()).isEqualTo(8);
+    }
+
+    @Test
+    void conflictingPayloadUnderTheSameKeyIsRefused() {
+        idempotentOrderService.createOrder(userId, "key-1", request(2, "Street 1"));
+
+        assertThatThrownBy(() -> idempotentOrderService.createOrder(userId, "key-1", request(3, "Street 1")))
+                .hasMessage("Idempotency-Key was already used for a different order");
+        forgetCompletedKeys();
+        assertThatThrownBy(() -> idempotentOrderService.createOrder(userId, "key-1", request(2, "Street 2")))
+                .hasMessage("Idempotency-Key was already used for a different order");
+
+        assertThat(orderRepository.count()).isEqualTo(1);
+        assertThat(stock()).isEqualTo(8);
+    }
+
+    @Test
+    void keysAreScopedPerUser() {
+        Long otherUserId = persistUser("other@example.com");
+
+        IdempotentOrderService.Result first = idempotentOrderService.createOrder(userId, "key-1", request(1, "Street 1"));
+        IdempotentOrderService.Result second = idempotentOrderService.createOrder(otherUserId, "key-1", request(1, "Street 1"));
+
+        assertThat(second.replayed()).isFalse();
+        assertThat(second.order().getId()).isNotEqualTo(first.order().getId());
+        assertThat(orderRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void concurrentDuplicatesCreateOneOrder() throws Exception {
+        List<Future<IdempotentOrderService.Result>> results;
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            results = executor.invokeAll(Collections.nCopies(8,
+                    () -> idempotentOrderService.createOrder(userId, "key-1", request(1, "Street 1"))));
+        }
+
+        long created = 0;
+        for (Future<IdempotentOrderService.Result> result : results) {
+            if (!result.get().replayed()) {
+                created++;
+            }
+        }
+        assertThat(created).isEqualTo(1);
+        assertThat(orderRepository.count()).isEqualTo(1);
+        assertThat(stock()).isEqualTo(9);
+    }
+
+    @Test
+    void internalKeysNeverMatchAClientKey() {
+        IdempotentOrderService.Result internal =
+                idempotentOrderService.createOrderWithInternalKey(userId, "submission-1", request(1, "Street 1"));
+        IdempotentOrderService.Result client =
+                idempotentOrderService.createOrder(userId, "submission-1", request(2, "Street 2"));
+
+        assertThat(client.replayed()).isFalse();
+        assertThat(client.order().getId()).isNotEqualTo(internal.order().getId());
+        assertThatThrownBy(() -> idempotentOrderService.createOrder(userId, "\u0001submission-1", request(1, "Street 1")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(orderRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void rejectsOverlongKeys() {
+        assertThatThrownBy(() -> idempotentOrderService.createOrder(userId, "k".repeat(256), request(1, "Street 1")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> idempotentOrderService.createOrder(userId, " ", request(1, "Street 1")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(orderRepository.count()).isZero();
+    }
+
+    private void forgetCompletedKeys() {
+        Map<?, ?> completed = (Map<?, ?>) ReflectionTestUtils.getField(idempotentOrderService, "completed");
+        synchronized (completed) {
+            completed.clear();
+        }
+    }
+
+    private int stock() {
+        return productRepository.findById(productId).orElseThrow().getStock();
+    }
+
+    private OrderRequest request(int quantity, String shippingAddress) {
+        return new OrderRequest(List.of(new OrderItemRequest(productId, quantity)), shippingAddress);
+    }
+
+    private Long persistUser(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword("password");
+        user.setFirstName("First");
+        user.setLastName("Last");
+        return userRepository.save(user).getId();
+    }
+
+    private Long persistProduct(int stock) {
+        Product product = new Product();
+        product.setName("Desk lamp");
+        product.setDescription("Brass desk lamp");
+        product.setPrice(BigDecimal.valueOf(12.5));
+        product.setCategory("Lighting");
+        product.setImage("image.png");
+        product.setStock(stock);
+        return productRepository.save(product).getId();
+    }
+}
@@ -0,0 +1,205 @@
+package iprwc_backend.service;
+
+import iprwc_backend.dto.request.OrderItemRequest;
+import iprwc_backend.dto.request.OrderRequest;
+import iprwc_backend.dto.response.OrderResponse;
+import iprwc_backend.entity.Product;
+import iprwc_backend.entity.User;
+import iprwc_backend.exception.ResourceNotFoundException;
+import iprwc_backend.repository.OrderRepository;
+import iprwc_backend.repository.ProductRepository;
+import iprwc_backend.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Every test submits exactly max-batch orders at once and the writer waits up to max-wait-micros for them,
+// so they land in a single batch. Batches commit on the writer thread, so nothing here runs inside a test transaction
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "orders.group-commit.enabled=true",
+        "orders.group-commit.max-batch=4",
+        "orders.group-commit.max-wait-micros=5000000"
+})
+@Import({OrderIngestionPipeline.class, HotInventory.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderIngestionPipelineTest {
+
+    @Autowired
+    private OrderIngestionPipeline pipeline;
+
+    @Autowired
+    private HotInventory hotInventory;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @MockitoBean
+    private ProductCatalogCache catalogCache;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setEmail("buyer@example.com");
+        user.setPassword("password");
+        user.setFirstName("First");
+        user.setLastName("Last");
+        userId = userRepository.save(user).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        hotInventory.getStatus().forEach(status -> hotInventory.disable(status.getProductId()));
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void failingOrdersDoNotTakeTheRestOfTheBatchDown() throws Exception {
+        Long lamp = persistProduct("Desk lamp", 5);
+        Long cable = persistProduct("USB cable", 1);
+
+        List<Outcome> outcomes = submitTogether(List.of(
+                () -> submit(userId, order(lamp, 2, cable, 1)),
+                () -> submit(userId, order(lamp, 1, 9_999L, 1)),
+                () -> submit(9_999L, order(lamp, 1)),
+                () -> submit(userId, order(cable, 2))
+        ));
+
+        OrderResponse created = outcomes.get(0).order();
+        assertThat(created.getTotalAmount()).isEqualByComparingTo("30.00");
+        assertThat(created.getItems()).hasSize(2);
+        assertThat(outcomes.get(1).error()).isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Product not found with id: 9999");
+        assertThat(outcomes.get(2).error()).isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("User not found with id: 9999");
+        assertThat(outcomes.get(3).error()).hasMessage("Insufficient stock for product: USB cable");
+
+        assertThat(orderRepository.count()).isEqualTo(1);
+        assertThat(stock(lamp)).isEqualTo(3);
+        assertThat(stock(cable)).isZero();
+    }
+
+    @Test
+    void ordersClaimStockUntilItRunsOut() throws Exception {
+        Long lamp = persistProduct("Desk lamp", 3);
+
+        List<Outcome> outcomes = submitTogether(List.of(
+                () -> submit(userId, order(lamp, 1)),
+                () -> submit(userId, order(lamp, 1)),
+                () -> submit(userId, order(lamp, 1)),
+                () -> submit(userId, order(lamp, 1))
+        ));
+
+        assertThat(outcomes).filteredOn(outcome -> outcome.order() != null).hasSize(3);
+        assertThat(outcomes).filteredOn(outcome -> outcome.error() != null).singleElement()
+                .satisfies(outcome -> assertThat(outcome.error()).hasMessage("Insufficient stock for product: Desk lamp"));
+        assertThat(orderRepository.count()).isEqualTo(3);
+        assertThat(stock(lamp)).isZero();
+    }
+
+    @Test
+    void hotProductsAreTakenInMemoryAndReturnedWhenTheOrderFails() throws Exception {
+        Long headset = persistProduct("Flash sale headset", 4);
+        Long lamp = persistProduct("Desk lamp", 5);
+        hotInventory.enable(headset);
+
+        List<Outcome> outcomes = submitTogether(List.of(
+                () -> submit(userId, order(headset, 1, lamp, 1)),
+                () -> submit(userId, order(headset, 1, 9_999L, 1)),
+                () -> submit(userId, order(headset, 1, lamp, 9)),
+                () -> submit(userId, order(headset, 1))
+        ));
+
+        // The orders with a missing product or short regular stock give their headset back
+        assertThat(outcomes.get(0).order()).isNotNull();
+        assertThat(outcomes.get(1).error()).isInstanceOf(ResourceNotFoundException.class);
+        assertThat(outcomes.get(2).error()).hasMessage("Insufficient stock for product: Desk lamp");
+        assertThat(outcomes.get(3).order()).isNotNull();
+        assertThat(orderRepository.count()).isEqualTo(2);
+        assertThat(stock(lamp)).isEqualTo(4);
+
+        hotInventory.flush();
+        assertThat(stock(headset)).isEqualTo(2);
+        assertThat(hotInventory.getStatus()).singleElement()
+                .satisfies(status -> assertThat(status.getAvailable()).isEqualTo(2));
+    }
+
+    private Optional<OrderResponse> submit(Long userId, OrderRequest request) {
+        return pipeline.submit(userId, request, null);
+    }
+
+    // Run the submissions concurrently and collect each one's order or error, in submission order
+    private static List<Outcome> submitTogether(List<Callable<Optional<OrderResponse>>> submissions) throws InterruptedException {
+        List<Future<Optional<OrderResponse>>> futures;
+        try (ExecutorService executor = Executors.newFixedThreadPool(submissions.size())) {
+            futures = executor.invokeAll(submissions);
+        }
+        List<Outcome> outcomes = new ArrayList<>();
+        for (Future<Optional<OrderResponse>> future : futures) {
+            try {
+                // Empty would mean the batch failed as a whole and the caller fell back to its own transaction
+                outcomes.add(new Outcome(future.get().orElseThrow(), null));
+            } catch (ExecutionException e) {
+                outcomes.add(new Outcome(null, e.getCause()));
+            }
+        }
+        return outcomes;
+    }
+
+    private static OrderRequest order(Long productId, int quantity) {
+        return new OrderRequest(List.of(new OrderItemRequest(productId, quantity)), "Street 1");
+    }
+
+    private static OrderRequest order(Long productId, int quantity, Long otherProductId, int otherQuantity) {
+        return new OrderRequest(List.of(
+                new OrderItemRequest(productId, quantity),
+                new OrderItemRequest(otherProductId, otherQuantity)
+        ), "Street 1");
+    }
+
+    private int stock(Long productId) {
+        return productRepository.findById(productId).orElseThrow().getStock();
+    }
+
+    private Long persistProduct(String name, int stock) {
+        Product product = new Product();
+        product.setName(name);
+        product.setDescription(name + " for the home office");
+        product.setPrice(BigDecimal.TEN);
+        product.setCategory("Home");
+        product.setImage("image.png");
+        product.setStock(stock);
+        return productRepository.save(product).getId();
+    }
+
+    private record Outcome(OrderResponse order, Throwable error) {
+    }
+}
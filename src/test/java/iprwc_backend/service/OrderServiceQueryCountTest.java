@@ -0,0 +1,265 @@
+package iprwc_backend.service;
+
+import iprwc_backend.dto.response.CursorPage;
+import iprwc_backend.dto.response.OrderHistorySummary;
+import iprwc_backend.dto.response.OrderResponse;
+import iprwc_backend.entity.ArchivedOrder;
+import iprwc_backend.entity.ArchivedOrderItem;
+import iprwc_backend.entity.Order;
+import iprwc_backend.entity.OrderItem;
+import iprwc_backend.entity.OrderStatus;
+import iprwc_backend.entity.Product;
+import iprwc_backend.entity.User;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import(OrderService.class)
+class OrderServiceQueryCountTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @MockitoBean
+    private ProductService productService;
+
+    private Statistics statistics;
+    private final List<User> users = new ArrayList<>();
+    private final List<Product> products = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        for (int i = 0; i < 3; i++) {
+            users.add(persistUser(i));
+        }
+        for (int i = 0; i < 10; i++) {
+            products.add(persistProduct(i));
+        }
+    }
+
+    @Test
+    void orderPageUsesTwoQueriesWhateverTheOrderAndItemCount() {
+        persistOrders(5, 1);
+        assertThat(queriesFor(() -> orderService.getOrdersPage(null, null, 20, OrderView.FULL)).result().getItems()).hasSize(5);
+
+        persistOrders(60, 7);
+        QueryCount<CursorPage<OrderResponse>> page = queriesFor(() -> orderService.getOrdersPage(null, null, 20, OrderView.FULL));
+        assertThat(page.result().getItems()).hasSize(20);
+        assertThat(page.result().getItems().get(0).getItems()).hasSize(7);
+        assertThat(page.count()).isEqualTo(2);
+
+        QueryCount<CursorPage<OrderResponse>> next = queriesFor(
+                () -> orderService.getOrdersPage(null, page.result().getNextCursor(), 20, OrderView.FULL));
+        assertThat(next.result().getItems().get(0).getId()).isLessThan(page.result().getItems().get(19).getId());
+        assertThat(next.count()).isEqualTo(2);
+    }
+
+    @Test
+    void userAndStatusPagesUseTwoQueries() {
+        persistOrders(45, 4);
+
+        QueryCount<CursorPage<OrderResponse>> userPage = queriesFor(
+                () -> orderService.getUserOrdersPage(users.get(0).getId(), null, 10, OrderView.FULL));
+        assertThat(userPage.result().getItems())
+                .hasSize(10)
+                .allSatisfy(order -> assertThat(order.getUser().getId()).isEqualTo(users.get(0).getId()));
+        assertThat(userPage.count()).isEqualTo(2);
+
+        QueryCount<CursorPage<OrderResponse>> statusPage = queriesFor(
+                () -> orderService.getOrdersPage(OrderStatus.PENDING, null, 10, OrderView.FULL));
+        assertThat(statusPage.result().getItems()).hasSize(10);
+        assertThat(statusPage.count()).isEqualTo(2);
+    }
+
+    @Test
+    void userPagesWalkTheHistoryNewestFirstWithoutGapsOrRepeats() {
+        persistOrders(45, 2);
+        Long userId = users.get(2).getId();
+        List<Long> expected = orderService.getOrdersByUserId(userId, OrderView.FULL).stream()
+                .sorted(Comparator.comparing(OrderResponse::getCreatedAt).thenComparing(OrderResponse::getId).reversed())
+                .map(OrderResponse::getId)
+                .toList();
+
+        List<Long> walked = new ArrayList<>();
+        String cursor = null;
+        do {
+            String current = cursor;
+            QueryCount<CursorPage<OrderResponse>> page = queriesFor(() -> orderService.getUserOrdersPage(userId, current, 4, OrderView.FULL));
+            assertThat(page.count()).isEqualTo(2);
+            page.result().getItems().forEach(order -> walked.add(order.getId()));
+            cursor = page.result().getNextCursor();
+        } while (cursor != null);
+        assertThat(walked).hasSize(15).isEqualTo(expected);
+
+        QueryCount<OrderHistorySummary> summary = queriesFor(() -> orderService.getUserOrderSummary(userId));
+        assertThat(summary.result().getOrderCount()).isEqualTo(15);
+        assertThat(summary.result().getLastOrderId()).isEqualTo(expected.get(0));
+        assertThat(summary.count()).isEqualTo(2);
+    }
+
+    @Test
+    void userHistoryAndLookupIncludeArchivedOrders() {
+        persistOrders(9, 1);
+        User user = users.get(0);
+        for (int i = 0; i < 5; i++) {
+            ArchivedOrder archived = new ArchivedOrder();
+            archived.setId(1_000L + i);
+            archived.setUser(user);
+            archived.setTotalAmount(BigDecimal.TEN);
+            archived.setStatus(OrderStatus.DELIVERED);
+            archived.setShippingAddress("Street " + i);
+            archived.setCreatedAt(LocalDateTime.now().minusYears(2).plusDays(i));
+            archived.setUpdatedAt(archived.getCreatedAt());
+            archived.setArchivedAt(LocalDateTime.now());
+            entityManager.persist(archived);
+            entityManager.persist(new ArchivedOrderItem(
+                    2_000L + i, archived, archived.getCreatedAt(), products.get(i), 2, BigDecimal.valueOf(5)));
+        }
+
+        QueryCount<CursorPage<OrderResponse>> first = queriesFor(() -> orderService.getUserOrdersPage(user.getId(), null, 3, OrderView.FULL));
+        QueryCount<CursorPage<OrderResponse>> second = queriesFor(
+                () -> orderService.getUserOrdersPage(user.getId(), first.result().getNextCursor(), 3, OrderView.FULL));
+        QueryCount<CursorPage<OrderResponse>> third = queriesFor(
+                () -> orderService.getUserOrdersPage(user.getId(), second.result().getNextCursor(), 3, OrderView.FULL));
+        assertThat(first.result().getItems()).extracting(OrderResponse::getId).doesNotContain(1_004L);
+        assertThat(first.count()).isEqualTo(2);
+        assertThat(second.result().getItems()).extracting(OrderResponse::getId).containsExactly(1_004L, 1_003L, 1_002L);
+        assertThat(second.count()).isEqualTo(3);
+        assertThat(third.result().getItems()).extracting(OrderResponse::getId).containsExactly(1_001L, 1_000L);
+        assertThat(third.result().isHasMore()).isFalse();
+
+        OrderResponse archived = orderService.getOrderById(1_000L);
+        assertThat(archived.getStatus()).isEqualTo(OrderStatus.DELIVERED);
+        assertThat(archived.getItems()).singleElement().satisfies(item -> assertThat(item.getQuantity()).isEqualTo(2));
+
+        OrderHistorySummary summary = orderService.getUserOrderSummary(user.getId());
+        assertThat(summary.getOrderCount()).isEqualTo(8);
+        assertThat(summary.getLastOrderStatus()).isEqualTo(OrderStatus.PENDING);
+    }
+
+    @Test
+    void unpagedListsUseOneQuery() {
+        persistOrders(30, 3);
+
+        QueryCount<List<OrderResponse>> all = queriesFor(() -> orderService.getAllOrders(OrderView.FULL));
+        assertThat(all.result()).hasSize(30);
+        assertThat(all.count()).isEqualTo(1);
+
+        QueryCount<List<OrderResponse>> byUser = queriesFor(() -> orderService.getOrdersByUserId(users.get(1).getId(), OrderView.FULL));
+        assertThat(byUser.result()).hasSize(10);
+        assertThat(byUser.count()).isEqualTo(1);
+
+        QueryCount<List<OrderResponse>> byStatus = queriesFor(() -> orderService.getOrdersByStatus(OrderStatus.PENDING, OrderView.FULL));
+        assertThat(byStatus.result()).hasSize(30);
+        assertThat(byStatus.count()).isEqualTo(1);
+    }
+
+    @Test
+    void compactAndSparseViewsLoadOnlyWhatTheyFill() {
+        persistOrders(20, 4);
+
+        QueryCount<CursorPage<OrderResponse>> compact = queriesFor(() -> orderService.getOrdersPage(null, null, 10, OrderView.COMPACT));
+        assertThat(compact.count()).isEqualTo(2);
+        OrderResponse first = compact.result().getItems().get(0);
+        assertThat(first.getUser()).isNull();
+        assertThat(first.getUserId()).isNotNull();
+        assertThat(first.getItems()).hasSize(4).allSatisfy(item -> {
+            assertThat(item.getProduct()).isNull();
+            assertThat(item.getProductName()).startsWith("Product ");
+            assertThat(item.getQuantity()).isEqualTo(1);
+        });
+
+        OrderView sparse = OrderView.of(null, "status,totalAmount");
+        QueryCount<CursorPage<OrderResponse>> page = queriesFor(() -> orderService.getOrdersPage(null, null, 10, sparse));
+        assertThat(page.count()).isEqualTo(2);
+        assertThat(page.result().getItems()).allSatisfy(order -> {
+            assertThat(order.getId()).isNotNull();
+            assertThat(order.getStatus()).isEqualTo(OrderStatus.PENDING);
+            assertThat(order.getItems()).isNull();
+            assertThat(order.getUser()).isNull();
+            assertThat(order.getCreatedAt()).isNull();
+        });
+        QueryCount<CursorPage<OrderResponse>> next = queriesFor(
+                () -> orderService.getOrdersPage(null, page.result().getNextCursor(), 10, sparse));
+        assertThat(next.result().getItems()).hasSize(10);
+
+        QueryCount<List<OrderResponse>> all = queriesFor(() -> orderService.getAllOrders(OrderView.of("compact", "user")));
+        assertThat(all.result()).hasSize(20).allSatisfy(order -> assertThat(order.getUserId()).isNotNull());
+        assertThat(all.count()).isEqualTo(1);
+    }
+
+    // Run against an empty persistence context so nothing is served from the first-level cache
+    private <T> QueryCount<T> queriesFor(Supplier<T> call) {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        T result = call.get();
+        return new QueryCount<>(result, statistics.getPrepareStatementCount());
+    }
+
+    private void persistOrders(int count, int itemsPerOrder) {
+        for (int i = 0; i < count; i++) {
+            Order order = new Order();
+            order.setUser(users.get(i % users.size()));
+            order.setShippingAddress("Street " + i);
+            order.setStatus(OrderStatus.PENDING);
+            order.setTotalAmount(BigDecimal.TEN);
+            for (int j = 0; j < itemsPerOrder; j++) {
+                OrderItem item = new OrderItem();
+                item.setProduct(products.get((i + j) % products.size()));
+                item.setQuantity(1);
+                item.setPrice(BigDecimal.ONE);
+                order.addItem(item);
+            }
+            entityManager.persist(order);
+        }
+    }
+
+    private User persistUser(int i) {
+        User user = new User();
+        user.setEmail("user" + i + "@example.com");
+        user.setPassword("password");
+        user.setFirstName("First");
+        user.setLastName("Last");
+        entityManager.persist(user);
+        return user;
+    }
+
+    private Product persistProduct(int i) {
+        Product product = new Product();
+        product.setName("Product " + i);
+        product.setDescription("Description of product " + i);
+        product.setPrice(BigDecimal.ONE);
+        product.setCategory("Category " + (i % 3));
+        product.setImage("image.png");
+        product.setStock(100);
+        entityManager.persist(product);
+        return product;
+    }
+
+    private record QueryCount<T>(T result, long count) {
+    }
+}
@@ -0,0 +1,55 @@
+package iprwc_backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import iprwc_backend.dto.response.OrderItemResponse;
+import iprwc_backend.dto.response.OrderResponse;
+import iprwc_backend.entity.OrderStatus;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderViewRendererTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final OrderViewRenderer renderer = new OrderViewRenderer(objectMapper);
+
+    @Test
+    void fullViewKeepsNullFieldsAndLeavesOutCompactOnes() {
+        OrderItemResponse item = new OrderItemResponse(7L, null, null, null, 2, new BigDecimal("12.50"));
+        OrderResponse order = new OrderResponse(1L, null, null, List.of(item), new BigDecimal("25.00"),
+                OrderStatus.PENDING, null, null, null);
+
+        Object body = renderer.render(List.of(order), OrderView.FULL);
+        JsonNode json = objectMapper.valueToTree(body).get(0);
+
+        assertThat(body).isEqualTo(List.of(order));
+        assertThat(fieldNames(json)).containsExactly(
+                "id", "user", "items", "totalAmount", "status", "shippingAddress", "createdAt", "updatedAt");
+        assertThat(json.get("user").isNull()).isTrue();
+        assertThat(fieldNames(json.get("items").get(0))).containsExactly("id", "product", "quantity", "price");
+    }
+
+    @Test
+    void compactAndSparseViewsLeaveOutWhatTheyDidNotFill() {
+        OrderItemResponse item = new OrderItemResponse(7L, null, 3L, "Headset", 2, new BigDecimal("12.50"));
+        OrderResponse order = new OrderResponse(1L, null, 5L, List.of(item), null, OrderStatus.PENDING,
+                null, null, null);
+
+        JsonNode json = (JsonNode) renderer.render(order, OrderView.of("compact", "items,status"));
+
+        assertThat(fieldNames(json)).containsExactly("id", "userId", "items", "status");
+        assertThat(fieldNames(json.get("items").get(0)))
+                .containsExactly("id", "productId", "productName", "quantity", "price");
+    }
+
+    private static List<String> fieldNames(JsonNode node) {
+        List<String> names = new ArrayList<>();
+        node.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+}
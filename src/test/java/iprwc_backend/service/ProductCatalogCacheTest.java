@@ -0,0 +1,144 @@
+package iprwc_backend.service;
+
+import iprwc_backend.entity.Product;
+import iprwc_backend.event.ProductChangedEvent;
+import iprwc_backend.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductCatalogCacheTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductCatalogCache cache = new ProductCatalogCache(productRepository);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cache, "maxProducts", 1000);
+        ReflectionTestUtils.setField(cache, "maxAgeSeconds", 300L);
+        when(productRepository.count()).thenReturn(2L);
+    }
+
+    @Test
+    void readersFallBackToTheDatabaseWhileTheFirstLoadRuns() {
+        when(productRepository.findAll(any(Sort.class))).thenReturn(List.of(product(1L, 5), product(2L, 8)));
+
+        assertThat(cache.snapshot()).isNull();
+        ProductCatalogCache.Snapshot loaded = awaitSnapshot(snapshot -> true);
+
+        assertThat(loaded.getAll()).extracting("id").containsExactly(1L, 2L);
+        verify(productRepository, times(1)).findAll(any(Sort.class));
+    }
+
+    @Test
+    void adminWritesAreVisibleAsSoonAsTheListenerReturns() {
+        when(productRepository.findAll(any(Sort.class))).thenReturn(List.of(product(1L, 5), product(2L, 8)));
+        cache.snapshot();
+        ProductCatalogCache.Snapshot loaded = awaitSnapshot(snapshot -> true);
+
+        Product renamed = product(1L, 5);
+        renamed.setName("Renamed");
+        cache.onProductChanged(ProductChangedEvent.updated(ProductService.convertToResponse(renamed)));
+        cache.onProductChanged(ProductChangedEvent.deleted(2L));
+        cache.onProductChanged(ProductChangedEvent.created(ProductService.convertToResponse(product(3L, 1))));
+
+        ProductCatalogCache.Snapshot patched = cache.snapshot();
+        assertThat(patched.get(1L).getName()).isEqualTo("Renamed");
+        assertThat(patched.getAll()).extracting("id").containsExactly(1L, 3L);
+        assertThat(patched.getVersion()).isEqualTo(loaded.getVersion() + 3);
+    }
+
+    @Test
+    void checkoutsWaitForTheStockRefreshInsteadOfRebuildingPerOrder() {
+        when(productRepository.findAll(any(Sort.class))).thenReturn(List.of(product(1L, 5), product(2L, 8)));
+        cache.snapshot();
+        ProductCatalogCache.Snapshot loaded = awaitSnapshot(snapshot -> true);
+
+        for (int i = 0; i < 3; i++) {
+            cache.onProductChanged(ProductChangedEvent.stock(1L, -1));
+        }
+        assertThat(cache.snapshot()).isSameAs(loaded);
+
+        when(productRepository.findStockByIdIn(Set.of(1L))).thenReturn(List.<Object[]>of(new Object[]{1L, 2}));
+        cache.refreshStock();
+
+        ProductCatalogCache.Snapshot folded = cache.snapshot();
+        assertThat(folded.get(1L).getStock()).isEqualTo(2);
+        assertThat(folded.get(2L).getStock()).isEqualTo(8);
+        assertThat(folded.getVersion()).isEqualTo(loaded.getVersion() + 1);
+        verify(productRepository, times(1)).findStockByIdIn(any());
+    }
+
+    @Test
+    void stockIsReadAgainWhenACheckoutIsDeliveredBeforeTheUpdateItFollowed() {
+        when(productRepository.findAll(any(Sort.class))).thenReturn(List.of(product(1L, 5)));
+        cache.snapshot();
+        awaitSnapshot(snapshot -> true);
+
+        // The update set stock to 20 and a checkout committed right after it, but its event arrives first
+        cache.onProductChanged(ProductChangedEvent.stock(1L, -1));
+        cache.onProductChanged(ProductChangedEvent.updated(ProductService.convertToResponse(product(1L, 20))));
+        assertThat(cache.snapshot().get(1L).getStock()).isEqualTo(20);
+
+        when(productRepository.findStockByIdIn(Set.of(1L))).thenReturn(List.<Object[]>of(new Object[]{1L, 19}));
+        cache.refreshStock();
+
+        assertThat(cache.snapshot().get(1L).getStock()).isEqualTo(19);
+    }
+
+    @Test
+    void productsChangedDuringTheLoadAreReadAgainInsteadOfReplayed() {
+        // The load reads a row that already has the checkout; the deletion of 2 is not in it yet
+        when(productRepository.findAll(any(Sort.class))).thenAnswer(invocation -> {
+            cache.onProductChanged(ProductChangedEvent.stock(1L, -3));
+            cache.onProductChanged(ProductChangedEvent.deleted(2L));
+            return List.of(product(1L, 2), product(2L, 8));
+        });
+        when(productRepository.findAllById(Set.of(1L, 2L))).thenReturn(List.of(product(1L, 2)));
+
+        cache.snapshot();
+        ProductCatalogCache.Snapshot loaded = awaitSnapshot(snapshot -> true);
+        cache.refreshStock();
+
+        assertThat(loaded.getAll()).extracting("id").containsExactly(1L);
+        assertThat(loaded.get(1L).getStock()).isEqualTo(2);
+        assertThat(cache.snapshot()).isSameAs(loaded);
+    }
+
+    private ProductCatalogCache.Snapshot awaitSnapshot(Predicate<ProductCatalogCache.Snapshot> condition) {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (System.nanoTime() < deadline) {
+            ProductCatalogCache.Snapshot current = (ProductCatalogCache.Snapshot) ReflectionTestUtils.getField(cache, "snapshot");
+            if (current != null && condition.test(current)) {
+                return current;
+            }
+            Thread.onSpinWait();
+        }
+        throw new AssertionError("Catalog snapshot did not refresh in time");
+    }
+
+    private static Product product(Long id, int stock) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setDescription("Description of product " + id);
+        product.setPrice(BigDecimal.TEN);
+        product.setCategory("Electronics");
+        product.setImage("image.png");
+        product.setStock(stock);
+        return product;
+    }
+}
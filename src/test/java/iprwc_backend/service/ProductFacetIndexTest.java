@@ -0,0 +1,81 @@
+package iprwc_backend.service;
+
+import iprwc_backend.entity.Product;
+import iprwc_backend.event.ProductChangedEvent;
+import iprwc_backend.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductFacetIndexTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductFacetIndex index = new ProductFacetIndex(productRepository);
+
+    @Test
+    void productsChangedWhileTheBuildReadsAreReadAgain() {
+        // The snapshot already holds the checkout that emptied product 1, but not product 3 or the deletion of 2
+        when(productRepository.findAll()).thenAnswer(invocation -> {
+            index.onProductChanged(ProductChangedEvent.stock(1L, -3));
+            index.onProductChanged(ProductChangedEvent.created(ProductService.convertToResponse(product(3L, "Audio", 5))));
+            index.onProductChanged(ProductChangedEvent.deleted(2L));
+            return List.of(product(1L, "Peripherals", 0), product(2L, "Peripherals", 4));
+        });
+        when(productRepository.findAllById(Set.of(1L, 2L, 3L)))
+                .thenReturn(List.of(product(1L, "Peripherals", 0), product(3L, "Audio", 5)));
+
+        ProductFacetIndex.Result result = index.filter(null, null, null, null, 0, 10);
+
+        assertThat(result.ids()).containsExactly(1, 3);
+        assertThat(result.inStock()).isEqualTo(1);
+        assertThat(result.outOfStock()).isEqualTo(1);
+        assertThat(result.categories()).containsOnlyKeys("Audio", "Peripherals");
+    }
+
+    @Test
+    void reloadDuringTheBuildReadsEverythingAgain() {
+        when(productRepository.findAll())
+                .thenAnswer(invocation -> {
+                    index.onProductChanged(ProductChangedEvent.reloaded());
+                    return List.of(product(1L, "Peripherals", 2));
+                })
+                .thenReturn(List.of(product(4L, "Displays", 7)));
+
+        ProductFacetIndex.Result result = index.filter(null, null, null, true, 0, 10);
+
+        assertThat(result.ids()).containsExactly(4);
+        assertThat(result.categories()).containsOnlyKeys("Displays");
+        verify(productRepository, never()).findAllById(anyIterable());
+    }
+
+    @Test
+    void stockChangesAfterTheBuildApplyTheirDelta() {
+        when(productRepository.findAll()).thenReturn(List.of(product(1L, "Peripherals", 2)));
+        assertThat(index.filter(null, null, null, true, 0, 10).ids()).containsExactly(1);
+
+        index.onProductChanged(ProductChangedEvent.stock(1L, -2));
+
+        assertThat(index.filter(null, null, null, true, 0, 10).ids()).isEmpty();
+    }
+
+    private static Product product(Long id, String category, int stock) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setCategory(category);
+        product.setDescription("Description of product " + id);
+        product.setPrice(BigDecimal.valueOf(20));
+        product.setImage("image.png");
+        product.setStock(stock);
+        return product;
+    }
+}
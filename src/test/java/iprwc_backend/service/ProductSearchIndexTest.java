@@ -0,0 +1,145 @@
+package iprwc_backend.service;
+
+import iprwc_backend.dto.response.ProductResponse;
+import iprwc_backend.entity.Product;
+import iprwc_backend.event.ProductChangedEvent;
+import iprwc_backend.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductSearchIndexTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductSearchIndex index = new ProductSearchIndex(productRepository);
+
+    @Test
+    void changesCommittedWhileTheBuildReadsAreApplied() {
+        Product keyboard = product(1L, "Mechanical keyboard", "Peripherals");
+        Product mouse = product(2L, "Wireless mouse", "Peripherals");
+        // The build reads a snapshot from before these commits; their events arrive while it runs
+        when(productRepository.findAll()).thenAnswer(invocation -> {
+            index.onProductChanged(ProductChangedEvent.created(response(3L, "Studio headphones", "Audio")));
+            index.onProductChanged(ProductChangedEvent.deleted(2L));
+            index.onProductChanged(ProductChangedEvent.updated(response(1L, "Ergonomic keyboard", "Peripherals")));
+            return List.of(keyboard, mouse);
+        });
+
+        assertThat(index.search("headphones", 10)).containsExactly(3L);
+        assertThat(index.search("mouse", 10)).isEmpty();
+        assertThat(index.search("ergonomic", 10)).containsExactly(1L);
+        assertThat(index.search("mechanical", 10)).isEmpty();
+        verify(productRepository, times(1)).findAll();
+    }
+
+    @Test
+    void reloadDuringTheBuildDiscardsIt() {
+        when(productRepository.findAll())
+                .thenAnswer(invocation -> {
+                    index.onProductChanged(ProductChangedEvent.reloaded());
+                    return List.of(product(1L, "Mechanical keyboard", "Peripherals"));
+                })
+                .thenReturn(List.of(product(4L, "Gaming monitor", "Displays")));
+
+        assertThat(index.search("keyboard", 10)).isEmpty();
+        assertThat(index.search("monitor", 10)).containsExactly(4L);
+        verify(productRepository, times(2)).findAll();
+    }
+
+    @Test
+    void changesBeforeTheFirstBuildAreLeftToIt() {
+        index.onProductChanged(ProductChangedEvent.created(response(5L, "Desk lamp", "Lighting")));
+        when(productRepository.findAll()).thenReturn(List.of(product(6L, "Floor lamp", "Lighting")));
+
+        assertThat(index.search("lamp", 10)).containsExactly(6L);
+    }
+
+    @Test
+    void hitInTheNameOutranksTheSameHitInTheDescription() {
+        when(productRepository.findAll()).thenReturn(List.of(
+                product(1L, "Charger", "Accessories", "Ships with a USB cable"),
+                product(2L, "USB cable", "Accessories", "Braided")
+        ));
+
+        assertThat(index.search("cable", 10)).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void exactTermOutranksPrefixCompletion() {
+        when(productRepository.findAll()).thenReturn(List.of(
+                product(1L, "Lampshade holder", "Lighting", "Brass"),
+                product(2L, "Desk lamp", "Lighting", "Brass")
+        ));
+
+        assertThat(index.search("lamp", 10)).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void singularQueryFindsEsPluralsButNotShorterWords() {
+        when(productRepository.findAll()).thenReturn(List.of(
+                product(1L, "Smart watches", "Wearables", "Fitness tracking"),
+                product(2L, "Guitar strings", "Music", "Steel set"),
+                product(3L, "Storage boxes", "Home", "Stackable")
+        ));
+
+        assertThat(index.search("watch", 10)).containsExactly(1L);
+        assertThat(index.search("box", 10)).containsExactly(3L);
+        assertThat(index.search("string", 10)).containsExactly(2L);
+    }
+
+    @Test
+    void productMatchingEveryTermRanksFirst() {
+        when(productRepository.findAll()).thenReturn(List.of(
+                product(1L, "Wireless keyboard", "Peripherals", "Compact"),
+                product(2L, "Wired mouse", "Peripherals", "Compact"),
+                product(3L, "Wireless mouse", "Peripherals", "Compact"),
+                product(4L, "Wireless headset", "Audio", "Compact")
+        ));
+
+        List<Long> ids = index.search("wireless mouse", 10);
+
+        assertThat(ids).first().isEqualTo(3L);
+        // The rarer term decides between single-term matches
+        assertThat(ids.indexOf(2L)).isLessThan(ids.indexOf(1L));
+        assertThat(ids).containsExactlyInAnyOrder(1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    void pluralsAndTyposFindTheProduct() {
+        when(productRepository.findAll()).thenReturn(List.of(
+                product(1L, "Guitar string", "Music", "Nickel"),
+                product(2L, "Mechanical keyboard", "Peripherals", "Hot-swappable")
+        ));
+
+        assertThat(index.search("strings", 10)).containsExactly(1L);
+        assertThat(index.search("keybord", 10)).containsExactly(2L);
+        assertThat(index.search("the", 10)).isEmpty();
+    }
+
+    private static Product product(Long id, String name, String category) {
+        return product(id, name, category, name + " for the home office");
+    }
+
+    private static Product product(Long id, String name, String category, String description) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setCategory(category);
+        product.setDescription(description);
+        product.setPrice(BigDecimal.TEN);
+        product.setImage("image.png");
+        product.setStock(10);
+        return product;
+    }
+
+    private static ProductResponse response(Long id, String name, String category) {
+        return ProductService.convertToResponse(product(id, name, category));
+    }
+}
@@ -0,0 +1,183 @@
+package iprwc_backend.service;
+
+import iprwc_backend.dto.response.OrderItemResponse;
+import iprwc_backend.dto.response.OrderResponse;
+import iprwc_backend.dto.response.ProductResponse;
+import iprwc_backend.dto.response.SuggestionResponse;
+import iprwc_backend.entity.Product;
+import iprwc_backend.event.OrderChangedEvent;
+import iprwc_backend.event.ProductChangedEvent;
+import iprwc_backend.repository.OrderItemRepository;
+import iprwc_backend.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductSuggesterTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final OrderItemRepository orderItemRepository = mock(OrderItemRepository.class);
+    private final ProductSuggester suggester = new ProductSuggester(productRepository, orderItemRepository);
+
+    @Test
+    void ranksByUnitsSoldAndCompletesLaterWords() {
+        when(productRepository.findAll()).thenReturn(List.of(
+                product(1L, "Wireless mouse", "Peripherals"),
+                product(2L, "Wired mouse", "Peripherals"),
+                product(3L, "Mouse pad", "Accessories")));
+        when(orderItemRepository.findUnitsSoldByProduct()).thenReturn(List.<Object[]>of(new Object[]{2L, 40L}, new Object[]{3L, 5L}));
+
+        assertThat(texts(suggester.suggest("mou", 10))).containsExactly("Wired mouse", "Mouse pad", "Wireless mouse");
+        assertThat(texts(suggester.suggest("wir", 10))).containsExactly("Wired mouse", "Wireless mouse");
+        assertThat(texts(suggester.suggest("periph", 10))).containsExactly("Peripherals");
+    }
+
+    @Test
+    void productChangesReplaceOnlyThatProduct() {
+        when(productRepository.findAll()).thenReturn(List.of(
+                product(1L, "Wireless mouse", "Peripherals"),
+                product(2L, "Desk lamp", "Lighting")));
+        assertThat(texts(suggester.suggest("lamp", 10))).containsExactly("Desk lamp");
+
+        suggester.onProductChanged(ProductChangedEvent.updated(response(2L, "Floor lamp", "Lighting")));
+        suggester.onProductChanged(ProductChangedEvent.deleted(1L));
+
+        assertThat(texts(suggester.suggest("lamp", 10))).containsExactly("Floor lamp");
+        assertThat(suggester.suggest("desk", 10)).isEmpty();
+        assertThat(suggester.suggest("wireless", 10)).isEmpty();
+        assertThat(suggester.suggest("periph", 10)).isEmpty();
+        verify(productRepository, times(1)).findAll();
+    }
+
+    @Test
+    void createdOrdersReweighProductsInShortPrefixes() {
+        List<Product> cables = new ArrayList<>();
+        for (long id = 1; id <= 100; id++) {
+            cables.add(product(id, "Cable " + id, "Cables"));
+        }
+        when(productRepository.findAll()).thenReturn(cables);
+        when(orderItemRepository.findUnitsSoldByProduct()).thenReturn(List.<Object[]>of(new Object[]{7L, 3L}));
+        // The category weighs as much as all its products together
+        assertThat(texts(suggester.suggest("cable", 2))).containsExactly("Cables", "Cable 7");
+
+        suggester.onOrderChanged(OrderChangedEvent.created(List.of(order(42L, 10))));
+
+        assertThat(texts(suggester.suggest("cable", 2))).containsExactly("Cables", "Cable 42");
+        assertThat(texts(suggester.suggest("c", 3))).containsExactly("Cables", "Cable 42", "Cable 7");
+    }
+
+    @Test
+    void changesCommittedWhileTheBuildReadsAreApplied() {
+        when(productRepository.findAll()).thenAnswer(invocation -> {
+            suggester.onProductChanged(ProductChangedEvent.created(response(3L, "Studio headphones", "Audio")));
+            suggester.onProductChanged(ProductChangedEvent.deleted(1L));
+            return List.of(product(1L, "Studio monitor", "Audio"));
+        });
+
+        assertThat(texts(suggester.suggest("studio", 10))).containsExactly("Studio headphones");
+    }
+
+    @Test
+    void topsKeptInPlaceMatchAFreshBuild() {
+        String[] words = {"cable", "camera", "case", "charger", "desk", "lamp", "laptop", "mouse", "monitor", "mount"};
+        String[] categories = {"Cables", "Cameras", "Computers", "Lighting", "Office"};
+        Random random = new Random(11);
+        Map<Long, Product> catalog = new HashMap<>();
+        Map<Long, Long> sold = new HashMap<>();
+        for (long id = 1; id <= 300; id++) {
+            catalog.put(id, product(id, randomName(random, words, id), categories[random.nextInt(categories.length)]));
+            sold.put(id, (long) random.nextInt(20));
+        }
+        when(productRepository.findAll()).thenReturn(new ArrayList<>(catalog.values()));
+        when(orderItemRepository.findUnitsSoldByProduct()).thenReturn(rows(sold));
+        suggester.suggest("c", 10);
+
+        long nextId = 301;
+        for (int i = 0; i < 2_000; i++) {
+            int action = random.nextInt(100);
+            List<Long> ids = new ArrayList<>(catalog.keySet());
+            Long id = ids.get(random.nextInt(ids.size()));
+            if (action < 75) {
+                int quantity = 1 + random.nextInt(5);
+                sold.merge(id, (long) quantity, Long::sum);
+                suggester.onOrderChanged(OrderChangedEvent.created(List.of(order(id, quantity))));
+            } else if (action < 88) {
+                Product renamed = product(id, randomName(random, words, id), categories[random.nextInt(categories.length)]);
+                catalog.put(id, renamed);
+                suggester.onProductChanged(ProductChangedEvent.updated(ProductService.convertToResponse(renamed)));
+            } else if (action < 94) {
+                catalog.remove(id);
+                suggester.onProductChanged(ProductChangedEvent.deleted(id));
+            } else {
+                Product created = product(nextId, randomName(random, words, nextId), categories[random.nextInt(categories.length)]);
+                catalog.put(nextId++, created);
+                suggester.onProductChanged(ProductChangedEvent.created(ProductService.convertToResponse(created)));
+            }
+        }
+
+        ProductRepository freshProducts = mock(ProductRepository.class);
+        OrderItemRepository freshOrderItems = mock(OrderItemRepository.class);
+        when(freshProducts.findAll()).thenReturn(new ArrayList<>(catalog.values()));
+        when(freshOrderItems.findUnitsSoldByProduct()).thenReturn(rows(sold));
+        ProductSuggester fresh = new ProductSuggester(freshProducts, freshOrderItems);
+
+        List<String> prefixes = new ArrayList<>(List.of("c", "ca", "cab", "cabl", "cable", "l", "la", "lap", "m", "mo", "mon", "moun", "o", "of"));
+        for (String word : words) {
+            prefixes.add(word.substring(0, 2));
+            prefixes.add(word.substring(0, 3));
+        }
+        for (String prefix : prefixes) {
+            assertThat(suggester.suggest(prefix, 10)).as(prefix).isEqualTo(fresh.suggest(prefix, 10));
+        }
+    }
+
+    private static String randomName(Random random, String[] words, long id) {
+        return words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)] + " " + id;
+    }
+
+    private static List<Object[]> rows(Map<Long, Long> sold) {
+        List<Object[]> rows = new ArrayList<>();
+        sold.forEach((id, units) -> rows.add(new Object[]{id, units}));
+        return rows;
+    }
+
+    private static List<String> texts(List<SuggestionResponse> suggestions) {
+        return suggestions.stream().map(SuggestionResponse::getText).toList();
+    }
+
+    private static OrderResponse order(Long productId, int quantity) {
+        OrderItemResponse item = new OrderItemResponse();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        OrderResponse order = new OrderResponse();
+        order.setItems(List.of(item));
+        return order;
+    }
+
+    private static Product product(Long id, String name, String category) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setCategory(category);
+        product.setDescription(name + " for the home office");
+        product.setPrice(BigDecimal.TEN);
+        product.setImage("image.png");
+        product.setStock(10);
+        return product;
+    }
+
+    private static ProductResponse response(Long id, String name, String category) {
+        return ProductService.convertToResponse(product(id, name, category));
+    }
+}
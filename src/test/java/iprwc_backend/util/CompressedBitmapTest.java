@@ -0,0 +1,159 @@
+package iprwc_backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompressedBitmapTest {
+
+    // A chunk holds 65536 ids and switches from sorted array to bitset above this many
+    private static final int ARRAY_LIMIT = 4096;
+
+    @Test
+    void chunkConvertsToBitsetAboveTheArrayLimitAndBackBelowIt() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        NavigableSet<Integer> expected = new TreeSet<>();
+        for (int id = 0; id <= ARRAY_LIMIT; id++) {
+            bitmap.add(id * 3);
+            expected.add(id * 3);
+        }
+        assertMatches(bitmap, expected);
+
+        // Down to exactly the limit, then below it
+        bitmap.remove(0);
+        expected.remove(0);
+        assertMatches(bitmap, expected);
+        bitmap.remove(expected.last());
+        expected.remove(expected.last());
+        assertMatches(bitmap, expected);
+
+        bitmap.add(1);
+        expected.add(1);
+        assertMatches(bitmap, expected);
+    }
+
+    @Test
+    void addingOrRemovingTwiceChangesNothing() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        bitmap.add(7);
+        bitmap.add(7);
+        bitmap.remove(8);
+        assertThat(bitmap.cardinality()).isEqualTo(1);
+
+        bitmap.remove(7);
+        bitmap.remove(7);
+        assertThat(bitmap.isEmpty()).isTrue();
+        assertThat(bitmap.after(-1, 10)).isEmpty();
+    }
+
+    @Test
+    void setOperationsMatchAcrossArrayAndBitsetChunks() {
+        Random random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            NavigableSet<Integer> left = randomIds(random, 1 + random.nextInt(12_000));
+            NavigableSet<Integer> right = randomIds(random, 1 + random.nextInt(12_000));
+            CompressedBitmap a = bitmapOf(left);
+            CompressedBitmap b = bitmapOf(right);
+
+            NavigableSet<Integer> intersection = new TreeSet<>(left);
+            intersection.retainAll(right);
+            NavigableSet<Integer> union = new TreeSet<>(left);
+            union.addAll(right);
+
+            assertMatches(a.and(b), intersection);
+            assertMatches(a.or(b), union);
+            assertThat(a.andCardinality(b)).isEqualTo(intersection.size());
+            assertThat(b.andCardinality(a)).isEqualTo(intersection.size());
+        }
+    }
+
+    @Test
+    void resultsAndCopiesDoNotShareState() {
+        CompressedBitmap a = bitmapOf(new TreeSet<>(List.of(1, 2, 3)));
+        CompressedBitmap copy = a.copy();
+        CompressedBitmap union = a.or(new CompressedBitmap());
+
+        a.remove(2);
+
+        assertThat(copy.contains(2)).isTrue();
+        assertThat(union.contains(2)).isTrue();
+    }
+
+    @Test
+    void afterPagesInOrderAcrossChunks() {
+        NavigableSet<Integer> ids = new TreeSet<>();
+        // A sparse chunk, a dense chunk and ids in the highest chunk
+        for (int id = 10; id < 200; id += 7) {
+            ids.add(id);
+        }
+        for (int id = 65536; id < 65536 + 10_000; id++) {
+            ids.add(id);
+        }
+        ids.add(Integer.MAX_VALUE - 1);
+        ids.add(Integer.MAX_VALUE);
+        CompressedBitmap bitmap = bitmapOf(ids);
+
+        List<Integer> paged = new ArrayList<>();
+        int cursor = -1;
+        while (true) {
+            int[] page = bitmap.after(cursor, 333);
+            if (page.length == 0) {
+                break;
+            }
+            for (int id : page) {
+                paged.add(id);
+            }
+            cursor = page[page.length - 1];
+        }
+        assertThat(paged).containsExactlyElementsOf(ids);
+        assertThat(bitmap.after(65536 + 62, 3)).containsExactly(65536 + 63, 65536 + 64, 65536 + 65);
+    }
+
+    @Test
+    void nothingComesAfterTheLargestId() {
+        CompressedBitmap bitmap = bitmapOf(new TreeSet<>(List.of(0, 5, Integer.MAX_VALUE)));
+
+        assertThat(bitmap.after(Integer.MAX_VALUE - 1, 10)).containsExactly(Integer.MAX_VALUE);
+        assertThat(bitmap.after(Integer.MAX_VALUE, 10)).isEmpty();
+    }
+
+    @Test
+    void rejectsNegativeIds() {
+        assertThatThrownBy(() -> new CompressedBitmap().add(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static NavigableSet<Integer> randomIds(Random random, int count) {
+        NavigableSet<Integer> ids = new TreeSet<>();
+        for (int i = 0; i < count; i++) {
+            // Three chunks, so some end up dense and some sparse
+            ids.add(random.nextInt(3 * 65536));
+        }
+        return ids;
+    }
+
+    private static CompressedBitmap bitmapOf(NavigableSet<Integer> ids) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        ids.forEach(bitmap::add);
+        return bitmap;
+    }
+
+    private static void assertMatches(CompressedBitmap bitmap, NavigableSet<Integer> expected) {
+        List<Integer> actual = new ArrayList<>();
+        bitmap.forEach(actual::add);
+        assertThat(actual).containsExactlyElementsOf(expected);
+        assertThat(bitmap.cardinality()).isEqualTo(expected.size());
+        for (int id : expected) {
+            assertThat(bitmap.contains(id)).isTrue();
+        }
+        if (!expected.isEmpty()) {
+            assertThat(bitmap.contains(expected.first() + 1)).isEqualTo(expected.contains(expected.first() + 1));
+        }
+    }
+}
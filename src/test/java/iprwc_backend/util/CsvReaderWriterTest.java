@@ -0,0 +1,90 @@
+package iprwc_backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvReaderWriterTest {
+
+    @Test
+    void quotedFieldsMaySpanLines() throws IOException {
+        String csv = "id,name,description\r\n"
+                + "1,\"Cable\",\"Braided\r\n3m, \"\"USB-C\"\"\nfor laptops\"\r\n"
+                + "2,Adapter,\"\"\n";
+
+        assertThat(readAll(csv)).containsExactly(
+                List.of("id", "name", "description"),
+                List.of("1", "Cable", "Braided\r\n3m, \"USB-C\"\nfor laptops"),
+                List.of("2", "Adapter", "")
+        );
+    }
+
+    @Test
+    void acceptsEveryLineEnding() throws IOException {
+        assertThat(readAll("a,b\rc,d\ne,f\r\ng,h")).containsExactly(
+                List.of("a", "b"),
+                List.of("c", "d"),
+                List.of("e", "f"),
+                List.of("g", "h")
+        );
+    }
+
+    @Test
+    void keepsEmptyFieldsAndLines() throws IOException {
+        assertThat(readAll(",,\n\nx\n")).containsExactly(
+                List.of("", "", ""),
+                List.of(""),
+                List.of("x")
+        );
+    }
+
+    @Test
+    void rejectsUnterminatedQuotedField() {
+        CsvReader reader = new CsvReader(new StringReader("1,\"never closed\nstill open"));
+
+        assertThatThrownBy(reader::next).isInstanceOf(IOException.class).hasMessageContaining("Unterminated");
+    }
+
+    @Test
+    void writtenRecordsReadBackUnchanged() throws IOException {
+        List<List<String>> records = List.of(
+                List.of("plain", "with,comma", "with \"quotes\""),
+                List.of("line\nbreak", "carriage\rreturn", "crlf\r\nend"),
+                List.of(" leading", "trailing ", "\"", ""),
+                List.of("\"starts quoted\" then text", "ümlaut ✓")
+        );
+
+        StringWriter out = new StringWriter();
+        CsvWriter writer = new CsvWriter(out);
+        for (List<String> record : records) {
+            writer.write(record);
+        }
+
+        assertThat(readAll(out.toString())).containsExactlyElementsOf(records);
+    }
+
+    @Test
+    void quotesOnlyWhenNeededAndWritesNullAsEmpty() throws IOException {
+        StringWriter out = new StringWriter();
+        new CsvWriter(out).write(Arrays.asList("a", null, "b c", "d,e", " f"));
+
+        assertThat(out.toString()).isEqualTo("a,,b c,\"d,e\",\" f\"\r\n");
+    }
+
+    private static List<List<String>> readAll(String csv) throws IOException {
+        CsvReader reader = new CsvReader(new StringReader(csv));
+        List<List<String>> records = new ArrayList<>();
+        for (List<String> record = reader.next(); record != null; record = reader.next()) {
+            records.add(record);
+        }
+        return records;
+    }
+}
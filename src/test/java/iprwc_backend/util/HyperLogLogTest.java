@@ -0,0 +1,107 @@
+package iprwc_backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HyperLogLogTest {
+
+    @Test
+    void estimatesStayWithinThreeStandardErrors() {
+        for (int distinct : new int[]{1_000, 100_000, 1_000_000}) {
+            HyperLogLog sketch = sketchOf(0, distinct);
+
+            double error = Math.abs(sketch.estimate() - distinct) / (double) distinct;
+            assertThat(error).as("%d distinct", distinct).isLessThan(3 * HyperLogLog.relativeError());
+        }
+        assertThat(new HyperLogLog().estimate()).isZero();
+    }
+
+    @Test
+    void addingOrMergingTwiceChangesNothing() {
+        HyperLogLog sketch = sketchOf(0, 50_000);
+        byte[] before = sketch.toBytes();
+
+        for (long value = 0; value < 50_000; value++) {
+            sketch.add(value);
+        }
+        sketch.merge(sketch.copy());
+
+        assertThat(sketch.toBytes()).isEqualTo(before);
+    }
+
+    @Test
+    void mergeEstimatesTheUnion() {
+        HyperLogLog left = sketchOf(0, 60_000);
+        HyperLogLog right = sketchOf(40_000, 100_000);
+
+        left.merge(right);
+
+        assertThat(left.toBytes()).isEqualTo(sketchOf(0, 100_000).toBytes());
+    }
+
+    @Test
+    void sparseSketchRoundTrips() {
+        HyperLogLog sketch = sketchOf(0, 200);
+
+        byte[] bytes = sketch.toBytes();
+        HyperLogLog restored = HyperLogLog.fromBytes(bytes);
+
+        assertThat(bytes[0]).isEqualTo((byte) 1);
+        assertThat((bytes.length - 1) % 3).isZero();
+        assertThat(bytes.length).isLessThan(1 + 4096 * 6 / 8);
+        assertThat(restored.toBytes()).isEqualTo(bytes);
+        assertThat(restored.estimate()).isEqualTo(sketch.estimate());
+    }
+
+    @Test
+    void denseSketchRoundTrips() {
+        HyperLogLog sketch = sketchOf(0, 100_000);
+
+        byte[] bytes = sketch.toBytes();
+        HyperLogLog restored = HyperLogLog.fromBytes(bytes);
+
+        assertThat(bytes[0]).isEqualTo((byte) 2);
+        assertThat(bytes).hasSize(1 + 4096 * 6 / 8);
+        assertThat(restored.toBytes()).isEqualTo(bytes);
+        assertThat(restored.estimate()).isEqualTo(sketch.estimate());
+    }
+
+    @Test
+    void restoredSketchKeepsCounting() {
+        HyperLogLog restored = HyperLogLog.fromBytes(sketchOf(0, 500).toBytes());
+
+        for (long value = 500; value < 100_000; value++) {
+            restored.add(value);
+        }
+
+        assertThat(restored.toBytes()).isEqualTo(sketchOf(0, 100_000).toBytes());
+        assertThat(HyperLogLog.fromBytes(new byte[0]).estimate()).isZero();
+    }
+
+    @Test
+    void rejectsMalformedBytes() {
+        byte[] dense = sketchOf(0, 100_000).toBytes();
+        byte[] sparse = sketchOf(0, 10).toBytes();
+
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(Arrays.copyOf(dense, dense.length - 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(Arrays.copyOf(sparse, sparse.length - 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(new byte[]{1, 0x10, 0x00, 1}))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(new byte[]{3}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static HyperLogLog sketchOf(long from, long to) {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long value = from; value < to; value++) {
+            sketch.add(value);
+        }
+        return sketch;
+    }
+}
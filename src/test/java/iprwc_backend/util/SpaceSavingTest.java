@@ -0,0 +1,91 @@
+package iprwc_backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SpaceSavingTest {
+
+    @Test
+    void countsAreExactWhileEveryKeyHasACounter() {
+        SpaceSaving summary = new SpaceSaving(4);
+        summary.add(1, 5);
+        summary.add(2, 3);
+        summary.add(1, 2);
+        summary.add(3, 0);
+        summary.add(3, -4);
+
+        assertThat(summary.entries()).containsExactlyInAnyOrder(
+                new SpaceSaving.Entry(1, 7, 0),
+                new SpaceSaving.Entry(2, 3, 0)
+        );
+        assertThat(summary.minCount()).isZero();
+    }
+
+    @Test
+    void newKeyTakesOverTheSmallestCounter() {
+        SpaceSaving summary = new SpaceSaving(2);
+        summary.add(1, 10);
+        summary.add(2, 4);
+        summary.add(3, 1);
+
+        assertThat(summary.entries()).containsExactlyInAnyOrder(
+                new SpaceSaving.Entry(1, 10, 0),
+                new SpaceSaving.Entry(3, 5, 4)
+        );
+        assertThat(summary.minCount()).isEqualTo(5);
+    }
+
+    @Test
+    void boundsHoldOnASkewedStream() {
+        int capacity = 50;
+        Random random = new Random(7);
+        for (int round = 0; round < 5; round++) {
+            SpaceSaving summary = new SpaceSaving(capacity);
+            Map<Long, Long> truth = new HashMap<>();
+            long total = 0;
+            for (int i = 0; i < 50_000; i++) {
+                // Zipf-like: a few keys carry most of the weight over a long tail
+                long key = (long) Math.floor(Math.pow(random.nextDouble(), 3) * 5_000);
+                long weight = 1 + random.nextInt(5);
+                summary.add(key, weight);
+                truth.merge(key, weight, Long::sum);
+                total += weight;
+            }
+
+            Map<Long, SpaceSaving.Entry> entries = new HashMap<>();
+            long counted = 0;
+            for (SpaceSaving.Entry entry : summary.entries()) {
+                entries.put(entry.key(), entry);
+                counted += entry.count();
+                long actual = truth.getOrDefault(entry.key(), 0L);
+                assertThat(actual).as("key %d", entry.key()).isBetween(entry.count() - entry.error(), entry.count());
+            }
+            assertThat(entries).hasSize(capacity);
+            // Every unit of weight is counted exactly once across the counters
+            assertThat(counted).isEqualTo(total);
+
+            long threshold = total / capacity;
+            for (Map.Entry<Long, Long> key : truth.entrySet()) {
+                if (key.getValue() > threshold) {
+                    assertThat(entries).as("heavy key %d", key.getKey()).containsKey(key.getKey());
+                }
+                if (!entries.containsKey(key.getKey())) {
+                    assertThat(key.getValue()).isLessThanOrEqualTo(summary.minCount());
+                }
+            }
+            assertThat(summary.minCount()).isLessThanOrEqualTo(threshold);
+        }
+    }
+
+    @Test
+    void rejectsNonPositiveCapacity() {
+        assertThatThrownBy(() -> new SpaceSaving(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(new SpaceSaving(1).isEmpty()).isTrue();
+    }
+}
@@ -0,0 +1,71 @@
+package iprwc_backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TextAnalyzerTest {
+
+    @Test
+    void tokenizesOnAnythingButLettersAndDigits() {
+        assertThat(TextAnalyzer.tokenize("USB-C 3.1 Hub, 4-port (Grey)"))
+                .containsExactly("usb", "c", "3", "1", "hub", "4", "port", "grey");
+        assertThat(TextAnalyzer.tokenize(null)).isEmpty();
+        assertThat(TextAnalyzer.tokenize(" -- ")).isEmpty();
+    }
+
+    @Test
+    void analyzeDropsStopWordsAndStems() {
+        assertThat(TextAnalyzer.analyze("The cables for the Phones")).containsExactly("cable", "phone");
+        assertThat(TextAnalyzer.analyze("of and the")).isEmpty();
+    }
+
+    @Test
+    void pluralsStemLikeTheirSingular() {
+        for (String[] pair : List.of(
+                new String[]{"phones", "phone"},
+                new String[]{"batteries", "battery"},
+                new String[]{"glasses", "glass"},
+                new String[]{"strings", "string"},
+                new String[]{"chargers", "charger"},
+                new String[]{"bearings", "bearing"},
+                new String[]{"boxes", "box"},
+                new String[]{"watches", "watch"},
+                new String[]{"dishes", "dish"},
+                new String[]{"caches", "cache"},
+                new String[]{"ties", "tie"})) {
+            assertThat(TextAnalyzer.stem(pair[0])).as(pair[0]).isEqualTo(TextAnalyzer.stem(pair[1]));
+        }
+    }
+
+    @Test
+    void stemLeavesShortAndIrregularWordsAlone() {
+        assertThat(TextAnalyzer.stem("bus")).isEqualTo("bus");
+        assertThat(TextAnalyzer.stem("glass")).isEqualTo("glass");
+        assertThat(TextAnalyzer.stem("status")).isEqualTo("status");
+        assertThat(TextAnalyzer.stem("speed")).isEqualTo("speed");
+        assertThat(TextAnalyzer.stem("ring")).isEqualTo("ring");
+        assertThat(TextAnalyzer.stem("string")).isEqualTo("string");
+        assertThat(TextAnalyzer.stem("strings")).isEqualTo("string");
+        assertThat(TextAnalyzer.stem("shred")).isEqualTo("shred");
+        assertThat(TextAnalyzer.stem("charging")).isEqualTo(TextAnalyzer.stem("charged"));
+    }
+
+    @Test
+    void trigramsArePaddedWithBoundaryMarkers() {
+        assertThat(TextAnalyzer.trigrams("usb")).containsExactly("$us", "usb", "sb$");
+        assertThat(TextAnalyzer.trigrams("a")).containsExactly("$a$");
+    }
+
+    @Test
+    void editDistanceGivesUpPastTheMaximum() {
+        assertThat(TextAnalyzer.editDistance("keyboard", "keybord", 2)).isEqualTo(1);
+        assertThat(TextAnalyzer.editDistance("monitor", "monitro", 2)).isEqualTo(2);
+        assertThat(TextAnalyzer.editDistance("mouse", "mouse", 0)).isZero();
+        assertThat(TextAnalyzer.editDistance("mouse", "house", 0)).isEqualTo(1);
+        assertThat(TextAnalyzer.editDistance("cable", "headphones", 2)).isEqualTo(3);
+        assertThat(TextAnalyzer.editDistance("laptop", "desktop", 2)).isEqualTo(3);
+    }
+}